@@ -0,0 +1,59 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import frc.robot.LimelightHelpers.PoseEstimate;
+
+/**
+ * Decoding a Limelight botpose array, as VisionSubsystem does every loop. The arrays are built in
+ * memory, so NetworkTables is not involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LimelightHelpersBenchmark {
+  // x, y, z, roll, pitch, yaw, latency, tag count, tag span, average distance, average area,
+  // then id, txnc, tync, ta, distance to camera, distance to robot, ambiguity for each tag
+  private final double[] m_botpose = {
+      9.2, 4.1, 0.0, 0.0, 0.0, 90.0, 25.0, 2, 0.5, 2.1, 0.4,
+      10, 1.5, -2.5, 0.4, 2.2, 2.1, 0.05,
+      26, -3.5, -2.0, 0.3, 2.6, 2.5, 0.08
+  };
+  private final PoseEstimate m_pooledEstimate = new PoseEstimate().poolFiducials();
+
+  @Benchmark
+  public PoseEstimate decodePoseEstimate() {
+    PoseEstimate estimate = new PoseEstimate();
+    LimelightHelpers.decodePoseEstimate(m_botpose, 1_234_567L, false, estimate);
+    return estimate;
+  }
+
+  @Benchmark
+  public PoseEstimate decodePoseEstimatePooled() {
+    LimelightHelpers.decodePoseEstimate(m_botpose, 1_234_567L, false, m_pooledEstimate);
+    return m_pooledEstimate;
+  }
+
+  @Benchmark
+  public Pose3d toPose3D() {
+    return LimelightHelpers.toPose3D(m_botpose);
+  }
+
+  @Benchmark
+  public Pose2d toPose2D() {
+    return LimelightHelpers.toPose2D(m_botpose);
+  }
+}
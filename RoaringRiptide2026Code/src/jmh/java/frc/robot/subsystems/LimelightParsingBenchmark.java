@@ -0,0 +1,40 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.LimelightHelpers;
+import frc.robot.LimelightHelpers.LimelightResults;
+
+/**
+ * Parsing the Limelight json results: the LimelightHelpers.getLatestResults() object mapper next
+ * to the streaming parser that {@link LimelightResultsParser} runs in the background.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LimelightParsingBenchmark {
+  private final LimelightResultsParser.Slot m_slot = new LimelightResultsParser.Slot();
+
+  @Benchmark
+  public LimelightResults objectMapper() {
+    return LimelightHelpers.parseResults(LimelightResultsParser.kWarmupJson);
+  }
+
+  @Benchmark
+  public LimelightResults streaming() throws IOException {
+    LimelightResultsParser.parse(LimelightResultsParser.kWarmupJson, m_slot);
+    return m_slot.results;
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * MAXSwerveModule.setDesiredState(): chassis offset and optimize math, with the hardware replaced
+ * by a no-op {@link ModuleIO}. The WPILib SwerveModuleState version is measured for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MAXSwerveModuleBenchmark {
+  private static final int kInputCount = 1024;
+
+  private final MAXSwerveModule m_module =
+      new MAXSwerveModule(new ModuleIO() {}, DriveConstants.kFrontLeftChassisAngularOffset);
+
+  private final double[] m_speeds = new double[kInputCount];
+  private final double[] m_angles = new double[kInputCount];
+  private final Rotation2d m_currentAngle = new Rotation2d(0.3);
+  private int m_index = 0;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    for (int i = 0; i < kInputCount; i++) {
+      m_speeds[i] = (random.nextDouble() * 2 - 1) * DriveConstants.kMaxSpeedMetersPerSecond;
+      m_angles[i] = (random.nextDouble() * 2 - 1) * Math.PI;
+    }
+  }
+
+  private int next() {
+    m_index = (m_index + 1) & (kInputCount - 1);
+    return m_index;
+  }
+
+  @Benchmark
+  public MAXSwerveModule setDesiredState() {
+    int i = next();
+    m_module.setDesiredState(m_speeds[i], m_angles[i]);
+    return m_module;
+  }
+
+  @Benchmark
+  public SwerveModuleState wpilibOptimize() {
+    int i = next();
+    SwerveModuleState state = new SwerveModuleState(
+        m_speeds[i],
+        new Rotation2d(m_angles[i]).plus(
+            Rotation2d.fromRadians(DriveConstants.kFrontLeftChassisAngularOffset)));
+    state.optimize(m_currentAngle);
+    return state;
+  }
+}
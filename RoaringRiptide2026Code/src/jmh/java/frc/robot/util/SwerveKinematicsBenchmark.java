@@ -0,0 +1,90 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * The kinematics half of DriveSubsystem.drive(): field to robot relative conversion, inverse
+ * kinematics and desaturation. The primitive version the robot runs is measured next to the
+ * WPILib calls it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveKinematicsBenchmark {
+  private static final int kInputCount = 1024;
+
+  private final SwerveKinematicsMath m_kinematics =
+      new SwerveKinematicsMath(DriveConstants.kModuleTranslations);
+  private final MutableModuleState[] m_states = {
+      new MutableModuleState(), new MutableModuleState(),
+      new MutableModuleState(), new MutableModuleState()
+  };
+  private final ChassisSpeeds m_speeds = new ChassisSpeeds();
+
+  // Joystick-like inputs, cycled through so the JIT cannot fold them away
+  private final double[] m_vx = new double[kInputCount];
+  private final double[] m_vy = new double[kInputCount];
+  private final double[] m_omega = new double[kInputCount];
+  private final double[] m_heading = new double[kInputCount];
+  private int m_index = 0;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    for (int i = 0; i < kInputCount; i++) {
+      m_vx[i] = (random.nextDouble() * 2 - 1) * DriveConstants.kMaxSpeedMetersPerSecond;
+      m_vy[i] = (random.nextDouble() * 2 - 1) * DriveConstants.kMaxSpeedMetersPerSecond;
+      m_omega[i] = (random.nextDouble() * 2 - 1) * DriveConstants.kMaxAngularSpeed;
+      m_heading[i] = (random.nextDouble() * 2 - 1) * Math.PI;
+    }
+  }
+
+  private int next() {
+    m_index = (m_index + 1) & (kInputCount - 1);
+    return m_index;
+  }
+
+  @Benchmark
+  public void primitive(Blackhole blackhole) {
+    int i = next();
+    m_speeds.vxMetersPerSecond = m_vx[i];
+    m_speeds.vyMetersPerSecond = m_vy[i];
+    m_speeds.omegaRadiansPerSecond = m_omega[i];
+    SwerveKinematicsMath.fieldToRobotRelative(m_speeds, m_heading[i]);
+    m_kinematics.toModuleStates(
+        m_speeds.vxMetersPerSecond, m_speeds.vyMetersPerSecond, m_speeds.omegaRadiansPerSecond,
+        m_states);
+    SwerveKinematicsMath.desaturate(m_states, DriveConstants.kMaxSpeedMetersPerSecond);
+    blackhole.consume(m_states);
+  }
+
+  @Benchmark
+  public SwerveModuleState[] wpilib() {
+    int i = next();
+    ChassisSpeeds speeds = ChassisSpeeds.fromFieldRelativeSpeeds(
+        m_vx[i], m_vy[i], m_omega[i], new Rotation2d(m_heading[i]));
+    SwerveModuleState[] states = DriveConstants.kDriveKinematics.toSwerveModuleStates(speeds);
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.kMaxSpeedMetersPerSecond);
+    return states;
+  }
+}
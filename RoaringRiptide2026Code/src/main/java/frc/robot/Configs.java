@@ -11,6 +11,8 @@ import com.revrobotics.spark.config.SparkFlexConfig;
 import com.revrobotics.spark.config.SparkMaxConfig;
 
 import frc.robot.Constants.ModuleConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.util.SparkSignalPolicy;
 
 /**
  * The Constants class provides a convenient place for teams to hold robot-wide numerical or boolean
@@ -36,13 +38,16 @@ public final class Configs {
 
       drivingConfig
         .idleMode(IdleMode.kBrake)
-        .smartCurrentLimit(60);
+        .smartCurrentLimit(PowerConstants.kDriveMaxCurrentAmps);
 
       drivingConfig
         .encoder
           .positionConversionFactor(drivingFactor) // meters
           .velocityConversionFactor(drivingFactor / 60.0); // meters per second
 
+      // The odometry thread samples at kOdometryFrequencyHz, so send the wheel position that often
+      SparkSignalPolicy.DRIVE.applyTo(drivingConfig);
+
       drivingConfig
         .closedLoop
           .feedbackSensor(FeedbackSensor.kPrimaryEncoder)
@@ -54,7 +59,7 @@ public final class Configs {
 
       turningConfig
         .idleMode(IdleMode.kBrake)
-        .smartCurrentLimit(60);
+        .smartCurrentLimit(PowerConstants.kTurningMaxCurrentAmps);
 
       turningConfig
         .absoluteEncoder
@@ -66,6 +71,8 @@ public final class Configs {
           // Apply the REV Through Bore Encoder V2 preset (use REV_ThroughBoreEncoder for V1):
           .apply(AbsoluteEncoderConfig.Presets.REV_ThroughBoreEncoderV2);
 
+      SparkSignalPolicy.TURN.applyTo(turningConfig);
+
       turningConfig
         .closedLoop
           .feedbackSensor(FeedbackSensor.kAbsoluteEncoder)
@@ -91,14 +98,17 @@ public final class Configs {
         .inverted(false)
         .idleMode(IdleMode.kCoast)
         .openLoopRampRate(0.5)
-        .smartCurrentLimit(40);
+        .smartCurrentLimit(PowerConstants.kIntakeMaxCurrentAmps);
 
       // Configure basic settings of the conveyor motor
       conveyorConfig
         .inverted(true)
         .idleMode(IdleMode.kCoast)
         .openLoopRampRate(0.5)
-        .smartCurrentLimit(40);
+        .smartCurrentLimit(PowerConstants.kIntakeMaxCurrentAmps);
+
+      SparkSignalPolicy.INTAKE.applyTo(intakeConfig);
+      SparkSignalPolicy.ROLLER.applyTo(conveyorConfig);
     }
   }
 
@@ -114,7 +124,7 @@ public final class Configs {
         .idleMode(IdleMode.kCoast)
         .closedLoopRampRate(1.0)
         .openLoopRampRate(1.0)
-        .smartCurrentLimit(80);
+        .smartCurrentLimit(PowerConstants.kFlywheelMaxCurrentAmps);
 
       /*
        * Configure the closed loop controller. We want to make sure we set the
@@ -139,16 +149,28 @@ public final class Configs {
       flywheelConfig.closedLoop
         .feedForward.kV(nominalVoltage / Constants.NeoMotorConstants.kVortexKv);
 
+      // Short velocity filter, so the feed meter sees the dip from a shot as it happens
+      flywheelConfig.encoder
+        .quadratureMeasurementPeriod(8)
+        .quadratureAverageDepth(2);
+
       // Configure the follower flywheel motor to follow the main flywheel motor
       flywheelFollowerConfig.apply(flywheelConfig)
         .follow(Constants.LauncherSubsystemConstants.kFlywheelMotorCanId, true);
 
+      // After the apply() above, so the follower does not copy the leader's signal periods
+      SparkSignalPolicy.FLYWHEEL.applyTo(flywheelConfig);
+      SparkSignalPolicy.FLYWHEEL_FOLLOWER.applyTo(flywheelFollowerConfig);
+
       // Configure basic setting of the feeder motor
+      // Short ramp, so the feed meter can stop and start the feeder between pieces
       feederConfig
         .inverted(true)
         .idleMode(IdleMode.kCoast)
-        .openLoopRampRate(1.0)
-        .smartCurrentLimit(60);
+        .openLoopRampRate(0.05)
+        .smartCurrentLimit(PowerConstants.kFeederMaxCurrentAmps);
+
+      SparkSignalPolicy.ROLLER.applyTo(feederConfig);
     }
   }
 
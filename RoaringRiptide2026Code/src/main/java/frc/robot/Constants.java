@@ -34,12 +34,54 @@ public final class Constants {
       public static final double kIntake = 0.7;
       public static final double kOuttake = -0.7;
     }
+
+    public static final class PieceDetection {
+      // Pieces the robot starts the match with, and the most the hopper holds
+      public static final int kPreloadedPieces = 8;
+      public static final int kHopperCapacity = 50;
+      // Intake output above which pieces are counted; below minus this, the hopper is emptied
+      public static final double kMinIntakeOutput = 0.1;
+      // Ignore the intake's current while it ramps up after starting
+      public static final double kIntakeSpinUpSeconds = 0.6;
+      // A piece pulled in raises the intake current this far over its running average
+      public static final double kIntakeSpikeAmps = 8.0;
+      public static final double kIntakeBaselineAlpha = 0.05;
+      public static final double kMinPieceSpacingSeconds = 0.1;
+      // While feeding, the hopper is taken as empty once the count is 0 and no shot followed the
+      // launch's last one for the confirm time, or no shot came at all for the no-shot time
+      public static final double kEmptyConfirmSeconds = 0.5;
+      public static final double kNoShotEmptySeconds = 1.5;
+    }
   }
 
   public static final class VisionConstants {
     public static final String kLimelightName = "limelight-april";
     // converts from meters to inches, controls distance to stop moving forward when too close to hub
     public static final double kMinHubDistanceInches = 51.3/39.37008;
+
+    // Vision measurements are ignored while spinning faster than this (degrees per second)
+    public static final double kMaxTurnRateDegreesPerSecond = 720.0;
+    // Single tag estimates with more ambiguity than this are ignored
+    public static final double kMaxSingleTagAmbiguity = 0.7;
+    // Standard deviations for a vision measurement of a single tag at 1 meter. These are scaled up
+    // with distance and ambiguity and down with the number of tags seen.
+    public static final double kBaseXyStdDevMeters = 0.3;
+    public static final double kBaseThetaStdDevRadians = 0.6;
+    // Single tag headings are too noisy to trust, so effectively ignore them
+    public static final double kSingleTagThetaStdDevRadians = 9999.0;
+    // Most raw fiducials decoded per loop; the field has 32 tags
+    public static final int kMaxFiducials = 32;
+    // How often the background parser checks the Limelight's JSON results for changes
+    public static final double kResultsParserFrequencyHz = 100.0;
+  }
+
+  public static final class FieldConstants {
+    public static final double kFieldLengthMeters = Units.inchesToMeters(651.22);
+    // Center of each alliance's hub, in blue alliance field coordinates
+    public static final Translation2d kBlueHubCenter =
+        new Translation2d(Units.inchesToMeters(182.11), Units.inchesToMeters(158.84));
+    public static final Translation2d kRedHubCenter =
+        new Translation2d(kFieldLengthMeters - kBlueHubCenter.getX(), kBlueHubCenter.getY());
   }
 
   public static final class LauncherSubsystemConstants {
@@ -47,13 +89,44 @@ public final class Constants {
     public static final int kFlywheelMotorCanId = 53;  // SPARK Flex CAN ID (Right)
     public static final int kFlywheelFollowerMotorCanId = 52;  // SPARK Flex CAN ID (Left)
 
+    // Flywheel speed and feeder power for each distance to the hub, in the deploy folder
+    public static final String kShotMapFile = "shotmap.json";
+
     public static final class FeederSetpoints {
+      // Used for every shot if the shot map cannot be loaded
       public static final double kFeed = 0.95;
+      // Smaller changes of the shot map's feeder power are not sent to the motor
+      public static final double kRetargetPower = 0.02;
     }
 
     public static final class FlywheelSetpoints {
+      // Used for every shot if the shot map cannot be loaded
       public static final double kLaunchRpm = 5000;
       public static final double kVelocityTolerance = 100;
+      // Smaller changes of the shot map's speed are not sent to the motor while launching
+      public static final double kRetargetRpm = 25;
+    }
+
+    public static final class PreSpin {
+      public static final boolean kEnabled = true;
+      // The flywheel spins up to the shot speed inside this distance of the hub, and spins down
+      // again only past the exit distance, so it does not toggle on the edge of the zone
+      public static final double kZoneEnterMeters = 5.0;
+      public static final double kZoneExitMeters = 5.5;
+      // Speed held outside the zone while the robot may be carrying pieces
+      public static final double kIdleRpm = 2000;
+    }
+
+    public static final class FeedMetering {
+      // How often the feed meter checks the flywheel
+      public static final double kFrequencyHz = 200.0;
+      // A piece entering the flywheel pulls its speed this far down, or its current over this
+      // fraction of the flywheel's current limit, whatever the PowerManager has set that to
+      public static final double kShotDropRpm = 150;
+      public static final double kShotCurrentFraction = 0.55;
+      // The next piece is let through once the flywheel is back this close to the target. Smaller
+      // is more accurate, larger launches more pieces per second.
+      public static final double kRecoveredRpm = 75;
     }
 
   }
@@ -70,12 +143,16 @@ public final class Constants {
     // Distance between front and back wheels on robot
     public static final double kWheelBase = Units.inchesToMeters(23.0);
 
+    // Module locations relative to the robot center: front left, front right, rear left, rear right
+    public static final Translation2d[] kModuleTranslations = {
+        new Translation2d(kWheelBase / 2, kTrackWidth / 2),
+        new Translation2d(kWheelBase / 2, -kTrackWidth / 2),
+        new Translation2d(-kWheelBase / 2, kTrackWidth / 2),
+        new Translation2d(-kWheelBase / 2, -kTrackWidth / 2)
+    };
+
     public static final SwerveDriveKinematics kDriveKinematics =
-        new SwerveDriveKinematics(
-            new Translation2d(kWheelBase / 2, kTrackWidth / 2),
-            new Translation2d(kWheelBase / 2, -kTrackWidth / 2),
-            new Translation2d(-kWheelBase / 2, kTrackWidth / 2),
-            new Translation2d(-kWheelBase / 2, -kTrackWidth / 2));
+        new SwerveDriveKinematics(kModuleTranslations);
 
     // Angular offsets of the modules relative to the chassis in radians
     public static final double kFrontLeftChassisAngularOffset = -Math.PI / 2;
@@ -95,7 +172,40 @@ public final class Constants {
     public static final int kRearLeftTurningCanId = 23; 
     public static final int kRearRightTurningCanId = 24;
 
+    public static final int kPigeonCanId = 20;
+    public static final String kPigeonCanBus = "rio";
     public static final boolean kGyroReversed = false;
+
+    // Rate the odometry thread samples the gyro and module encoders at
+    public static final double kOdometryFrequencyHz = 250.0;
+
+    // How much the pose estimator trusts odometry (x and y in meters, heading in radians)
+    public static final double kOdometryXyStdDevMeters = 0.1;
+    public static final double kOdometryThetaStdDevRadians = 0.05;
+  }
+
+  public static final class CanConstants {
+    // Status signal periods used by SparkSignalPolicy, in milliseconds. kUnused leaves a frame off.
+    public static final int kUnused = 0;
+    public static final int kOdometryPeriodMs =
+        (int) Math.round(1000.0 / DriveConstants.kOdometryFrequencyHz);
+    // REV default for the frame a follower follows; slower makes the follower lag
+    public static final int kFollowedPeriodMs = 10;
+    // The feed meter samples the flywheel at this period
+    public static final int kFeedMeterPeriodMs =
+        (int) Math.round(1000.0 / LauncherSubsystemConstants.FeedMetering.kFrequencyHz);
+    public static final int kLoopPeriodMs = 20;
+    public static final int kSlowPeriodMs = 100;
+    public static final int kFaultsPeriodMs = 250;
+
+    // Bus load estimate. An extended frame with 8 data bytes is 131 bits before bit stuffing.
+    public static final double kBitsPerSecond = 1_000_000;
+    public static final double kBitsPerFrame = 140;
+    // Setpoint frames the roboRIO sends each motor controller, one per loop
+    public static final double kCommandFramesPerSecond = 50;
+
+    // Longest the robot waits at boot for the SPARKs to accept their configurations
+    public static final double kConfigureTimeoutSeconds = 10.0;
   }
 
   public static final class NeoMotorConstants {
@@ -122,6 +232,30 @@ public final class Constants {
         / (kDrivingMotorPinionTeeth * kDrivingMotorBevelPinionTeeth);
     public static final double kDriveWheelFreeSpeedRps = (kDrivingMotorFreeSpeedRps * kWheelCircumferenceMeters)
         / kDrivingMotorReduction;
+
+    // MAXSwerve turning gearbox reduction
+    public static final double kTurningMotorReduction = 9424.0 / 203.0;
+  }
+
+  public static final class SimConstants {
+    // Simulation loop period in seconds
+    public static final double kDtSeconds = 0.02;
+    // The drivetrain physics takes fixed steps this long, about as often as a SPARK runs its loops
+    public static final double kDrivetrainSubstepSeconds = 0.001;
+
+    // Moments of inertia as seen at the mechanism output, in kg m^2. These are estimates.
+    // The drive wheel's includes the motor rotor reflected through the gearbox, but not the robot.
+    public static final double kDriveWheelMoiKgMetersSquared = 0.0025;
+    public static final double kTurnMoiKgMetersSquared = 0.004;
+    public static final double kFlywheelMoiKgMetersSquared = 0.004;
+    public static final double kRollerMoiKgMetersSquared = 0.001;
+
+    // Same gains as the SPARK closed loops in Configs, in duty cycle per unit of error
+    public static final double kDrivingP = 0.04;
+    public static final double kTurningP = 1.0;
+    public static final double kFlywheelP = 0.0002;
+    // Matches the flywheel MAXMotion max acceleration
+    public static final double kFlywheelMaxAccelerationRpmPerSecond = 10000;
   }
 
   public static final class OIConstants {
@@ -147,6 +281,61 @@ public final class Constants {
             kMaxAngularSpeedRadiansPerSecond, kMaxAngularSpeedRadiansPerSecondSquared);
   }
 
+  public static final class PowerConstants {
+    // Per-motor smart current limits. The max is what the motor is configured with at boot; the
+    // PowerManager never goes below the min.
+    public static final int kDriveMaxCurrentAmps = 60;
+    public static final int kDriveMinCurrentAmps = 30;
+    public static final int kTurningMaxCurrentAmps = 60;
+    public static final int kTurningMinCurrentAmps = 20;
+    public static final int kFlywheelMaxCurrentAmps = 80;
+    public static final int kFlywheelMinCurrentAmps = 40;
+    public static final int kFeederMaxCurrentAmps = 60;
+    public static final int kFeederMinCurrentAmps = 30;
+    public static final int kIntakeMaxCurrentAmps = 40;
+    public static final int kIntakeMinCurrentAmps = 20;
+
+    // Limits are only cut when the measured draw would pull the battery this far above the
+    // roboRIO's brownout voltage, or lower
+    public static final double kBrownoutMarginVolts = 1.0;
+    // roboRIO, radio, Limelight and anything else the manager does not limit
+    public static final double kBaselineCurrentAmps = 10.0;
+    // Battery plus wiring resistance, used until there is enough data to estimate it
+    public static final double kNominalResistanceOhms = 0.02;
+    public static final double kMinResistanceOhms = 0.01;
+    public static final double kMaxResistanceOhms = 0.06;
+    // Smoothing of the battery model, per loop
+    public static final double kModelAlpha = 0.02;
+    // The current has to vary at least this much (A^2) before the resistance is re-estimated
+    public static final double kMinCurrentVariance = 25.0;
+
+    // Limits only change in steps this big, and are only raised after this long without a cut,
+    // one step per loop while the measured draw leaves room for it
+    public static final int kLimitStepAmps = 5;
+    public static final double kRaiseDelaySeconds = 0.5;
+    // Slowest the driver can be slowed down to when the drive current is cut
+    public static final double kMinDriveSpeedScale = 0.6;
+  }
+
+  public static final class RealTimeConstants {
+    // Turn off to compare the loop start jitter at normal priority
+    public static final boolean kEnabled = true;
+    // Linux real-time priorities, 1 to 99. Higher runs first.
+    public static final int kMainLoopPriority = 15;
+    public static final int kOdometryPriority = 20;
+    public static final int kFeedMeterPriority = 18;
+    public static final int kHalNotifierPriority = 40;
+  }
+
+  public static final class WarmupConstants {
+    // Turn off to see how long the first enabled loops take without warmup
+    public static final boolean kEnabled = true;
+    // Times the control code is run while disabled, enough for the JIT to fully compile it
+    public static final int kPasses = 20000;
+    // Most time spent warming up per disabled loop
+    public static final double kBudgetPerLoopSeconds = 0.004;
+  }
+
   public static final class PathPlannerConstants {
       public static RobotConfig kRobotConfig;
       static {
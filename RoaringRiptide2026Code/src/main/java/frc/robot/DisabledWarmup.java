@@ -0,0 +1,180 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.File;
+import java.util.Optional;
+
+import com.pathplanner.lib.config.PIDConstants;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.PathPlannerConstants;
+import frc.robot.Constants.WarmupConstants;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.IntakeSubsystem;
+import frc.robot.subsystems.LauncherSubsystem;
+import frc.robot.subsystems.VisionSubsystem;
+import frc.robot.util.ActuatorGate;
+
+/**
+ * Runs the robot's control code over and over while disabled, so the JIT has compiled it before
+ * the robot first moves.
+ *
+ * <p>Each pass drives with joystick style and robot relative speeds, follows a PathPlanner
+ * trajectory sample with a holonomic controller, decodes a Limelight botpose array and steps the
+ * launcher and conveyor commands through their whole lifecycle. The Limelight JSON parsers run
+ * once per loop alongside, outside the time budget. Everything runs inside
+ * {@link ActuatorGate#runSuppressed(Runnable)}, so no setpoint reaches the motors. A little is done
+ * every disabled loop until {@link WarmupConstants#kPasses} passes have run; the timing of the
+ * first and last passes is printed to show how much faster the compiled code is.
+ */
+public class DisabledWarmup {
+  // Passes averaged for the "warm" time
+  private static final int kWarmSamplePasses = 100;
+  // A MegaTag2 botpose with two tags, as the Limelight publishes it
+  private static final double[] kSampleBotpose = {
+    9.2, 4.1, 0, 0, 0, 90, 25, 2, 0.5, 2.1, 0.4,
+    10, 0.1, -0.2, 0.4, 2.0, 2.2, 0.1,
+    26, -0.3, 0.1, 0.3, 2.4, 2.6, 0.2
+  };
+
+  private final DriveSubsystem m_drive;
+  private final VisionSubsystem m_vision;
+  private final Command[] m_commands;
+  private final PPHolonomicDriveController m_pathController = new PPHolonomicDriveController(
+      new PIDConstants(5.0, 0.0, 0.0),
+      new PIDConstants(5.0, 0.0, 0.0));
+  private final ChassisSpeeds m_robotRelativeSpeeds = new ChassisSpeeds();
+  private final LimelightHelpers.PoseEstimate m_poseEstimate = new LimelightHelpers.PoseEstimate();
+  private final Runnable m_pass = this::pass;
+  private PathPlannerTrajectory m_trajectory = null;
+
+  private int m_passes = 0;
+  private long m_firstPassNanos = 0;
+  private long m_warmNanos = 0;
+  private long m_totalNanos = 0;
+
+  /**
+   * Creates the warmup. The commands it runs are its own instances, never scheduled.
+   *
+   * @param drive The drive subsystem.
+   * @param launcher The launcher subsystem.
+   * @param intake The intake subsystem.
+   * @param vision The vision subsystem, whose JSON parsers are warmed too.
+   */
+  public DisabledWarmup(
+      DriveSubsystem drive, LauncherSubsystem launcher, IntakeSubsystem intake,
+      VisionSubsystem vision) {
+    m_drive = drive;
+    m_vision = vision;
+    m_commands = new Command[] {
+      launcher.runLauncherCommand(),
+      launcher.runFeederCommand(),
+      launcher.runFlywheelCommand(),
+      intake.runConveyorCommand(launcher::isFeeding),
+      intake.runIntakeCommand()
+    };
+    m_poseEstimate.poolFiducials();
+  }
+
+  /** Returns whether every pass has run. */
+  public boolean isDone() {
+    return !WarmupConstants.kEnabled || m_passes >= WarmupConstants.kPasses;
+  }
+
+  /** Runs passes until this loop's time budget is used up. Call once per disabled loop. */
+  public void run() {
+    if (isDone()) {
+      return;
+    }
+    if (m_passes == 0) {
+      m_trajectory = loadTrajectory();
+    }
+    m_vision.warmupParser();
+
+    long budgetNanos = (long) (WarmupConstants.kBudgetPerLoopSeconds * 1e9);
+    long loopStartNanos = System.nanoTime();
+    while (!isDone() && System.nanoTime() - loopStartNanos < budgetNanos) {
+      long startNanos = System.nanoTime();
+      ActuatorGate.runSuppressed(m_pass);
+      long elapsedNanos = System.nanoTime() - startNanos;
+
+      if (m_passes == 0) {
+        m_firstPassNanos = elapsedNanos;
+      }
+      if (m_passes >= WarmupConstants.kPasses - kWarmSamplePasses) {
+        m_warmNanos += elapsedNanos;
+      }
+      m_totalNanos += elapsedNanos;
+      m_passes++;
+    }
+
+    if (isDone()) {
+      // Leave the logged drive setpoints at rest
+      ActuatorGate.runSuppressed(() -> m_drive.drive(0, 0, 0, false));
+      System.out.printf(
+          "---> Warmup done: %d passes in %.0f ms, first pass %.0f us, last passes %.1f us each%n",
+          m_passes, m_totalNanos / 1e6, m_firstPassNanos / 1e3,
+          m_warmNanos / 1e3 / Math.min(kWarmSamplePasses, m_passes));
+    }
+  }
+
+  private void pass() {
+    int i = m_passes;
+    double phase = (i % 360) * Math.PI / 180.0;
+
+    // Teleop driving, field and robot relative
+    m_drive.drive(Math.sin(phase), Math.cos(phase), 0.5 * Math.sin(2 * phase), (i & 1) == 0);
+
+    // Path following
+    if (m_trajectory != null) {
+      double t = (i % 100) / 100.0 * m_trajectory.getTotalTimeSeconds();
+      PathPlannerTrajectoryState target = m_trajectory.sample(t);
+      m_drive.driveRobotRelative(
+          m_pathController.calculateRobotRelativeSpeeds(m_drive.getPose(), target));
+    } else {
+      m_robotRelativeSpeeds.vxMetersPerSecond = Math.cos(phase);
+      m_robotRelativeSpeeds.vyMetersPerSecond = Math.sin(phase);
+      m_drive.driveRobotRelative(m_robotRelativeSpeeds);
+    }
+
+    // Limelight decoding
+    LimelightHelpers.decodePoseEstimate(kSampleBotpose, 1_000_000L + i, (i & 1) == 0, m_poseEstimate);
+
+    // Launcher and conveyor commands, start to finish
+    for (Command command : m_commands) {
+      command.initialize();
+      command.execute();
+      command.isFinished();
+      command.end(true);
+    }
+  }
+
+  /** Loads a deployed path's ideal trajectory to follow, or returns null if there is none. */
+  private static PathPlannerTrajectory loadTrajectory() {
+    File[] paths = new File(Filesystem.getDeployDirectory(), "pathplanner/paths")
+        .listFiles((dir, file) -> file.endsWith(".path"));
+    if (paths == null || paths.length == 0) {
+      return null;
+    }
+    String name = paths[0].getName();
+    try {
+      PathPlannerPath path = PathPlannerPath.fromPathFile(name.substring(0, name.length() - ".path".length()));
+      Optional<PathPlannerTrajectory> trajectory =
+          path.getIdealTrajectory(PathPlannerConstants.kRobotConfig);
+      return trajectory.orElse(null);
+    } catch (Exception e) {
+      DriverStation.reportWarning("Warmup could not load " + name + ": " + e, false);
+      return null;
+    }
+  }
+}
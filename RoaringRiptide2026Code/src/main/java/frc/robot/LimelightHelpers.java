@@ -3,9 +3,12 @@
 package frc.robot;
 
 import edu.wpi.first.networktables.DoubleArrayEntry;
+import edu.wpi.first.networktables.DoubleEntry;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringArrayEntry;
+import edu.wpi.first.networktables.StringEntry;
 import edu.wpi.first.networktables.TimestampedDoubleArray;
 import frc.robot.LimelightHelpers.LimelightResults;
 import frc.robot.LimelightHelpers.PoseEstimate;
@@ -29,6 +32,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import edu.wpi.first.net.PortForwarder;
 
 /**
@@ -37,7 +41,17 @@ import edu.wpi.first.net.PortForwarder;
  */
 public class LimelightHelpers {
 
-    private static final Map<String, DoubleArrayEntry> doubleArrayEntries = new ConcurrentHashMap<>();
+    // Typed entries cached per table, then per entry name. Looking up an existing entry does not
+    // allocate (no key concatenation, no capturing lambda).
+    private static final Map<String, Map<String, DoubleEntry>> doubleEntries = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, DoubleArrayEntry>> doubleArrayEntries = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, StringEntry>> stringEntries = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, StringArrayEntry>> stringArrayEntries = new ConcurrentHashMap<>();
+
+    private static final Pose2d EMPTY_POSE = new Pose2d();
+    private static final int kMaxPooledFiducials = 32;
+    private static final double[] EMPTY_DOUBLE_ARRAY = new double[0];
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
 
     /**
      * Represents a Color/Retroreflective Target Result extracted from JSON Output
@@ -715,6 +729,80 @@ public class LimelightHelpers {
             this.corner3_Y = corner3_Y;
         }
     }
+
+    /**
+     * Reusable storage for raw fiducial results. Holds a fixed pool of RawFiducial objects and one
+     * array per possible count, so decoding into it never allocates. The array returned by
+     * {@link #get()} is only valid until the next decode into the same buffer.
+     */
+    public static class RawFiducialBuffer {
+        private final RawFiducial[] pool;
+        private final RawFiducial[][] arraysByCount;
+        private RawFiducial[] current;
+        private DoubleArrayEntry sourceEntry;
+        private long sourceTimestamp = Long.MIN_VALUE;
+
+        /**
+         * @param capacity The most fiducials the buffer can hold. Extra fiducials are dropped.
+         */
+        public RawFiducialBuffer(int capacity) {
+            pool = new RawFiducial[capacity];
+            arraysByCount = new RawFiducial[capacity + 1][];
+            for (int i = 0; i < capacity; i++) {
+                pool[i] = new RawFiducial(0, 0, 0, 0, 0, 0, 0);
+            }
+            for (int count = 0; count <= capacity; count++) {
+                arraysByCount[count] = Arrays.copyOf(pool, count);
+            }
+            current = arraysByCount[0];
+        }
+
+        /** Returns the decoded fiducials, sized to the number found. */
+        public RawFiducial[] get() {
+            return current;
+        }
+
+        private RawFiducial[] resize(int count) {
+            current = arraysByCount[Math.min(count, pool.length)];
+            return current;
+        }
+    }
+
+    /**
+     * Reusable storage for raw neural detector results. See {@link RawFiducialBuffer}.
+     */
+    public static class RawDetectionBuffer {
+        private final RawDetection[] pool;
+        private final RawDetection[][] arraysByCount;
+        private RawDetection[] current;
+        private DoubleArrayEntry sourceEntry;
+        private long sourceTimestamp = Long.MIN_VALUE;
+
+        /**
+         * @param capacity The most detections the buffer can hold. Extra detections are dropped.
+         */
+        public RawDetectionBuffer(int capacity) {
+            pool = new RawDetection[capacity];
+            arraysByCount = new RawDetection[capacity + 1][];
+            for (int i = 0; i < capacity; i++) {
+                pool[i] = new RawDetection(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            for (int count = 0; count <= capacity; count++) {
+                arraysByCount[count] = Arrays.copyOf(pool, count);
+            }
+            current = arraysByCount[0];
+        }
+
+        /** Returns the decoded detections, sized to the number found. */
+        public RawDetection[] get() {
+            return current;
+        }
+
+        private RawDetection[] resize(int count) {
+            current = arraysByCount[Math.min(count, pool.length)];
+            return current;
+        }
+    }
     
     /**
      * Represents a 3D Pose Estimate.
@@ -731,6 +819,11 @@ public class LimelightHelpers {
         public RawFiducial[] rawFiducials; 
         public boolean isMegaTag2;
 
+        // Set when this estimate is used as a reusable decode target
+        private RawFiducialBuffer fiducialBuffer;
+        private DoubleArrayEntry sourceEntry;
+        private long sourceTimestamp = Long.MIN_VALUE;
+
         /**
          * Instantiates a PoseEstimate object with default values
          */
@@ -761,6 +854,20 @@ public class LimelightHelpers {
             this.isMegaTag2 = isMegaTag2;
         }
 
+        /**
+         * Gives this estimate a pooled fiducial buffer, so decoding into it again with
+         * decodePoseEstimate() reuses the same RawFiducial objects. The pooled getters do this
+         * automatically.
+         *
+         * @return this estimate
+         */
+        public PoseEstimate poolFiducials() {
+            if (fiducialBuffer == null) {
+                fiducialBuffer = new RawFiducialBuffer(kMaxPooledFiducials);
+            }
+            return this;
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (this == obj) return true;
@@ -813,7 +920,9 @@ public class LimelightHelpers {
     }
 
 
-    private static ObjectMapper mapper;
+    // Created up front so the first getLatestResults() call does not pay for building the mapper
+    private static final ObjectMapper mapper =
+        new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     /**
      * Print JSON Parse time to the console in milliseconds
@@ -912,47 +1021,94 @@ public class LimelightHelpers {
         DoubleArrayEntry poseEntry = LimelightHelpers.getLimelightDoubleArrayEntry(limelightName, entryName);
         
         TimestampedDoubleArray tsValue = poseEntry.getAtomic();
-        double[] poseArray = tsValue.value;
-        long timestamp = tsValue.timestamp;
-        
+        PoseEstimate estimate = new PoseEstimate();
+        decodePoseEstimate(tsValue.value, tsValue.timestamp, isMegaTag2, estimate);
+        return estimate;
+    }
+
+    /**
+     * Decodes a pose estimate into a reusable PoseEstimate. The NetworkTables value is only copied
+     * and decoded when it has changed since the last decode into {@code out}, so polling faster
+     * than the Limelight publishes does not allocate.
+     *
+     * @return true if {@code out} now holds a newer estimate
+     */
+    private static boolean getBotPoseEstimate(String limelightName, String entryName, boolean isMegaTag2, PoseEstimate out) {
+        DoubleArrayEntry poseEntry = LimelightHelpers.getLimelightDoubleArrayEntry(limelightName, entryName);
+        if (out.sourceEntry == poseEntry && out.sourceTimestamp == poseEntry.getLastChange()) {
+            return false;
+        }
+
+        out.poolFiducials();
+        TimestampedDoubleArray tsValue = poseEntry.getAtomic();
+        decodePoseEstimate(tsValue.value, tsValue.timestamp, isMegaTag2, out);
+        out.sourceEntry = poseEntry;
+        out.sourceTimestamp = tsValue.timestamp;
+        return true;
+    }
+
+    /**
+     * Decodes a raw botpose array into {@code out}. If {@code out} is a reusable estimate its
+     * fiducials are written into its pooled buffer, otherwise a new array is allocated.
+     *
+     * @param poseArray The botpose array as published by the Limelight
+     * @param timestamp The NetworkTables timestamp of the array, in microseconds
+     * @param isMegaTag2 Whether the array is a MegaTag2 estimate
+     * @param out The estimate to fill in
+     */
+    public static void decodePoseEstimate(double[] poseArray, long timestamp, boolean isMegaTag2, PoseEstimate out) {
+        out.isMegaTag2 = isMegaTag2;
         if (poseArray.length == 0) {
             // Handle the case where no data is available
-            return new PoseEstimate();
+            out.pose = EMPTY_POSE;
+            out.timestampSeconds = 0;
+            out.latency = 0;
+            out.tagCount = 0;
+            out.tagSpan = 0;
+            out.avgTagDist = 0;
+            out.avgTagArea = 0;
+            out.rawFiducials = out.fiducialBuffer != null ? out.fiducialBuffer.resize(0) : new RawFiducial[0];
+            return;
         }
     
-        var pose = toPose2D(poseArray);
+        out.pose = toPose2D(poseArray);
         double latency = extractArrayEntry(poseArray, 6);
         int tagCount = (int)extractArrayEntry(poseArray, 7);
-        double tagSpan = extractArrayEntry(poseArray, 8);
-        double tagDist = extractArrayEntry(poseArray, 9);
-        double tagArea = extractArrayEntry(poseArray, 10);
+        out.latency = latency;
+        out.tagCount = tagCount;
+        out.tagSpan = extractArrayEntry(poseArray, 8);
+        out.avgTagDist = extractArrayEntry(poseArray, 9);
+        out.avgTagArea = extractArrayEntry(poseArray, 10);
         
         // Convert server timestamp from microseconds to seconds and adjust for latency
-        double adjustedTimestamp = (timestamp / 1000000.0) - (latency / 1000.0);
+        out.timestampSeconds = (timestamp / 1000000.0) - (latency / 1000.0);
     
         int valsPerFiducial = 7;
         int expectedTotalVals = 11 + valsPerFiducial * tagCount;
-        RawFiducial[] rawFiducials;
-
-        if (poseArray.length != expectedTotalVals) {
-            // Array size mismatch - return empty array instead of null-filled array
-            rawFiducials = new RawFiducial[0];
-        } else {
-            rawFiducials = new RawFiducial[tagCount];
-            for(int i = 0; i < tagCount; i++) {
-                int baseIndex = 11 + (i * valsPerFiducial);
-                int id = (int)poseArray[baseIndex];
-                double txnc = poseArray[baseIndex + 1];
-                double tync = poseArray[baseIndex + 2];
-                double ta = poseArray[baseIndex + 3];
-                double distToCamera = poseArray[baseIndex + 4];
-                double distToRobot = poseArray[baseIndex + 5];
-                double ambiguity = poseArray[baseIndex + 6];
-                rawFiducials[i] = new RawFiducial(id, txnc, tync, ta, distToCamera, distToRobot, ambiguity);
+        int fiducialCount = poseArray.length == expectedTotalVals ? tagCount : 0;
+        // Array size mismatch - return empty array instead of null-filled array
+        RawFiducial[] rawFiducials = out.fiducialBuffer != null
+            ? out.fiducialBuffer.resize(fiducialCount)
+            : new RawFiducial[fiducialCount];
+
+        for(int i = 0; i < rawFiducials.length; i++) {
+            int baseIndex = 11 + (i * valsPerFiducial);
+            if (rawFiducials[i] == null) {
+                rawFiducials[i] = new RawFiducial(0, 0, 0, 0, 0, 0, 0);
             }
+            decodeRawFiducial(poseArray, baseIndex, rawFiducials[i]);
         }
-    
-        return new PoseEstimate(pose, adjustedTimestamp, latency, tagCount, tagSpan, tagDist, tagArea, rawFiducials, isMegaTag2);
+        out.rawFiducials = rawFiducials;
+    }
+
+    private static void decodeRawFiducial(double[] inData, int baseIndex, RawFiducial out) {
+        out.id = (int) extractArrayEntry(inData, baseIndex);
+        out.txnc = extractArrayEntry(inData, baseIndex + 1);
+        out.tync = extractArrayEntry(inData, baseIndex + 2);
+        out.ta = extractArrayEntry(inData, baseIndex + 3);
+        out.distToCamera = extractArrayEntry(inData, baseIndex + 4);
+        out.distToRobot = extractArrayEntry(inData, baseIndex + 5);
+        out.ambiguity = extractArrayEntry(inData, baseIndex + 6);
     }
 
     /**
@@ -962,8 +1118,7 @@ public class LimelightHelpers {
      * @return Array of RawFiducial objects containing detection details
      */
     public static RawFiducial[] getRawFiducials(String limelightName) {
-        var entry = LimelightHelpers.getLimelightNTTableEntry(limelightName, "rawfiducials");
-        var rawFiducialArray = entry.getDoubleArray(new double[0]);
+        var rawFiducialArray = getLimelightNTDoubleArray(limelightName, "rawfiducials");
         int valsPerEntry = 7;
         if (rawFiducialArray.length % valsPerEntry != 0) {
             return new RawFiducial[0];
@@ -973,21 +1128,45 @@ public class LimelightHelpers {
         RawFiducial[] rawFiducials = new RawFiducial[numFiducials];
     
         for (int i = 0; i < numFiducials; i++) {
-            int baseIndex = i * valsPerEntry;
-            int id = (int) extractArrayEntry(rawFiducialArray, baseIndex);
-            double txnc = extractArrayEntry(rawFiducialArray, baseIndex + 1);
-            double tync = extractArrayEntry(rawFiducialArray, baseIndex + 2);
-            double ta = extractArrayEntry(rawFiducialArray, baseIndex + 3);
-            double distToCamera = extractArrayEntry(rawFiducialArray, baseIndex + 4);
-            double distToRobot = extractArrayEntry(rawFiducialArray, baseIndex + 5);
-            double ambiguity = extractArrayEntry(rawFiducialArray, baseIndex + 6);
-            
-            rawFiducials[i] = new RawFiducial(id, txnc, tync, ta, distToCamera, distToRobot, ambiguity);
+            rawFiducials[i] = new RawFiducial(0, 0, 0, 0, 0, 0, 0);
+            decodeRawFiducial(rawFiducialArray, i * valsPerEntry, rawFiducials[i]);
         }
     
         return rawFiducials;
     }
 
+    /**
+     * Gets the latest raw fiducial/AprilTag detection results, decoded into a reusable buffer.
+     * Nothing is copied or decoded unless the Limelight has published new results since the last
+     * call with this buffer.
+     * 
+     * @param limelightName Name/identifier of the Limelight
+     * @param buffer Reusable buffer to decode into
+     * @return The buffer's fiducial array, valid until the next call with the same buffer
+     */
+    public static RawFiducial[] getRawFiducials(String limelightName, RawFiducialBuffer buffer) {
+        DoubleArrayEntry entry = getLimelightDoubleArrayEntry(limelightName, "rawfiducials");
+        if (buffer.sourceEntry == entry && buffer.sourceTimestamp == entry.getLastChange()) {
+            return buffer.get();
+        }
+
+        TimestampedDoubleArray tsValue = entry.getAtomic();
+        double[] rawFiducialArray = tsValue.value;
+        buffer.sourceEntry = entry;
+        buffer.sourceTimestamp = tsValue.timestamp;
+
+        int valsPerEntry = 7;
+        if (rawFiducialArray.length % valsPerEntry != 0) {
+            return buffer.resize(0);
+        }
+
+        RawFiducial[] rawFiducials = buffer.resize(rawFiducialArray.length / valsPerEntry);
+        for (int i = 0; i < rawFiducials.length; i++) {
+            decodeRawFiducial(rawFiducialArray, i * valsPerEntry, rawFiducials[i]);
+        }
+        return rawFiducials;
+    }
+
     /**
      * Gets the latest raw neural detector results from NetworkTables
      *
@@ -995,8 +1174,7 @@ public class LimelightHelpers {
      * @return Array of RawDetection objects containing detection details
      */
     public static RawDetection[] getRawDetections(String limelightName) {
-        var entry = LimelightHelpers.getLimelightNTTableEntry(limelightName, "rawdetections");
-        var rawDetectionArray = entry.getDoubleArray(new double[0]);
+        var rawDetectionArray = getLimelightNTDoubleArray(limelightName, "rawdetections");
         int valsPerEntry = 12;
         if (rawDetectionArray.length % valsPerEntry != 0) {
             return new RawDetection[0];
@@ -1006,26 +1184,60 @@ public class LimelightHelpers {
         RawDetection[] rawDetections = new RawDetection[numDetections];
     
         for (int i = 0; i < numDetections; i++) {
-            int baseIndex = i * valsPerEntry; // Starting index for this detection's data
-            int classId = (int) extractArrayEntry(rawDetectionArray, baseIndex);
-            double txnc = extractArrayEntry(rawDetectionArray, baseIndex + 1);
-            double tync = extractArrayEntry(rawDetectionArray, baseIndex + 2);
-            double ta = extractArrayEntry(rawDetectionArray, baseIndex + 3);
-            double corner0_X = extractArrayEntry(rawDetectionArray, baseIndex + 4);
-            double corner0_Y = extractArrayEntry(rawDetectionArray, baseIndex + 5);
-            double corner1_X = extractArrayEntry(rawDetectionArray, baseIndex + 6);
-            double corner1_Y = extractArrayEntry(rawDetectionArray, baseIndex + 7);
-            double corner2_X = extractArrayEntry(rawDetectionArray, baseIndex + 8);
-            double corner2_Y = extractArrayEntry(rawDetectionArray, baseIndex + 9);
-            double corner3_X = extractArrayEntry(rawDetectionArray, baseIndex + 10);
-            double corner3_Y = extractArrayEntry(rawDetectionArray, baseIndex + 11);
-            
-            rawDetections[i] = new RawDetection(classId, txnc, tync, ta, corner0_X, corner0_Y, corner1_X, corner1_Y, corner2_X, corner2_Y, corner3_X, corner3_Y);
+            rawDetections[i] = new RawDetection(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+            decodeRawDetection(rawDetectionArray, i * valsPerEntry, rawDetections[i]);
         }
     
         return rawDetections;
     }
 
+    /**
+     * Gets the latest raw neural detector results, decoded into a reusable buffer. Nothing is
+     * copied or decoded unless the Limelight has published new results since the last call with
+     * this buffer.
+     *
+     * @param limelightName Name/identifier of the Limelight
+     * @param buffer Reusable buffer to decode into
+     * @return The buffer's detection array, valid until the next call with the same buffer
+     */
+    public static RawDetection[] getRawDetections(String limelightName, RawDetectionBuffer buffer) {
+        DoubleArrayEntry entry = getLimelightDoubleArrayEntry(limelightName, "rawdetections");
+        if (buffer.sourceEntry == entry && buffer.sourceTimestamp == entry.getLastChange()) {
+            return buffer.get();
+        }
+
+        TimestampedDoubleArray tsValue = entry.getAtomic();
+        double[] rawDetectionArray = tsValue.value;
+        buffer.sourceEntry = entry;
+        buffer.sourceTimestamp = tsValue.timestamp;
+
+        int valsPerEntry = 12;
+        if (rawDetectionArray.length % valsPerEntry != 0) {
+            return buffer.resize(0);
+        }
+
+        RawDetection[] rawDetections = buffer.resize(rawDetectionArray.length / valsPerEntry);
+        for (int i = 0; i < rawDetections.length; i++) {
+            decodeRawDetection(rawDetectionArray, i * valsPerEntry, rawDetections[i]);
+        }
+        return rawDetections;
+    }
+
+    private static void decodeRawDetection(double[] inData, int baseIndex, RawDetection out) {
+        out.classId = (int) extractArrayEntry(inData, baseIndex);
+        out.txnc = extractArrayEntry(inData, baseIndex + 1);
+        out.tync = extractArrayEntry(inData, baseIndex + 2);
+        out.ta = extractArrayEntry(inData, baseIndex + 3);
+        out.corner0_X = extractArrayEntry(inData, baseIndex + 4);
+        out.corner0_Y = extractArrayEntry(inData, baseIndex + 5);
+        out.corner1_X = extractArrayEntry(inData, baseIndex + 6);
+        out.corner1_Y = extractArrayEntry(inData, baseIndex + 7);
+        out.corner2_X = extractArrayEntry(inData, baseIndex + 8);
+        out.corner2_Y = extractArrayEntry(inData, baseIndex + 9);
+        out.corner3_X = extractArrayEntry(inData, baseIndex + 10);
+        out.corner3_Y = extractArrayEntry(inData, baseIndex + 11);
+    }
+
     /**
      * Gets the raw target contours from NetworkTables.
      * Returns ungrouped contours in normalized screen space (-1 to 1).
@@ -1034,8 +1246,7 @@ public class LimelightHelpers {
      * @return Array of RawTarget objects containing up to 3 contours
      */
     public static RawTarget[] getRawTargets(String limelightName) {
-        var entry = LimelightHelpers.getLimelightNTTableEntry(limelightName, "rawtargets");
-        var rawTargetArray = entry.getDoubleArray(new double[0]);
+        var rawTargetArray = getLimelightNTDoubleArray(limelightName, "rawtargets");
         int valsPerEntry = 3;
         if (rawTargetArray.length % valsPerEntry != 0) {
             return new RawTarget[0];
@@ -1127,36 +1338,66 @@ public class LimelightHelpers {
     }
 
     public static DoubleArrayEntry getLimelightDoubleArrayEntry(String tableName, String entryName) {
-        String key = tableName + "/" + entryName;
-        return doubleArrayEntries.computeIfAbsent(key, k -> {
-            NetworkTable table = getLimelightNTTable(tableName);
-            return table.getDoubleArrayTopic(entryName).getEntry(new double[0]);
-        });
+        return getCachedEntry(doubleArrayEntries, tableName, entryName,
+            (table, name) -> table.getDoubleArrayTopic(name).getEntry(EMPTY_DOUBLE_ARRAY));
+    }
+
+    public static DoubleEntry getLimelightDoubleEntry(String tableName, String entryName) {
+        return getCachedEntry(doubleEntries, tableName, entryName,
+            (table, name) -> table.getDoubleTopic(name).getEntry(0.0));
+    }
+
+    public static StringEntry getLimelightStringEntry(String tableName, String entryName) {
+        return getCachedEntry(stringEntries, tableName, entryName,
+            (table, name) -> table.getStringTopic(name).getEntry(""));
+    }
+
+    public static StringArrayEntry getLimelightStringArrayEntry(String tableName, String entryName) {
+        return getCachedEntry(stringArrayEntries, tableName, entryName,
+            (table, name) -> table.getStringArrayTopic(name).getEntry(EMPTY_STRING_ARRAY));
+    }
+
+    /**
+     * Looks up a cached typed entry, creating it on first use. The fast path is two map lookups
+     * with the caller's strings, so it does not allocate.
+     */
+    private static <T> T getCachedEntry(Map<String, Map<String, T>> cache, String tableName, String entryName,
+        BiFunction<NetworkTable, String, T> factory) {
+        String sanitizedName = sanitizeName(tableName);
+        Map<String, T> tableEntries = cache.get(sanitizedName);
+        if (tableEntries == null) {
+            tableEntries = cache.computeIfAbsent(sanitizedName, k -> new ConcurrentHashMap<>());
+        }
+        T entry = tableEntries.get(entryName);
+        if (entry == null) {
+            entry = tableEntries.computeIfAbsent(entryName, name -> factory.apply(getLimelightNTTable(sanitizedName), name));
+        }
+        return entry;
     }
     
     public static double getLimelightNTDouble(String tableName, String entryName) {
-        return getLimelightNTTableEntry(tableName, entryName).getDouble(0.0);
+        return getLimelightDoubleEntry(tableName, entryName).get();
     }
 
     public static void setLimelightNTDouble(String tableName, String entryName, double val) {
-        getLimelightNTTableEntry(tableName, entryName).setDouble(val);
+        getLimelightDoubleEntry(tableName, entryName).set(val);
     }
 
     public static void setLimelightNTDoubleArray(String tableName, String entryName, double[] val) {
-        getLimelightNTTableEntry(tableName, entryName).setDoubleArray(val);
+        getLimelightDoubleArrayEntry(tableName, entryName).set(val);
     }
 
     public static double[] getLimelightNTDoubleArray(String tableName, String entryName) {
-        return getLimelightNTTableEntry(tableName, entryName).getDoubleArray(new double[0]);
+        return getLimelightDoubleArrayEntry(tableName, entryName).get();
     }
 
 
     public static String getLimelightNTString(String tableName, String entryName) {
-        return getLimelightNTTableEntry(tableName, entryName).getString("");
+        return getLimelightStringEntry(tableName, entryName).get();
     }
 
     public static String[] getLimelightNTStringArray(String tableName, String entryName) {
-        return getLimelightNTTableEntry(tableName, entryName).getStringArray(new String[0]);
+        return getLimelightStringArrayEntry(tableName, entryName).get();
     }
 
 
@@ -1523,6 +1764,18 @@ public class LimelightHelpers {
         return getBotPoseEstimate(limelightName, "botpose_wpiblue", false);
     }
 
+    /**
+     * Decodes the MegaTag1 blue alliance pose estimate into a reusable PoseEstimate. Only decodes
+     * when the Limelight has published a new estimate since the last call with {@code out}.
+     * 
+     * @param limelightName
+     * @param out Reusable estimate to decode into
+     * @return true if {@code out} now holds a newer estimate
+     */
+    public static boolean getBotPoseEstimate_wpiBlue(String limelightName, PoseEstimate out) {
+        return getBotPoseEstimate(limelightName, "botpose_wpiblue", false, out);
+    }
+
     /**
      * Gets the MegaTag2 Pose2d and timestamp for use with WPILib pose estimator (addVisionMeasurement) in the WPILib Blue alliance coordinate system.
      * Make sure you are calling setRobotOrientation() before calling this method.
@@ -1534,6 +1787,18 @@ public class LimelightHelpers {
         return getBotPoseEstimate(limelightName, "botpose_orb_wpiblue", true);
     }
 
+    /**
+     * Decodes the MegaTag2 blue alliance pose estimate into a reusable PoseEstimate. Only decodes
+     * when the Limelight has published a new estimate since the last call with {@code out}.
+     * 
+     * @param limelightName
+     * @param out Reusable estimate to decode into
+     * @return true if {@code out} now holds a newer estimate
+     */
+    public static boolean getBotPoseEstimate_wpiBlue_MegaTag2(String limelightName, PoseEstimate out) {
+        return getBotPoseEstimate(limelightName, "botpose_orb_wpiblue", true, out);
+    }
+
     /**
      * Gets the Pose2d for easy use with Odometry vision pose estimator
      * (addVisionMeasurement)
@@ -1891,15 +2156,20 @@ public class LimelightHelpers {
      * @return LimelightResults object containing all current target data
      */
     public static LimelightResults getLatestResults(String limelightName) {
+        return parseResults(getJSONDump(limelightName));
+    }
+
+    /**
+     * Parses a Limelight JSON results dump into a LimelightResults object.
+     * @param jsonString JSON results, as published on the Limelight's json topic
+     * @return LimelightResults object containing all target data in the dump
+     */
+    public static LimelightResults parseResults(String jsonString) {
 
         long start = System.nanoTime();
         LimelightHelpers.LimelightResults results = new LimelightHelpers.LimelightResults();
-        if (mapper == null) {
-            mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        }
 
         try {
-            String jsonString = getJSONDump(limelightName);
             if (jsonString == null || jsonString.isEmpty() || jsonString.isBlank()) {
                 results.error = "lljson error: empty json";
             } else {
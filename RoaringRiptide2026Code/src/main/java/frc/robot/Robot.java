@@ -7,13 +7,21 @@ package frc.robot;
 import java.util.jar.Attributes.Name;
 import java.util.spi.LocaleNameProvider;
 
-import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.robot.LimelightHelpers;
+import frc.robot.util.CanBusBudget;
+import frc.robot.util.DataLogger;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.StartupTimeline;
+import frc.robot.util.Telemetry;
+import frc.robot.util.ThreadPriorities;
+import frc.robot.util.Telemetry.Tier;
 import edu.wpi.first.cameraserver.CameraServer;
 
 /**
@@ -22,20 +30,45 @@ import edu.wpi.first.cameraserver.CameraServer;
  * this project, you must also update the Main.java file in the project.
  */
 public class Robot extends TimedRobot {
+  private static final int kSchedulerStage = LoopProfiler.registerStage("CommandScheduler.run");
+  private static final int kVisionStage = LoopProfiler.registerStage("Vision fusion");
+  private static final int kTelemetryStage = LoopProfiler.registerStage("Telemetry");
+
   private Command m_autonomousCommand;
 
   private final RobotContainer m_robotContainer;
 
+  // The cameras are started after the first loop, so they do not hold up "robot code ready"
+  private boolean m_camerasStarted = false;
+  // Reported once, to compare against a run with the warmup turned off
+  private boolean m_firstEnabledLoopReported = false;
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
    */
   public Robot() {
+    StartupTimeline.begin();
+    // Start logging before anything registers a log channel
+    DataLogger.start();
+    StartupTimeline.mark("DataLogger");
+
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+    // Every CAN device has been created by now. The SPARKs were configured in parallel while
+    // the rest of the container was built.
+    SparkConfigurator.awaitAll();
+    StartupTimeline.mark("SPARK configuration");
+    CanBusBudget.publish();
 
     SmartDashboard.putData(CommandScheduler.getInstance());
+    LoopProfiler.attachToScheduler(CommandScheduler.getInstance());
+
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Bat Voltage", RobotController::getBatteryVoltage);
+    // The main loop itself only goes real-time while enabled, see ThreadPriorities
+    ThreadPriorities.raiseHalNotifier();
+    StartupTimeline.mark("Robot constructor");
   }
 
   /**
@@ -47,31 +80,60 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    long loopStartNanos = System.nanoTime();
+    LoopProfiler.beginCycle();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    LoopProfiler.start(kSchedulerStage);
     CommandScheduler.getInstance().run();
+    LoopProfiler.stop(kSchedulerStage);
 
-    double omegaRps = Units.degreesToRotations(m_robotContainer.m_robotDrive.getTurnRate());
-    var llMeasurement = LimelightHelpers.getBotPoseEstimate_wpiBlue("limelight-april");
+    // Fuse this loop's Limelight estimate into the drive pose estimate at its capture time
+    LoopProfiler.start(kVisionStage);
+    var llMeasurement = m_robotContainer.m_vision.getFrame().getPoseEstimate();
+    m_robotContainer.m_robotDrive.addVisionMeasurement(llMeasurement);
+    LoopProfiler.stop(kVisionStage);
+    
+    LoopProfiler.start(kTelemetryStage);
+    Telemetry.update();
+    LoopProfiler.stop(kTelemetryStage);
+
+    LoopProfiler.endCycle();
+
+    if (!m_firstEnabledLoopReported && DriverStation.isEnabled()) {
+      m_firstEnabledLoopReported = true;
+      System.out.printf(
+          "---> First enabled loop took %.2f ms (%s)%n",
+          (System.nanoTime() - loopStartNanos) / 1e6,
+          m_robotContainer.isWarmedUp() ? "after warmup" : "warmup not finished");
+    }
 
-    if (llMeasurement != null && llMeasurement.tagCount > 0 && Math.abs(omegaRps) < 2.0) {
-        m_robotContainer.m_robotDrive.resetOdometry(llMeasurement.pose);
+    if (!m_camerasStarted) {
+      m_camerasStarted = true;
+      StartupTimeline.mark("First loop");
+      StartupTimeline.finish();
+      startCameras();
     }
-    
-    SmartDashboard.putNumber("Bat Voltage", RobotController.getBatteryVoltage());
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
-  public void disabledInit() {}
+  public void disabledInit() {
+    ThreadPriorities.setMainLoopRealTime(false);
+  }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    m_robotContainer.prebuildAuto();
+    m_robotContainer.warmup();
+  }
 
   @Override
   public void autonomousInit() {
+    ThreadPriorities.setMainLoopRealTime(true);
     try {
       m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
@@ -95,6 +157,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
+    ThreadPriorities.setMainLoopRealTime(true);
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
@@ -110,6 +173,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void testInit() {
+    ThreadPriorities.setMainLoopRealTime(true);
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
   }
@@ -128,11 +192,17 @@ public class Robot extends TimedRobot {
    * <p>This collects each subsystem's physics model's current draw to update the battery simulation
    */
   @Override
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {
+    m_robotContainer.simulationPeriodic();
+  }
 
-  @Override
-  public void robotInit() {
-    CameraServer.startAutomaticCapture("cam-1",0);
-    CameraServer.startAutomaticCapture("cam-2",1);
+  /** Starts the USB cameras on their own thread, so opening them does not stall a loop. */
+  private void startCameras() {
+    Thread cameraStartup = new Thread(() -> {
+      CameraServer.startAutomaticCapture("cam-1",0);
+      CameraServer.startAutomaticCapture("cam-2",1);
+    }, "CameraStartup");
+    cameraStartup.setDaemon(true);
+    cameraStartup.start();
   }
 }
@@ -4,14 +4,20 @@
 
 package frc.robot;
 
-import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.auto.NamedCommands;
 import com.pathplanner.lib.commands.PathPlannerAuto;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.RobotController;
-import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
@@ -20,11 +26,33 @@ import edu.wpi.first.wpilibj2.command.button.CommandGenericHID;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.commands.Autos;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.IntakeSubsystemConstants;
+import frc.robot.Constants.LauncherSubsystemConstants;
 import frc.robot.Constants.OIConstants;
+import frc.robot.Constants.PathPlannerConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.LimelightHelpers.LimelightTarget_Barcode;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.FlywheelIOSim;
+import frc.robot.subsystems.FlywheelIOSpark;
+import frc.robot.subsystems.GyroIOPigeon2;
+import frc.robot.subsystems.GyroIOSim;
 import frc.robot.subsystems.IntakeSubsystem;
 import frc.robot.subsystems.LauncherSubsystem;
+import frc.robot.subsystems.PieceCounter;
+import frc.robot.subsystems.PowerManager;
+import frc.robot.subsystems.ModuleIOSim;
+import frc.robot.subsystems.ModuleIOSpark;
+import frc.robot.subsystems.RollerIOSim;
+import frc.robot.subsystems.RollerIOSpark;
+import frc.robot.subsystems.VisionSubsystem;
+import frc.robot.sim.DrivetrainSim;
+import frc.robot.util.AutoPrebuilder;
+import frc.robot.util.SparkSignalPolicy;
+import frc.robot.util.StartupTimeline;
+import frc.robot.util.Telemetry;
+import frc.robot.util.Telemetry.Tier;
 import frc.robot.LimelightHelpers;
 
 /**
@@ -35,11 +63,24 @@ import frc.robot.LimelightHelpers;
  */
 public class RobotContainer {
   // The robot's subsystems and commands are defined here...
-  public final DriveSubsystem m_robotDrive = new DriveSubsystem();
-  private final IntakeSubsystem m_intake = new IntakeSubsystem();
-  private final LauncherSubsystem m_launcher = new LauncherSubsystem();
+  // Vision goes first so its periodic samples the Limelight before anyone reads the frame
+  public final VisionSubsystem m_vision = new VisionSubsystem();
+  public final DriveSubsystem m_robotDrive;
+  private final IntakeSubsystem m_intake;
+  private final LauncherSubsystem m_launcher;
+  // Created after the subsystems above so it budgets current from their latest readings
+  private final PowerManager m_powerManager;
+  // Counts the pieces held from motor current signatures, so launches can end when empty
+  private final PieceCounter m_pieceCounter;
+
+  // Runs the control code while disabled so it is compiled before the robot moves
+  private final DisabledWarmup m_warmup;
 
-  private final SendableChooser<Command> autoChooser;
+  // Physics models, only created in simulation
+  private DrivetrainSim m_drivetrainSim;
+  private final List<DoubleSupplier> m_simulatedCurrentDraws = new ArrayList<>();
+
+  private final AutoPrebuilder autoChooser;
 
   // The driver's controller
   private final CommandXboxController m_driverController =
@@ -50,19 +91,85 @@ public class RobotContainer {
 
   /** The container for the robot. Contains subsystems, OI devices, and commands. */
   public RobotContainer() {
+    // Talk to the real hardware on the robot, and to physics models in simulation
+    if (RobotBase.isReal()) {
+      m_robotDrive = new DriveSubsystem(
+          new GyroIOPigeon2(DriveConstants.kPigeonCanId, DriveConstants.kPigeonCanBus),
+          new ModuleIOSpark(DriveConstants.kFrontLeftDrivingCanId, DriveConstants.kFrontLeftTurningCanId),
+          new ModuleIOSpark(DriveConstants.kFrontRightDrivingCanId, DriveConstants.kFrontRightTurningCanId),
+          new ModuleIOSpark(DriveConstants.kRearLeftDrivingCanId, DriveConstants.kRearLeftTurningCanId),
+          new ModuleIOSpark(DriveConstants.kRearRightDrivingCanId, DriveConstants.kRearRightTurningCanId),
+          m_vision);
+      m_intake = new IntakeSubsystem(
+          new RollerIOSpark(
+              IntakeSubsystemConstants.kIntakeMotorCanId, Configs.IntakeSubsystem.intakeConfig,
+              SparkSignalPolicy.INTAKE),
+          new RollerIOSpark(
+              IntakeSubsystemConstants.kConveyorMotorCanId, Configs.IntakeSubsystem.conveyorConfig,
+              SparkSignalPolicy.ROLLER));
+      m_launcher = new LauncherSubsystem(
+          new FlywheelIOSpark(
+              LauncherSubsystemConstants.kFlywheelMotorCanId,
+              LauncherSubsystemConstants.kFlywheelFollowerMotorCanId),
+          new RollerIOSpark(
+              LauncherSubsystemConstants.kFeederMotorCanId, Configs.LauncherSubsystem.feederConfig,
+              SparkSignalPolicy.ROLLER),
+          m_vision,
+          m_robotDrive::getPose);
+    } else {
+      // Mass, inertia and wheel grip come from the PathPlanner settings.json
+      m_drivetrainSim = new DrivetrainSim(
+          PathPlannerConstants.kRobotConfig,
+          DriveConstants.kFrontLeftChassisAngularOffset,
+          DriveConstants.kFrontRightChassisAngularOffset,
+          DriveConstants.kBackLeftChassisAngularOffset,
+          DriveConstants.kBackRightChassisAngularOffset);
+      m_robotDrive = new DriveSubsystem(
+          new GyroIOSim(m_drivetrainSim),
+          new ModuleIOSim(m_drivetrainSim.getModule(0)),
+          new ModuleIOSim(m_drivetrainSim.getModule(1)),
+          new ModuleIOSim(m_drivetrainSim.getModule(2)),
+          new ModuleIOSim(m_drivetrainSim.getModule(3)),
+          m_vision);
+
+      RollerIOSim intakeSim = new RollerIOSim(SimConstants.kDtSeconds);
+      RollerIOSim conveyorSim = new RollerIOSim(SimConstants.kDtSeconds);
+      FlywheelIOSim flywheelSim = new FlywheelIOSim(SimConstants.kDtSeconds);
+      RollerIOSim feederSim = new RollerIOSim(SimConstants.kDtSeconds);
+      m_intake = new IntakeSubsystem(intakeSim, conveyorSim);
+      m_launcher = new LauncherSubsystem(flywheelSim, feederSim, m_vision, m_robotDrive::getPose);
+
+      m_simulatedCurrentDraws.add(m_drivetrainSim::getCurrentDrawAmps);
+      m_simulatedCurrentDraws.add(intakeSim::getCurrentDrawAmps);
+      m_simulatedCurrentDraws.add(conveyorSim::getCurrentDrawAmps);
+      m_simulatedCurrentDraws.add(flywheelSim::getCurrentDrawAmps);
+      m_simulatedCurrentDraws.add(feederSim::getCurrentDrawAmps);
+
+      // Where the simulated robot really is, next to where the odometry thinks it is
+      Telemetry.addStruct(Tier.CRITICAL, "Sim/Pose", Pose2d.struct, m_drivetrainSim::getPose);
+    }
+    m_powerManager = new PowerManager(m_robotDrive, m_launcher, m_intake);
+    m_pieceCounter = new PieceCounter(m_intake, m_launcher);
+    m_warmup = new DisabledWarmup(m_robotDrive, m_launcher, m_intake, m_vision);
+    StartupTimeline.mark("Subsystems");
+
     // Register Named Commands (auto)
   NamedCommands.registerCommand("intake", m_intake.runIntakeCommand()
   .withTimeout(5.0));
   NamedCommands.registerCommand("outtake", m_intake.runOuttakeCommand());
   NamedCommands.registerCommand("long launch", m_launcher.runLauncherCommand()
-  .alongWith(m_intake.runConveyorCommand())
+  .alongWith(m_intake.runConveyorCommand(m_launcher::isFeeding))
+  .until(m_pieceCounter::isEmpty)
   .withTimeout(13.0));
   NamedCommands.registerCommand("medium launch", m_launcher.runLauncherCommand()
-  .alongWith(m_intake.runConveyorCommand())
+  .alongWith(m_intake.runConveyorCommand(m_launcher::isFeeding))
+  .until(m_pieceCounter::isEmpty)
   .withTimeout(11));
   NamedCommands.registerCommand("quick launch", m_launcher.runLauncherCommand()
-  .alongWith(m_intake.runConveyorCommand())
+  .alongWith(m_intake.runConveyorCommand(m_launcher::isFeeding))
+  .until(m_pieceCounter::isEmpty)
   .withTimeout(7));
+    StartupTimeline.mark("Named commands");
 
     if (Constants.PathPlannerConstants.kRobotConfig == null) {
     SmartDashboard.putString("PathPlanner Config", "NULL");
@@ -71,17 +178,16 @@ public class RobotContainer {
   }
   
     configureBindings();  
-    // Build an auto chooser. Commands.none() is default option
-    try {
-    autoChooser = AutoBuilder.buildAutoChooser();
-    SmartDashboard.putString("AutoBuilder", "Auto Chooser built");
-  } catch (Throwable t) {
-    SmartDashboard.putString("AutoBuilder Crash", t.toString());
-    t.printStackTrace();
-    throw t;
-  }
+    // List the autos now and get the selected one ready while disabled, see prebuildAuto().
+    // "None" is the default
+    autoChooser = new AutoPrebuilder("Auto Chooser");
+    StartupTimeline.mark("Auto chooser");
 
     // Configure default commands
+    if (LauncherSubsystemConstants.PreSpin.kEnabled) {
+      // Keep the flywheel at speed near the hub so launches do not wait for the spin up
+      m_launcher.setDefaultCommand(m_launcher.preSpinCommand(m_pieceCounter::hasPieces));
+    }
     m_robotDrive.setDefaultCommand(
         // The left stick controls translation of the robot.
         // Turning is controlled by the X axis of the right stick.
@@ -107,9 +213,7 @@ public class RobotContainer {
 
     SmartDashboard.putData("Feeder", m_launcher.runFeederCommand().withName("Launcher - Feeding and Launching"));
     SmartDashboard.putData("Flywheel", m_launcher.runFlywheelCommand().withName("Launcher - Spinning up Flywheel"));
-
-    
-    SmartDashboard.putData("Auto Chooser", autoChooser);
+    StartupTimeline.mark("Default commands and dashboard");
   }
 
   /**
@@ -155,7 +259,7 @@ public class RobotContainer {
     // full launching mechanism (intake + conveyor + launcher) (old L2 button)
     m_buttonBoard.button(3)
     .toggleOnTrue(m_launcher.runLauncherCommand()
-    .alongWith(m_intake.runConveyorCommand()));
+    .alongWith(m_intake.runConveyorCommand(m_launcher::isFeeding)));
     
     // outtake + reverse conveyor to feed or for other purposes (old L3 button)
     m_buttonBoard.button(4).toggleOnTrue(m_intake.runOuttakeCommand());
@@ -167,6 +271,24 @@ public class RobotContainer {
     m_buttonBoard.button(9).onTrue(m_robotDrive.zeroHeadingCommand());
   }
 
+  /**
+   * Gets the selected auto ready for the current alliance, in the background. Call this once per
+   * loop while disabled.
+   */
+  public void prebuildAuto() {
+    autoChooser.update();
+  }
+
+  /** Runs a slice of the JIT warmup, with the motors untouched. Call once per disabled loop. */
+  public void warmup() {
+    m_warmup.run();
+  }
+
+  /** Returns whether the JIT warmup has finished, or is turned off. */
+  public boolean isWarmedUp() {
+    return m_warmup.isDone();
+  }
+
   /**
    * Use this to pass the autonomous command to the main {@link Robot} class.
    *
@@ -174,14 +296,34 @@ public class RobotContainer {
    */
   public Command getAutonomousCommand() {
   try {
-    SmartDashboard.putString("Auto Selected", autoChooser.getSelected().getName());
+    Command auto = autoChooser.getSelected();
+    SmartDashboard.putString("Auto Selected", auto.getName());
 
     // TEMP TEST: force the simplest known auto
-    return autoChooser.getSelected();
+    return auto;
   } catch (Throwable t) {
     DriverStation.reportError("Auto creation failed: " + t.getMessage(), t.getStackTrace());
     SmartDashboard.putString("Auto Crash", t.toString());
     return Commands.none();
   }
 }
-}
\ No newline at end of file
+
+  /**
+   * Steps the physics models one loop and sags the simulated battery under their combined load.
+   * Only call this in simulation.
+   */
+  public void simulationPeriodic() {
+    m_drivetrainSim.update(SimConstants.kDtSeconds);
+
+    double totalCurrentAmps = 0.0;
+    for (int i = 0; i < m_simulatedCurrentDraws.size(); i++) {
+      totalCurrentAmps += m_simulatedCurrentDraws.get(i).getAsDouble();
+    }
+    RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(totalCurrentAmps));
+  }
+
+  /** Returns the simulated drivetrain, or null on the real robot. */
+  public DrivetrainSim getDrivetrainSim() {
+    return m_drivetrainSim;
+  }
+}
@@ -0,0 +1,211 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.sim;
+
+import com.pathplanner.lib.config.RobotConfig;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Rigid body simulation of the swerve drivetrain on carpet.
+ *
+ * <p>Mass, moment of inertia, wheel coefficient of friction, drive current limit and module
+ * locations come from the PathPlanner settings.json. Each step, every module's motors are stepped,
+ * then each wheel is coupled to the carpet with an impulse that tries to stop it slipping. That
+ * impulse is limited to the friction circle (COF times the module's share of the robot's weight),
+ * so pushing harder than the carpet allows makes the wheels spin or skid and the odometry drift
+ * away from {@link #getPose()}, like on the real robot.
+ *
+ * <p>Time only moves when {@link #update(double)} is called, always in fixed substeps, so the same
+ * inputs always give the same result no matter how fast the simulation is run.
+ */
+public class DrivetrainSim {
+  private static final double kGravity = 9.81;
+
+  private final SwerveModuleSim[] m_modules;
+  private final double[] m_moduleX;
+  private final double[] m_moduleY;
+  private final double m_massKg;
+  private final double m_moiKgMetersSquared;
+  private final double m_maxImpulsePerSecond;
+
+  // Ground truth, in the field frame
+  private double m_x = 0.0;
+  private double m_y = 0.0;
+  private double m_headingRadians = 0.0;
+  private double m_vx = 0.0;
+  private double m_vy = 0.0;
+  private double m_omega = 0.0;
+
+  // Read by the odometry thread
+  private volatile double m_gyroYawRadians = 0.0;
+  private volatile double m_gyroYawRateRadPerSec = 0.0;
+
+  /**
+   * Creates a drivetrain simulation sitting still at the origin.
+   *
+   * @param config The PathPlanner robot config, loaded from settings.json.
+   * @param chassisAngularOffsets Each module's chassis angular offset, in the same order as the
+   *     config's module locations.
+   */
+  public DrivetrainSim(RobotConfig config, double... chassisAngularOffsets) {
+    int moduleCount = config.moduleLocations.length;
+    if (chassisAngularOffsets.length != moduleCount) {
+      throw new IllegalArgumentException(
+          "Expected " + moduleCount + " chassis angular offsets, got " + chassisAngularOffsets.length);
+    }
+
+    m_modules = new SwerveModuleSim[moduleCount];
+    m_moduleX = new double[moduleCount];
+    m_moduleY = new double[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      Translation2d location = config.moduleLocations[i];
+      m_moduleX[i] = location.getX();
+      m_moduleY[i] = location.getY();
+      m_modules[i] = new SwerveModuleSim(chassisAngularOffsets[i], config.moduleConfig.driveCurrentLimit);
+    }
+
+    m_massKg = config.massKG;
+    m_moiKgMetersSquared = config.MOI;
+    // Every wheel carries an equal share of the weight
+    m_maxImpulsePerSecond = config.moduleConfig.wheelCOF * m_massKg * kGravity / moduleCount;
+  }
+
+  /** Returns a module, in the same order as the config's module locations. */
+  public SwerveModuleSim getModule(int index) {
+    return m_modules[index];
+  }
+
+  /**
+   * Moves the simulation forward. The time is split into fixed substeps of
+   * SimConstants.kDrivetrainSubstepSeconds.
+   *
+   * @param dtSeconds How much simulated time to advance.
+   */
+  public void update(double dtSeconds) {
+    int substeps = Math.max(1, (int) Math.ceil(dtSeconds / SimConstants.kDrivetrainSubstepSeconds - 1e-9));
+    double h = dtSeconds / substeps;
+    double batteryVolts = RobotController.getBatteryVoltage();
+
+    if (DriverStation.isDisabled()) {
+      for (SwerveModuleSim module : m_modules) {
+        module.stop();
+      }
+    }
+
+    for (int step = 0; step < substeps; step++) {
+      substep(h, batteryVolts);
+    }
+
+    m_gyroYawRadians = m_headingRadians;
+    m_gyroYawRateRadPerSec = m_omega;
+  }
+
+  /** Returns the simulated robot's true pose. */
+  public Pose2d getPose() {
+    return new Pose2d(m_x, m_y, new Rotation2d(m_headingRadians));
+  }
+
+  /** Teleports the simulated robot and stops it. The drive encoders and the gyro keep counting. */
+  public void resetPose(Pose2d pose) {
+    m_x = pose.getX();
+    m_y = pose.getY();
+    m_headingRadians = pose.getRotation().getRadians();
+    m_vx = 0.0;
+    m_vy = 0.0;
+    m_omega = 0.0;
+  }
+
+  /**
+   * Returns the heading a gyro mounted on the simulated robot would read, counterclockwise
+   * positive and not wrapped. Safe to call from the odometry thread.
+   */
+  public double getGyroYawRadians() {
+    return m_gyroYawRadians;
+  }
+
+  /** Returns the simulated robot's rotation rate, counterclockwise positive. */
+  public double getGyroYawRateRadPerSec() {
+    return m_gyroYawRateRadPerSec;
+  }
+
+  /** Returns the total current drawn by the drive and turning motors. */
+  public double getCurrentDrawAmps() {
+    double total = 0.0;
+    for (SwerveModuleSim module : m_modules) {
+      total += module.getDriveCurrentAmps() + module.getTurnCurrentAmps();
+    }
+    return total;
+  }
+
+  private void substep(double h, double batteryVolts) {
+    // Work in the robot frame for the contacts
+    double cos = Math.cos(m_headingRadians);
+    double sin = Math.sin(m_headingRadians);
+    double vx = m_vx * cos + m_vy * sin;
+    double vy = -m_vx * sin + m_vy * cos;
+    double omega = m_omega;
+
+    double maxImpulse = m_maxImpulsePerSecond * h;
+    for (int i = 0; i < m_modules.length; i++) {
+      SwerveModuleSim module = m_modules[i];
+      module.stepMotors(batteryVolts, h);
+
+      double x = m_moduleX[i];
+      double y = m_moduleY[i];
+      double wheelAngle = module.getWheelAngleRadians();
+      // Rolling direction and sideways direction of the wheel
+      double nx = Math.cos(wheelAngle);
+      double ny = Math.sin(wheelAngle);
+      double tx = -ny;
+      double ty = nx;
+
+      // Velocity of the carpet under the contact patch, relative to the robot
+      double contactVx = vx - omega * y;
+      double contactVy = vy + omega * x;
+      double rollingSpeed = contactVx * nx + contactVy * ny;
+      double sidewaysSpeed = contactVx * tx + contactVy * ty;
+
+      // Impulses that would stop the wheel slipping and skidding, using the effective mass of the
+      // chassis (and the wheel, along the rolling direction) at the contact patch
+      double radius = module.getWheelRadiusMeters();
+      double leverN = x * ny - y * nx;
+      double leverT = x * ty - y * tx;
+      double inverseMassN = 1.0 / m_massKg + leverN * leverN / m_moiKgMetersSquared
+          + radius * radius / SimConstants.kDriveWheelMoiKgMetersSquared;
+      double inverseMassT = 1.0 / m_massKg + leverT * leverT / m_moiKgMetersSquared;
+      double slip = module.getWheelVelocityRadPerSec() * radius - rollingSpeed;
+      double impulseN = slip / inverseMassN;
+      double impulseT = -sidewaysSpeed / inverseMassT;
+
+      // The carpet can only push so hard
+      double impulse = Math.hypot(impulseN, impulseT);
+      if (impulse > maxImpulse) {
+        double scale = maxImpulse / impulse;
+        impulseN *= scale;
+        impulseT *= scale;
+      }
+
+      vx += (impulseN * nx + impulseT * tx) / m_massKg;
+      vy += (impulseN * ny + impulseT * ty) / m_massKg;
+      omega += (leverN * impulseN + leverT * impulseT) / m_moiKgMetersSquared;
+      module.applyGroundImpulse(impulseN);
+      module.integrateWheel(h);
+    }
+
+    // Back to the field frame, then move
+    m_vx = vx * cos - vy * sin;
+    m_vy = vx * sin + vy * cos;
+    m_omega = omega;
+    m_x += m_vx * h;
+    m_y += m_vy * h;
+    m_headingRadians += m_omega * h;
+  }
+}
@@ -0,0 +1,195 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.sim;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.Constants.ModuleConstants;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Motor models and stand-in SPARK closed loops for one simulated MAXSwerve module.
+ *
+ * <p>The drive wheel is not stepped on its own: {@link DrivetrainSim} applies the motor torque and
+ * then couples the wheel to the carpet, so the wheel can slip when it is pushed past the traction
+ * limit. The turning motor is a plain {@link DCMotorSim}, since the steering load is small.
+ */
+public class SwerveModuleSim {
+  private static final double kTwoPi = 2 * Math.PI;
+
+  private final DCMotor m_driveMotor = DCMotor.getNeoVortex(1);
+  private final DCMotorSim m_turnSim;
+  private final PIDController m_turnController =
+      new PIDController(SimConstants.kTurningP, 0.0, 0.0);
+  // SPARK velocity feedforward, in duty cycle per m/s
+  private final double m_driveFeedforward = 1.0 / ModuleConstants.kDriveWheelFreeSpeedRps;
+  private final double m_wheelRadiusMeters = ModuleConstants.kWheelDiameterMeters / 2.0;
+  private double m_driveCurrentLimitAmps;
+  private final double m_chassisAngularOffset;
+
+  private boolean m_driveClosedLoop = false;
+  private double m_driveSetpointMetersPerSecond = 0.0;
+  private boolean m_turnClosedLoop = false;
+  private double m_turnSetpointRadians = 0.0;
+
+  private double m_wheelVelocityRadPerSec = 0.0;
+  private double m_wheelPositionRad = 0.0;
+  private double m_drivePositionOffsetMeters = 0.0;
+  private double m_driveAppliedOutput = 0.0;
+  private double m_driveCurrentAmps = 0.0;
+  private double m_turnAppliedOutput = 0.0;
+
+  // Read by the odometry thread
+  private volatile double m_drivePositionMeters = 0.0;
+  private volatile double m_turnPositionRadians = 0.0;
+
+  /**
+   * Creates a simulated module, with the wheel pointing straight forward.
+   *
+   * @param chassisAngularOffset The module's chassis angular offset, as in DriveConstants.
+   * @param driveCurrentLimitAmps The drive motor's smart current limit.
+   */
+  public SwerveModuleSim(double chassisAngularOffset, double driveCurrentLimitAmps) {
+    m_chassisAngularOffset = chassisAngularOffset;
+    m_driveCurrentLimitAmps = driveCurrentLimitAmps;
+
+    DCMotor turnMotor = DCMotor.getNeo550(1);
+    m_turnSim = new DCMotorSim(
+        LinearSystemId.createDCMotorSystem(
+            turnMotor, SimConstants.kTurnMoiKgMetersSquared, ModuleConstants.kTurningMotorReduction),
+        turnMotor);
+    m_turnSim.setState(chassisAngularOffset, 0.0);
+    m_turnController.enableContinuousInput(0, kTwoPi);
+    m_turnPositionRadians = MathUtil.inputModulus(chassisAngularOffset, 0, kTwoPi);
+  }
+
+  /** Runs the drive motor at a closed loop velocity. */
+  public void setDriveVelocity(double metersPerSecond) {
+    m_driveClosedLoop = true;
+    m_driveSetpointMetersPerSecond = metersPerSecond;
+  }
+
+  /** Runs the turning motor to a closed loop raw angle in radians. */
+  public void setTurnPosition(double radians) {
+    m_turnClosedLoop = true;
+    m_turnSetpointRadians = radians;
+  }
+
+  /** Stops both closed loops, e.g. when the robot is disabled. */
+  public void stop() {
+    m_driveClosedLoop = false;
+    m_turnClosedLoop = false;
+  }
+
+  /** Changes the drive motor's smart current limit. */
+  public void setDriveCurrentLimit(double amps) {
+    m_driveCurrentLimitAmps = amps;
+  }
+
+  /** Zeroes the drive encoder. */
+  public void resetDriveEncoder() {
+    m_drivePositionOffsetMeters = m_wheelPositionRad * m_wheelRadiusMeters;
+    m_drivePositionMeters = 0.0;
+  }
+
+  /** Returns the drive encoder distance in meters. */
+  public double getDrivePositionMeters() {
+    return m_drivePositionMeters;
+  }
+
+  /** Returns the drive wheel surface speed in meters per second. */
+  public double getDriveVelocityMetersPerSecond() {
+    return m_wheelVelocityRadPerSec * m_wheelRadiusMeters;
+  }
+
+  /** Returns the drive motor output last step, in the range [-1, 1]. */
+  public double getDriveAppliedOutput() {
+    return m_driveAppliedOutput;
+  }
+
+  /** Returns the drive motor's current draw last step. */
+  public double getDriveCurrentAmps() {
+    return Math.abs(m_driveCurrentAmps);
+  }
+
+  /** Returns the raw turning encoder angle in radians, in [0, 2pi). */
+  public double getTurnPositionRadians() {
+    return m_turnPositionRadians;
+  }
+
+  /** Returns the turning speed in radians per second. */
+  public double getTurnVelocityRadiansPerSecond() {
+    return m_turnSim.getAngularVelocityRadPerSec();
+  }
+
+  /** Returns the turning motor output last step, in the range [-1, 1]. */
+  public double getTurnAppliedOutput() {
+    return m_turnAppliedOutput;
+  }
+
+  /** Returns the turning motor's current draw last step. */
+  public double getTurnCurrentAmps() {
+    return Math.abs(m_turnSim.getCurrentDrawAmps());
+  }
+
+  /** Returns the wheel's direction relative to the chassis, in radians. */
+  double getWheelAngleRadians() {
+    return m_turnPositionRadians - m_chassisAngularOffset;
+  }
+
+  double getWheelRadiusMeters() {
+    return m_wheelRadiusMeters;
+  }
+
+  double getWheelVelocityRadPerSec() {
+    return m_wheelVelocityRadPerSec;
+  }
+
+  /**
+   * Runs both closed loops for one step and applies the drive motor torque to the free wheel.
+   * The wheel is coupled to the ground afterwards by {@link DrivetrainSim}.
+   */
+  void stepMotors(double batteryVolts, double dtSeconds) {
+    // Same feedforward and proportional gain as the SPARK velocity loop, in duty cycle
+    double wheelSpeed = getDriveVelocityMetersPerSecond();
+    double driveOutput = m_driveClosedLoop
+        ? m_driveFeedforward * m_driveSetpointMetersPerSecond
+            + SimConstants.kDrivingP * (m_driveSetpointMetersPerSecond - wheelSpeed)
+        : 0.0;
+    m_driveAppliedOutput = MathUtil.clamp(driveOutput, -1.0, 1.0);
+
+    // Brake mode: zero output shorts the motor, which is what 0 V in the motor model does
+    double motorSpeed = m_wheelVelocityRadPerSec * ModuleConstants.kDrivingMotorReduction;
+    double current = m_driveMotor.getCurrent(motorSpeed, m_driveAppliedOutput * batteryVolts);
+    m_driveCurrentAmps = MathUtil.clamp(current, -m_driveCurrentLimitAmps, m_driveCurrentLimitAmps);
+    double wheelTorque =
+        m_driveMotor.getTorque(m_driveCurrentAmps) * ModuleConstants.kDrivingMotorReduction;
+    m_wheelVelocityRadPerSec +=
+        wheelTorque / SimConstants.kDriveWheelMoiKgMetersSquared * dtSeconds;
+
+    double turnOutput = m_turnClosedLoop
+        ? m_turnController.calculate(m_turnPositionRadians, m_turnSetpointRadians)
+        : 0.0;
+    m_turnAppliedOutput = MathUtil.clamp(turnOutput, -1.0, 1.0);
+    m_turnSim.setInputVoltage(m_turnAppliedOutput * batteryVolts);
+    m_turnSim.update(dtSeconds);
+    m_turnPositionRadians = MathUtil.inputModulus(m_turnSim.getAngularPositionRad(), 0, kTwoPi);
+  }
+
+  /** Applies a ground reaction impulse at the contact patch, in newton seconds. */
+  void applyGroundImpulse(double impulse) {
+    m_wheelVelocityRadPerSec -=
+        impulse * m_wheelRadiusMeters / SimConstants.kDriveWheelMoiKgMetersSquared;
+  }
+
+  /** Turns the wheel by its speed at the end of a step. */
+  void integrateWheel(double dtSeconds) {
+    m_wheelPositionRad += m_wheelVelocityRadPerSec * dtSeconds;
+    m_drivePositionMeters = m_wheelPositionRad * m_wheelRadiusMeters - m_drivePositionOffsetMeters;
+  }
+}
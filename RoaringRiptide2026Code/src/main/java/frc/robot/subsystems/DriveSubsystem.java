@@ -4,24 +4,22 @@
 
 package frc.robot.subsystems;
 
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.smartdashboard.Field2d;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import com.ctre.phoenix6.hardware.Pigeon2;
+import edu.wpi.first.wpilibj.RobotBase;
 import com.ctre.phoenix6.sim.TalonFXSimState.MotorType;
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.config.PIDConstants;
 import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 import com.revrobotics.spark.SparkMax;
-import com.ctre.phoenix6.configs.Pigeon2Configuration;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
@@ -36,42 +34,52 @@ import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import frc.robot.Constants.PathPlannerConstants;
+import frc.robot.util.DataLogger;
+import frc.robot.util.DataLogger.Priority;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.MutableModuleState;
+import frc.robot.util.SwerveKinematicsMath;
+import frc.robot.util.Telemetry;
+import frc.robot.util.Telemetry.Tier;
 
 public class DriveSubsystem extends SubsystemBase {
-  // Create MAXSwerveModules
-  private final MAXSwerveModule m_frontLeft = new MAXSwerveModule(
-    DriveConstants.kFrontLeftDrivingCanId,
-    DriveConstants.kFrontLeftTurningCanId,
-    DriveConstants.kFrontLeftChassisAngularOffset);
-
-  private final MAXSwerveModule m_frontRight = new MAXSwerveModule(
-    DriveConstants.kFrontRightDrivingCanId,
-    DriveConstants.kFrontRightTurningCanId,
-    DriveConstants.kFrontRightChassisAngularOffset);
-
-  private final MAXSwerveModule m_rearLeft = new MAXSwerveModule(
-    DriveConstants.kRearLeftDrivingCanId,
-    DriveConstants.kRearLeftTurningCanId,
-    DriveConstants.kBackLeftChassisAngularOffset);
-
-  private final MAXSwerveModule m_rearRight = new MAXSwerveModule(
-    DriveConstants.kRearRightDrivingCanId,
-    DriveConstants.kRearRightTurningCanId,
-    DriveConstants.kBackRightChassisAngularOffset);
+  private static final int kPeriodicStage = LoopProfiler.registerStage("DriveSubsystem.periodic");
 
-  // The gyro sensor
-  private final Pigeon2 pidgey = new Pigeon2(20, "rio");
+  // Swerve modules
+  private final MAXSwerveModule m_frontLeft;
+  private final MAXSwerveModule m_frontRight;
+  private final MAXSwerveModule m_rearLeft;
+  private final MAXSwerveModule m_rearRight;
 
-  private final Field2d field2d = new Field2d();
+  // The gyro sensor
+  private final GyroIO m_gyroIO;
+
+  private final int m_inputsLogChannel = DataLogger.registerStruct(
+      "Drive/Inputs", "DriveInputs", Priority.HIGH,
+      "yawDegrees", "yawRateDegreesPerSecond",
+      "frontLeftPositionMeters", "frontRightPositionMeters",
+      "rearLeftPositionMeters", "rearRightPositionMeters",
+      "frontLeftAngleRadians", "frontRightAngleRadians",
+      "rearLeftAngleRadians", "rearRightAngleRadians");
+  private final int m_poseLogChannel = DataLogger.registerPose2d("Drive/Pose", Priority.HIGH);
+  private final int m_commandedSpeedsLogChannel =
+      DataLogger.registerChassisSpeeds("Drive/Commanded Speeds", Priority.HIGH);
+  private final int m_desiredStatesLogChannel =
+      DataLogger.registerModuleStates("Drive/Desired States", Priority.LOW, 4);
+  private final int m_measuredStatesLogChannel =
+      DataLogger.registerModuleStates("Drive/Measured States", Priority.LOW, 4);
+
+  // This loop's Limelight readings
+  private final VisionSubsystem m_vision;
 
   private boolean tooCloseToHub() {
-    var tags = LimelightHelpers.getRawFiducials(VisionConstants.kLimelightName);
+    VisionFrame frame = m_vision.getFrame();
 
-    if (tags.length == 0) {
+    if (frame.getFiducialCount() == 0) {
       return false;
     }
 
-    double distance = tags[0].distToRobot;
+    double distance = frame.getPrimaryFiducialDistanceMeters();
     return distance <= VisionConstants.kMinHubDistanceInches;
   }
 
@@ -87,32 +95,63 @@ public class DriveSubsystem extends SubsystemBase {
   //         m_rearRight.getPosition()
   //       },
   //       new Pose2d());
-  private SwerveDriveOdometry m_Odometry;
-
-  /** Creates a new DriveSubsystem. */
-  public DriveSubsystem() {
-
-    // Apply default configuration
-    Pigeon2Configuration pigeonConfig = new Pigeon2Configuration();
-    pidgey.getConfigurator().apply(pigeonConfig);
-
-    // Set signal update rates (important for CAN optimization)
-    pidgey.getYaw().setUpdateFrequency(100);              // 100 Hz for odometry
-    pidgey.getAngularVelocityZWorld().setUpdateFrequency(100);
-
-    // Optimize bus utilization
-    pidgey.optimizeBusUtilization();
+  // Fuses odometry with timestamped vision measurements. The estimator keeps a short
+  // time-interpolated history of odometry poses so each vision frame is applied at the moment it
+  // was captured rather than when it arrived.
+  private SwerveDrivePoseEstimator m_poseEstimator;
+  private double m_lastVisionTimestamp = Double.NaN;
+
+  // Samples the gyro and modules at kOdometryFrequencyHz; drained into the odometry every loop
+  private final OdometryThread m_odometryThread;
+  // The most recent sample drained from the odometry thread. Heading reads come from here so the
+  // main loop never waits on the gyro.
+  private final OdometryThread.Sample m_latestSample = new OdometryThread.Sample(4);
+  // Primitive kinematics and reused states so drive() does not allocate
+  private final SwerveKinematicsMath m_kinematics =
+      new SwerveKinematicsMath(DriveConstants.kModuleTranslations);
+  private final MutableModuleState[] m_desiredStates = {
+      new MutableModuleState(), new MutableModuleState(),
+      new MutableModuleState(), new MutableModuleState()
+  };
+  private final MutableModuleState[] m_measuredStates = {
+      new MutableModuleState(), new MutableModuleState(),
+      new MutableModuleState(), new MutableModuleState()
+  };
+  private final ChassisSpeeds m_commandedSpeeds = new ChassisSpeeds();
+  private final ChassisSpeeds m_measuredSpeeds = new ChassisSpeeds();
+  // Set by the PowerManager when it cuts the drive current, applied to joystick driving only
+  private double m_speedScale = 1.0;
+
+  private final SwerveModulePosition[] m_modulePositions = new SwerveModulePosition[] {
+      new SwerveModulePosition(), new SwerveModulePosition(),
+      new SwerveModulePosition(), new SwerveModulePosition()
+  };
 
-    // Zero heading at startup
-    pidgey.setYaw(0);
-
-    RobotConfig config;
-    try{
-      config = RobotConfig.fromGUISettings();
-    } catch (Exception e) {
-      // Handle exception as needed
-      e.printStackTrace();
-    }
+  /**
+   * Creates a new DriveSubsystem.
+   *
+   * @param gyroIO The gyro hardware.
+   * @param frontLeftIO The front left module hardware.
+   * @param frontRightIO The front right module hardware.
+   * @param rearLeftIO The rear left module hardware.
+   * @param rearRightIO The rear right module hardware.
+   * @param vision Source of the per-loop Limelight readings.
+   */
+  public DriveSubsystem(
+      GyroIO gyroIO,
+      ModuleIO frontLeftIO,
+      ModuleIO frontRightIO,
+      ModuleIO rearLeftIO,
+      ModuleIO rearRightIO,
+      VisionSubsystem vision) {
+    m_vision = vision;
+    m_gyroIO = gyroIO;
+    m_frontLeft = new MAXSwerveModule(frontLeftIO, DriveConstants.kFrontLeftChassisAngularOffset);
+    m_frontRight = new MAXSwerveModule(frontRightIO, DriveConstants.kFrontRightChassisAngularOffset);
+    m_rearLeft = new MAXSwerveModule(rearLeftIO, DriveConstants.kBackLeftChassisAngularOffset);
+    m_rearRight = new MAXSwerveModule(rearRightIO, DriveConstants.kBackRightChassisAngularOffset);
+    m_odometryThread = new OdometryThread(
+        m_gyroIO, DriveConstants.kOdometryFrequencyHz, m_frontLeft, m_frontRight, m_rearLeft, m_rearRight);
 
     // Configure AutoBuilder last
     // AutoBuilder.configure(
@@ -139,18 +178,45 @@ public class DriveSubsystem extends SubsystemBase {
     //         this // Reference to this subsystem to set requirements
     // );
 
-m_Odometry = new SwerveDriveOdometry(
+    // Seed the latest sample so heading reads are valid before the odometry thread runs
+    GyroIO.GyroIOInputs gyroInputs = new GyroIO.GyroIOInputs();
+    m_gyroIO.updateInputs(gyroInputs);
+    m_latestSample.yawDegrees = gyroInputs.yawDegrees;
+    MAXSwerveModule[] modules = {m_frontLeft, m_frontRight, m_rearLeft, m_rearRight};
+    for (int i = 0; i < modules.length; i++) {
+      m_latestSample.drivePositionsMeters[i] = modules[i].getDrivePositionMeters();
+      m_latestSample.anglesRadians[i] = modules[i].getAngleRadians();
+    }
+
+m_poseEstimator = new SwerveDrivePoseEstimator(
     DriveConstants.kDriveKinematics,
-    Rotation2d.fromDegrees(pidgey.getYaw().getValueAsDouble()),
-    new SwerveModulePosition[] {
-      m_frontLeft.getPosition(),
-      m_frontRight.getPosition(),
-      m_rearLeft.getPosition(),
-      m_rearRight.getPosition()
-    },
-    new Pose2d()  // IMPORTANT
+    Rotation2d.fromDegrees(m_latestSample.yawDegrees),
+    latestModulePositions(),
+    new Pose2d(),  // IMPORTANT
+    VecBuilder.fill(
+        DriveConstants.kOdometryXyStdDevMeters,
+        DriveConstants.kOdometryXyStdDevMeters,
+        DriveConstants.kOdometryThetaStdDevRadians),
+    VecBuilder.fill(
+        VisionConstants.kBaseXyStdDevMeters,
+        VisionConstants.kBaseXyStdDevMeters,
+        VisionConstants.kBaseThetaStdDevRadians)
 );
 
+    // From here on the odometry thread owns the gyro signals. In simulation, periodic() samples
+    // on the main loop instead.
+    if (RobotBase.isReal()) {
+      m_odometryThread.start();
+    }
+
+    // Struct-encoded pose and module states; dashboards can draw these on a field like Field2d
+    Telemetry.addStruct(Tier.CRITICAL, "Drive/Pose", Pose2d.struct, this::getPose);
+    Telemetry.addStructArray(
+        Tier.DIAGNOSTIC, "Drive/Module States", MutableModuleState.struct, this::measuredModuleStates);
+    Telemetry.addBoolean(Tier.CRITICAL, "Too Close To Hub", this::tooCloseToHub);
+    Telemetry.addNumber(Tier.DEBUG, "FL Turning burnt", () -> m_frontLeft.getInputs().turnCurrentAmps);
+    Telemetry.addNumber(Tier.DEBUG, "FL Turning healthy", () -> m_frontRight.getInputs().turnCurrentAmps);
+
     AutoBuilder.configure(
     this::getPose,
     this::resetOdometry,
@@ -170,24 +236,29 @@ m_Odometry = new SwerveDriveOdometry(
 
   @Override
   public void periodic() {
-    // Update the odometry in the periodic block
-    m_Odometry.update(
-        Rotation2d.fromDegrees(pidgey.getYaw().getValueAsDouble()),
-        new SwerveModulePosition[] {
-          m_frontLeft.getPosition(),
-          m_frontRight.getPosition(),
-          m_rearLeft.getPosition(),
-          m_rearRight.getPosition()
-        });
-    
-    // Adding field map to the smart dashboard
-    field2d.setRobotPose(m_Odometry.getPoseMeters());
-    SmartDashboard.putData(field2d);
+    LoopProfiler.start(kPeriodicStage);
 
-    SmartDashboard.putNumber("FL Turning burnt", m_frontLeft.m_turningSpark.getOutputCurrent());
-    SmartDashboard.putNumber("FL Turning healthy", m_frontRight.m_turningSpark.getOutputCurrent());
+    // Read every module's sensors once for this loop
+    m_frontLeft.periodic();
+    m_frontRight.periodic();
+    m_rearLeft.periodic();
+    m_rearRight.periodic();
+
+    if (RobotBase.isSimulation()) {
+      m_odometryThread.sampleNow();
+    }
 
-    SmartDashboard.putBoolean("Too Close To Hub", tooCloseToHub());
+    // Integrate every sample the odometry thread took since the last loop, at the time it was taken
+    while (m_odometryThread.poll(m_latestSample)) {
+      m_poseEstimator.updateWithTime(
+          m_latestSample.timestampSeconds,
+          Rotation2d.fromDegrees(m_latestSample.yawDegrees),
+          latestModulePositions());
+    }
+
+    logState();
+
+    LoopProfiler.stop(kPeriodicStage);
   }
 
   /**
@@ -196,15 +267,17 @@ m_Odometry = new SwerveDriveOdometry(
    * @return The pose.
    */
   public Pose2d getPose() {
-    return m_Odometry.getPoseMeters();
+    return m_poseEstimator.getEstimatedPosition();
   }
 
   public ChassisSpeeds getRobotRelativeSpeeds() {
-  return DriveConstants.kDriveKinematics.toChassisSpeeds(
-      m_frontLeft.getState(),
-      m_frontRight.getState(),
-      m_rearLeft.getState(),
-      m_rearRight.getState());
+  m_frontLeft.getState(m_measuredStates[0]);
+  m_frontRight.getState(m_measuredStates[1]);
+  m_rearLeft.getState(m_measuredStates[2]);
+  m_rearRight.getState(m_measuredStates[3]);
+  m_kinematics.toChassisSpeeds(m_measuredStates, m_measuredSpeeds);
+  // Reused every call; PathPlanner only reads it in the loop that asked
+  return m_measuredSpeeds;
 }
 
   /**
@@ -219,20 +292,16 @@ m_Odometry = new SwerveDriveOdometry(
       return;
     }
 
-    if (m_Odometry == null) {
-      System.out.println("❌ ERROR: m_odometry is NULL");
+    if (m_poseEstimator == null) {
+      System.out.println("❌ ERROR: m_poseEstimator is NULL");
       return;
     }
 
     try {
-      m_Odometry.resetPosition(
-          Rotation2d.fromDegrees(pidgey.getYaw().getValueAsDouble()),
-          new SwerveModulePosition[] {
-            m_frontLeft.getPosition(),
-            m_frontRight.getPosition(),
-            m_rearLeft.getPosition(),
-            m_rearRight.getPosition()
-          },
+      // Reset against the same sample the next odometry update will be relative to
+      m_poseEstimator.resetPosition(
+          Rotation2d.fromDegrees(m_latestSample.yawDegrees),
+          latestModulePositions(),
           pose);
     } catch (Exception e) {
       System.out.println("❌ resetOdometry crashed: " + e.getMessage());
@@ -243,6 +312,52 @@ m_Odometry = new SwerveDriveOdometry(
       resetOdometry(pose);
   }
 
+  /**
+   * Fuses a Limelight pose estimate into the pose estimate at the time the frame was captured.
+   *
+   * <p>The measurement is trusted less the farther away and more ambiguous the tags are, and more
+   * the more tags are in view. Frames with no tags, frames we have already used, ambiguous single
+   * tag frames and frames taken while spinning fast are ignored.
+   *
+   * @param estimate The Limelight estimate, in blue alliance field coordinates.
+   * @return Whether the measurement was used.
+   */
+  public boolean addVisionMeasurement(LimelightHelpers.PoseEstimate estimate) {
+    if (estimate == null || estimate.tagCount == 0) {
+      return false;
+    }
+    // The Limelight republishes the same frame until it has a new one
+    if (estimate.timestampSeconds == m_lastVisionTimestamp) {
+      return false;
+    }
+    if (Math.abs(getTurnRate()) > VisionConstants.kMaxTurnRateDegreesPerSecond) {
+      return false;
+    }
+
+    double maxAmbiguity = 0.0;
+    for (var fiducial : estimate.rawFiducials) {
+      maxAmbiguity = Math.max(maxAmbiguity, fiducial.ambiguity);
+    }
+    if (estimate.tagCount == 1 && maxAmbiguity > VisionConstants.kMaxSingleTagAmbiguity) {
+      return false;
+    }
+
+    // Error grows roughly with the square of the distance to the tags
+    double distanceScale = (1.0 + estimate.avgTagDist * estimate.avgTagDist) / estimate.tagCount;
+    double ambiguityScale = 1.0 + maxAmbiguity;
+    double xyStdDev = VisionConstants.kBaseXyStdDevMeters * distanceScale * ambiguityScale;
+    double thetaStdDev = estimate.tagCount > 1
+        ? VisionConstants.kBaseThetaStdDevRadians * distanceScale * ambiguityScale
+        : VisionConstants.kSingleTagThetaStdDevRadians;
+
+    m_poseEstimator.addVisionMeasurement(
+        estimate.pose,
+        estimate.timestampSeconds,
+        VecBuilder.fill(xyStdDev, xyStdDev, thetaStdDev));
+    m_lastVisionTimestamp = estimate.timestampSeconds;
+    return true;
+  }
+
   /**
    * Method to drive the robot using joystick info.
    *
@@ -257,30 +372,21 @@ m_Odometry = new SwerveDriveOdometry(
           xSpeed = 0;
     }
     // Convert the commanded speeds into the correct units for the drivetrain
-    double xSpeedDelivered = xSpeed * DriveConstants.kMaxSpeedMetersPerSecond;
-    double ySpeedDelivered = ySpeed * DriveConstants.kMaxSpeedMetersPerSecond;
-    double rotDelivered = rot * DriveConstants.kMaxAngularSpeed;
+    double xSpeedDelivered = xSpeed * DriveConstants.kMaxSpeedMetersPerSecond * m_speedScale;
+    double ySpeedDelivered = ySpeed * DriveConstants.kMaxSpeedMetersPerSecond * m_speedScale;
+    double rotDelivered = rot * DriveConstants.kMaxAngularSpeed * m_speedScale;
 
     
 
-    var swerveModuleStates =
-        DriveConstants.kDriveKinematics.toSwerveModuleStates(
-            fieldRelative
-                ? ChassisSpeeds.fromFieldRelativeSpeeds(
-                    xSpeedDelivered,
-                    ySpeedDelivered,
-                    rotDelivered,
-                    Rotation2d.fromDegrees(pidgey.getYaw().getValueAsDouble()))
-                : new ChassisSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered));
-
-    SwerveDriveKinematics.desaturateWheelSpeeds(
-        swerveModuleStates, DriveConstants.kMaxSpeedMetersPerSecond);
-
-    m_frontLeft.setDesiredState(swerveModuleStates[0]);
-    m_frontRight.setDesiredState(swerveModuleStates[1]);
-    m_rearLeft.setDesiredState(swerveModuleStates[2]);
-    m_rearRight.setDesiredState(swerveModuleStates[3]);
+    m_commandedSpeeds.vxMetersPerSecond = xSpeedDelivered;
+    m_commandedSpeeds.vyMetersPerSecond = ySpeedDelivered;
+    m_commandedSpeeds.omegaRadiansPerSecond = rotDelivered;
+    if (fieldRelative) {
+      SwerveKinematicsMath.fieldToRobotRelative(
+          m_commandedSpeeds, Math.toRadians(m_latestSample.yawDegrees));
+    }
 
+    applyChassisSpeeds(m_commandedSpeeds);
   }
 
     /**
@@ -289,14 +395,30 @@ m_Odometry = new SwerveDriveOdometry(
  * @param speeds The desired ChassisSpeeds (robot-relative).
  */
 public void driveRobotRelative(ChassisSpeeds speeds) {
-  var swerveModuleStates = DriveConstants.kDriveKinematics.toSwerveModuleStates(speeds);
-  SwerveDriveKinematics.desaturateWheelSpeeds(swerveModuleStates, DriveConstants.kMaxSpeedMetersPerSecond);
-
-  m_frontLeft.setDesiredState(swerveModuleStates[0]);
-  m_frontRight.setDesiredState(swerveModuleStates[1]);
-  m_rearLeft.setDesiredState(swerveModuleStates[2]);
-  m_rearRight.setDesiredState(swerveModuleStates[3]);
+  applyChassisSpeeds(speeds);
 }
+
+  /**
+   * Converts robot relative speeds into module states, desaturates them and sends them to the
+   * modules. Runs on primitives only, so it does not allocate.
+   */
+  private void applyChassisSpeeds(ChassisSpeeds speeds) {
+    if (speeds != m_commandedSpeeds) {
+      // Keep what was actually commanded for the log
+      m_commandedSpeeds.vxMetersPerSecond = speeds.vxMetersPerSecond;
+      m_commandedSpeeds.vyMetersPerSecond = speeds.vyMetersPerSecond;
+      m_commandedSpeeds.omegaRadiansPerSecond = speeds.omegaRadiansPerSecond;
+    }
+    m_kinematics.toModuleStates(
+        speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond,
+        m_desiredStates);
+    SwerveKinematicsMath.desaturate(m_desiredStates, DriveConstants.kMaxSpeedMetersPerSecond);
+
+    m_frontLeft.setDesiredState(m_desiredStates[0]);
+    m_frontRight.setDesiredState(m_desiredStates[1]);
+    m_rearLeft.setDesiredState(m_desiredStates[2]);
+    m_rearRight.setDesiredState(m_desiredStates[3]);
+  }
 // public ChassisSpeeds getRobotRelativeSpeeds() {
 //   return DriveConstants.kDriveKinematics.toChassisSpeeds(
 //     m_frontLeft.getState(),
@@ -310,10 +432,10 @@ public void driveRobotRelative(ChassisSpeeds speeds) {
   public Command setXCommand() {
     return this.run(
         () -> {
-          m_frontLeft.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)));
-          m_frontRight.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)));
-          m_rearLeft.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)));
-          m_rearRight.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)));
+          m_frontLeft.setDesiredState(0, Math.PI / 4);
+          m_frontRight.setDesiredState(0, -Math.PI / 4);
+          m_rearLeft.setDesiredState(0, -Math.PI / 4);
+          m_rearRight.setDesiredState(0, Math.PI / 4);
         });
   }
 
@@ -331,6 +453,43 @@ public void driveRobotRelative(ChassisSpeeds speeds) {
     m_rearRight.setDesiredState(desiredStates[3]);
   }
 
+  /** Returns the battery current the four driving motors draw, estimated from their outputs. */
+  public double getDriveSupplyCurrentAmps() {
+    return m_frontLeft.getDriveSupplyCurrentAmps() + m_frontRight.getDriveSupplyCurrentAmps()
+        + m_rearLeft.getDriveSupplyCurrentAmps() + m_rearRight.getDriveSupplyCurrentAmps();
+  }
+
+  /** Returns the battery current the four turning motors draw, estimated from their outputs. */
+  public double getTurningSupplyCurrentAmps() {
+    return m_frontLeft.getTurningSupplyCurrentAmps() + m_frontRight.getTurningSupplyCurrentAmps()
+        + m_rearLeft.getTurningSupplyCurrentAmps() + m_rearRight.getTurningSupplyCurrentAmps();
+  }
+
+  /** Changes the smart current limit of all four driving motors. */
+  public void setDriveCurrentLimit(int amps) {
+    m_frontLeft.setDriveCurrentLimit(amps);
+    m_frontRight.setDriveCurrentLimit(amps);
+    m_rearLeft.setDriveCurrentLimit(amps);
+    m_rearRight.setDriveCurrentLimit(amps);
+  }
+
+  /** Changes the smart current limit of all four turning motors. */
+  public void setTurningCurrentLimit(int amps) {
+    m_frontLeft.setTurningCurrentLimit(amps);
+    m_frontRight.setTurningCurrentLimit(amps);
+    m_rearLeft.setTurningCurrentLimit(amps);
+    m_rearRight.setTurningCurrentLimit(amps);
+  }
+
+  /**
+   * Scales the speeds {@link #drive} asks for. Paths are not scaled, so they keep their timing.
+   *
+   * @param scale Fraction of the maximum speed, in (0, 1].
+   */
+  public void setSpeedScale(double scale) {
+    m_speedScale = scale;
+  }
+
   /** Resets the drive encoders to currently read a position of 0. */
   public void resetEncoders() {
     m_frontLeft.resetEncoders();
@@ -341,7 +500,7 @@ public void driveRobotRelative(ChassisSpeeds speeds) {
 
   /** Zeroes the heading of the robot. */
   public Command zeroHeadingCommand() {
-    return this.runOnce(() -> pidgey.setYaw(0));
+    return this.runOnce(() -> m_gyroIO.setYaw(0));
   }
 
   /**
@@ -350,7 +509,7 @@ public void driveRobotRelative(ChassisSpeeds speeds) {
    * @return the robot's heading in degrees, from -180 to 180
    */
   public double getHeading() {
-    return pidgey.getYaw().getValueAsDouble();
+    return m_latestSample.yawDegrees;
   }
 
   /**
@@ -359,8 +518,80 @@ public void driveRobotRelative(ChassisSpeeds speeds) {
    * @return The turn rate of the robot, in degrees per second
    */
   public double getTurnRate() {
-    return pidgey.getAngularVelocityZWorld().getValueAsDouble()
+    return m_latestSample.yawRateDegreesPerSecond
         * (DriveConstants.kGyroReversed ? -1.0 : 1.0);
   }
+
+  /** Logs this loop's sensor inputs, pose and outputs. */
+  private void logState() {
+    if (DataLogger.begin(m_inputsLogChannel)) {
+      DataLogger.put(m_latestSample.yawDegrees);
+      DataLogger.put(m_latestSample.yawRateDegreesPerSecond);
+      for (double position : m_latestSample.drivePositionsMeters) {
+        DataLogger.put(position);
+      }
+      for (double angle : m_latestSample.anglesRadians) {
+        DataLogger.put(angle);
+      }
+      DataLogger.commit();
+    }
+
+    if (DataLogger.begin(m_poseLogChannel)) {
+      Pose2d pose = getPose();
+      DataLogger.put(pose.getX());
+      DataLogger.put(pose.getY());
+      DataLogger.put(pose.getRotation().getRadians());
+      DataLogger.commit();
+    }
+
+    if (DataLogger.begin(m_commandedSpeedsLogChannel)) {
+      DataLogger.put(m_commandedSpeeds.vxMetersPerSecond);
+      DataLogger.put(m_commandedSpeeds.vyMetersPerSecond);
+      DataLogger.put(m_commandedSpeeds.omegaRadiansPerSecond);
+      DataLogger.commit();
+    }
+
+    if (DataLogger.begin(m_desiredStatesLogChannel)) {
+      for (MutableModuleState state : m_desiredStates) {
+        DataLogger.put(state.speedMetersPerSecond);
+        DataLogger.put(state.angleRadians);
+      }
+      DataLogger.commit();
+    }
+
+    if (DataLogger.begin(m_measuredStatesLogChannel)) {
+      m_frontLeft.getState(m_measuredStates[0]);
+      m_frontRight.getState(m_measuredStates[1]);
+      m_rearLeft.getState(m_measuredStates[2]);
+      m_rearRight.getState(m_measuredStates[3]);
+      for (MutableModuleState state : m_measuredStates) {
+        DataLogger.put(state.speedMetersPerSecond);
+        DataLogger.put(state.angleRadians);
+      }
+      DataLogger.commit();
+    }
+  }
+
+  /** Fills the reused measured states, published with {@link MutableModuleState#struct}. */
+  MutableModuleState[] measuredModuleStates() {
+    m_frontLeft.getState(m_measuredStates[0]);
+    m_frontRight.getState(m_measuredStates[1]);
+    m_rearLeft.getState(m_measuredStates[2]);
+    m_rearRight.getState(m_measuredStates[3]);
+    return m_measuredStates;
+  }
+
+  /**
+   * Copies the module readings from the latest odometry sample into the reused position array.
+   * The angles are kept as radians until here: the pose estimator only takes Rotation2d, which is
+   * immutable, so each update builds one per module.
+   */
+  private SwerveModulePosition[] latestModulePositions() {
+    for (int i = 0; i < m_modulePositions.length; i++) {
+      m_modulePositions[i].distanceMeters = m_latestSample.drivePositionsMeters[i];
+      m_modulePositions[i].angle = new Rotation2d(m_latestSample.anglesRadians[i]);
+    }
+    return m_modulePositions;
+  }
   
 }
@@ -0,0 +1,179 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.LauncherSubsystemConstants.FeedMetering;
+import frc.robot.Constants.LauncherSubsystemConstants.FeederSetpoints;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.Constants.RealTimeConstants;
+import frc.robot.util.ThreadPriorities;
+
+/**
+ * Lets pieces into the flywheel one at a time, each only once the flywheel has recovered from the
+ * last one, so every piece leaves at the right speed and the next follows as soon as it can.
+ *
+ * <p>A dedicated thread watches the flywheel's velocity and current much faster than the 50 Hz
+ * main loop. While armed, it runs the feeder with the gate open. A piece hitting the flywheel pulls
+ * its speed down and its current up; that closes the gate and stops the feeder. Once the speed is
+ * back near the target and the current has settled, the gate opens and the feeder starts again.
+ *
+ * <p>Only a fall in the measured speed counts as a shot: the speed is compared with the highest it
+ * reached since the gate opened, capped at the target, so moving the target up while feeding is
+ * not taken for a piece. The current threshold follows the flywheel's current limit, so a limit
+ * cut by the PowerManager does not hide shots.
+ *
+ * <p>While armed, this thread is the only one that sets the feeder's power. The main loop arms and
+ * disarms it, updates the target, and reads {@link #isGateOpen()} to run the conveyor in step.
+ */
+public class FeedMeter {
+  private final FlywheelIO m_flywheel;
+  private final RollerIO m_feeder;
+  private final Notifier m_notifier;
+
+  // Set by the main loop
+  private volatile boolean m_armed = false;
+  private volatile double m_targetRpm = 0.0;
+  private volatile double m_feederPower = 0.0;
+  private volatile double m_shotCurrentAmps =
+      FeedMetering.kShotCurrentFraction * PowerConstants.kFlywheelMaxCurrentAmps;
+
+  // Set by whichever thread samples, read by the main loop
+  private volatile boolean m_gateOpen = false;
+  private volatile long m_shots = 0;
+  private volatile double m_lastRecoverySeconds = 0.0;
+
+  // Only touched while holding the lock
+  private double m_appliedPower = 0.0;
+  private double m_gateClosedSeconds = 0.0;
+  // Highest speed measured since the gate last opened
+  private double m_peakRpm = 0.0;
+  private boolean m_priorityRaised = false;
+
+  /**
+   * Creates the feed meter. Call {@link #start()} to sample on its own thread.
+   *
+   * @param flywheel The flywheel to watch.
+   * @param feeder The feeder to run.
+   */
+  public FeedMeter(FlywheelIO flywheel, RollerIO feeder) {
+    m_flywheel = flywheel;
+    m_feeder = feeder;
+    m_notifier = new Notifier(this::sampleOnThread);
+    m_notifier.setName("FeedMeter");
+  }
+
+  /** Starts sampling. */
+  public void start() {
+    m_notifier.startPeriodic(1.0 / FeedMetering.kFrequencyHz);
+  }
+
+  /**
+   * Takes one sample on the calling thread. Use this instead of {@link #start()} in simulation,
+   * where the simulated flywheel only moves once per loop.
+   */
+  public void sampleNow() {
+    sample();
+  }
+
+  /**
+   * Starts feeding, gated on the flywheel. Only call from the main loop with actuators enabled.
+   *
+   * @param targetRpm The flywheel's current target.
+   * @param feederPower Feeder power while the gate is open.
+   */
+  public synchronized void arm(double targetRpm, double feederPower) {
+    m_targetRpm = targetRpm;
+    m_feederPower = feederPower;
+    m_armed = true;
+    sample();
+  }
+
+  /** Changes the target and feeder power while armed, e.g. as the shot map follows the robot. */
+  public void update(double targetRpm, double feederPower) {
+    m_targetRpm = targetRpm;
+    m_feederPower = feederPower;
+  }
+
+  /** Tells the meter the flywheel's current limit changed, so it scales its shot threshold. */
+  public void setCurrentLimit(int amps) {
+    m_shotCurrentAmps = FeedMetering.kShotCurrentFraction * amps;
+  }
+
+  /** Stops feeding and stops the feeder. Only call from the main loop with actuators enabled. */
+  public synchronized void disarm() {
+    m_armed = false;
+    m_gateOpen = false;
+    m_appliedPower = 0.0;
+    m_feeder.stop();
+  }
+
+  /** Returns whether a launch is feeding, whether or not the gate is open right now. */
+  public boolean isArmed() {
+    return m_armed;
+  }
+
+  /** Returns whether pieces are being let into the flywheel right now. */
+  public boolean isGateOpen() {
+    return m_gateOpen;
+  }
+
+  /** Returns how many shots have been seen since the robot started. */
+  public long getShotCount() {
+    return m_shots;
+  }
+
+  /** Returns how long the flywheel took to recover from the last shot, in seconds. */
+  public double getLastRecoverySeconds() {
+    return m_lastRecoverySeconds;
+  }
+
+  /** Runs on the feed meter thread. Raises its priority on the first run, then samples. */
+  private void sampleOnThread() {
+    if (!m_priorityRaised) {
+      m_priorityRaised = true;
+      ThreadPriorities.raiseCurrentThread(RealTimeConstants.kFeedMeterPriority);
+    }
+    sample();
+  }
+
+  /** Reads the flywheel once and opens or closes the gate. */
+  private synchronized void sample() {
+    if (!m_armed) {
+      return;
+    }
+    double targetRpm = m_targetRpm;
+    double rpm = m_flywheel.getVelocityRpm();
+    double amps = m_flywheel.getCurrentAmps();
+    double shotAmps = m_shotCurrentAmps;
+    double nowSeconds = RobotController.getFPGATime() / 1e6;
+
+    if (m_gateOpen) {
+      m_peakRpm = Math.max(m_peakRpm, rpm);
+      // Still spinning up to a raised target is not a drop; slowing to a lowered one is not either
+      double dropRpm = Math.min(m_peakRpm, targetRpm) - rpm;
+      if (dropRpm > FeedMetering.kShotDropRpm || amps > shotAmps) {
+        m_gateOpen = false;
+        m_gateClosedSeconds = nowSeconds;
+        m_shots++;
+      }
+    } else if (targetRpm - rpm < FeedMetering.kRecoveredRpm && amps < shotAmps) {
+      m_gateOpen = true;
+      m_peakRpm = rpm;
+      if (m_shots > 0) {
+        m_lastRecoverySeconds = nowSeconds - m_gateClosedSeconds;
+      }
+    }
+
+    // Only send the feeder a new power when it really changed
+    double power = m_gateOpen ? m_feederPower : 0.0;
+    if ((power == 0.0) != (m_appliedPower == 0.0)
+        || Math.abs(power - m_appliedPower) > FeederSetpoints.kRetargetPower) {
+      m_feeder.setPower(power);
+      m_appliedPower = power;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/** Hardware interface for the launcher flywheel, a leader motor and a follower. */
+public interface FlywheelIO {
+  /** Everything read from the flywheel motors, refreshed once per loop. */
+  class FlywheelIOInputs {
+    public double velocityRpm = 0.0;
+    public double appliedOutput = 0.0;
+    public double currentAmps = 0.0;
+    public double followerAppliedOutput = 0.0;
+    public double followerCurrentAmps = 0.0;
+  }
+
+  /** Reads every sensor into {@code inputs}. */
+  default void updateInputs(FlywheelIOInputs inputs) {}
+
+  /** Returns the leader's velocity in RPM. Must be safe to call from the feed meter thread. */
+  default double getVelocityRpm() {
+    return 0.0;
+  }
+
+  /** Returns the leader's output current. Must be safe to call from the feed meter thread. */
+  default double getCurrentAmps() {
+    return 0.0;
+  }
+
+  /** Drives the flywheel to a velocity with a motion profiled closed loop. */
+  default void setVelocity(double rpm) {}
+
+  /** Stops driving the flywheel and lets it coast. */
+  default void stop() {}
+
+  /** Changes both motors' smart current limit, without waiting for it to be applied. */
+  default void setCurrentLimit(int amps) {}
+}
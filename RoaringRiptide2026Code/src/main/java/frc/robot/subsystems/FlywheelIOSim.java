@@ -0,0 +1,106 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.NeoMotorConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Simulated flywheel. MAXMotion velocity control is stood in for by ramping the setpoint at the
+ * configured acceleration, with the same feedforward and proportional gain as the SPARK.
+ */
+public class FlywheelIOSim implements FlywheelIO {
+  private static final double kNominalVoltage = 12.0;
+
+  private final DCMotor m_motors = DCMotor.getNeoVortex(2);
+  private final FlywheelSim m_sim;
+  private final double m_dtSeconds;
+  private double m_currentLimitAmps = PowerConstants.kFlywheelMaxCurrentAmps;
+
+  private boolean m_closedLoop = false;
+  private double m_goalRpm = 0.0;
+  private double m_profiledRpm = 0.0;
+  private double m_appliedVolts = 0.0;
+
+  /**
+   * Creates a simulated flywheel.
+   *
+   * @param dtSeconds How much simulated time passes per {@link #updateInputs} call.
+   */
+  public FlywheelIOSim(double dtSeconds) {
+    m_dtSeconds = dtSeconds;
+    m_sim = new FlywheelSim(
+        LinearSystemId.createFlywheelSystem(m_motors, SimConstants.kFlywheelMoiKgMetersSquared, 1.0),
+        m_motors);
+  }
+
+  @Override
+  public void updateInputs(FlywheelIOInputs inputs) {
+    double velocityRpm = m_sim.getAngularVelocityRPM();
+    if (m_closedLoop) {
+      double maxStep = SimConstants.kFlywheelMaxAccelerationRpmPerSecond * m_dtSeconds;
+      m_profiledRpm += MathUtil.clamp(m_goalRpm - m_profiledRpm, -maxStep, maxStep);
+      m_appliedVolts = m_profiledRpm / NeoMotorConstants.kVortexKv
+          + SimConstants.kFlywheelP * kNominalVoltage * (m_profiledRpm - velocityRpm);
+    } else {
+      m_profiledRpm = velocityRpm;
+      m_appliedVolts = 0.0;
+    }
+    // Smart current limit: keep the voltage across the windings under limit * resistance, for
+    // both motors together
+    double backEmfVolts = m_sim.getAngularVelocityRadPerSec() / m_motors.KvRadPerSecPerVolt;
+    double maxDeltaVolts = 2 * m_currentLimitAmps * m_motors.rOhms;
+    m_appliedVolts = MathUtil.clamp(
+        m_appliedVolts, backEmfVolts - maxDeltaVolts, backEmfVolts + maxDeltaVolts);
+    m_appliedVolts = MathUtil.clamp(m_appliedVolts, -kNominalVoltage, kNominalVoltage);
+
+    m_sim.setInputVoltage(m_appliedVolts);
+    m_sim.update(m_dtSeconds);
+
+    inputs.velocityRpm = m_sim.getAngularVelocityRPM();
+    inputs.appliedOutput = m_appliedVolts / kNominalVoltage;
+    // The sim models both motors together, split the current between them
+    inputs.currentAmps = Math.abs(m_sim.getCurrentDrawAmps()) / 2.0;
+    inputs.followerAppliedOutput = inputs.appliedOutput;
+    inputs.followerCurrentAmps = inputs.currentAmps;
+  }
+
+  @Override
+  public double getVelocityRpm() {
+    return m_sim.getAngularVelocityRPM();
+  }
+
+  @Override
+  public double getCurrentAmps() {
+    return Math.abs(m_sim.getCurrentDrawAmps()) / 2.0;
+  }
+
+  @Override
+  public void setVelocity(double rpm) {
+    m_closedLoop = true;
+    m_goalRpm = rpm;
+  }
+
+  @Override
+  public void stop() {
+    m_closedLoop = false;
+    m_goalRpm = 0.0;
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    m_currentLimitAmps = amps;
+  }
+
+  /** Returns both motors' current draw, for the battery simulation. */
+  public double getCurrentDrawAmps() {
+    return Math.abs(m_sim.getCurrentDrawAmps());
+  }
+}
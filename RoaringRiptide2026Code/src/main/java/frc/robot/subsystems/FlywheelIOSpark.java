@@ -0,0 +1,92 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.revrobotics.PersistMode;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.ResetMode;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkFlex;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.config.SparkFlexConfig;
+
+import frc.robot.Configs;
+import frc.robot.util.CanBusBudget;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.SparkSignalPolicy;
+
+/** Flywheel hardware: two SPARK Flexes, the follower mirroring the leader. */
+public class FlywheelIOSpark implements FlywheelIO {
+  // We will use MAXMotion velocity control for the flywheel, so we also need the closed loop
+  // controller and encoder.
+  private final SparkFlex m_flywheelMotor;
+  private final SparkFlex m_flywheelFollowerMotor;
+  private final SparkClosedLoopController m_flywheelController;
+  private final RelativeEncoder m_flywheelEncoder;
+  // Reused for every current limit change, so changing the limit does not allocate
+  private final SparkFlexConfig m_limitConfig = new SparkFlexConfig();
+
+  public FlywheelIOSpark(int canId, int followerCanId) {
+    m_flywheelMotor = new SparkFlex(canId, MotorType.kBrushless);
+    m_flywheelFollowerMotor = new SparkFlex(followerCanId, MotorType.kBrushless);
+    m_flywheelController = m_flywheelMotor.getClosedLoopController();
+    m_flywheelEncoder = m_flywheelMotor.getEncoder();
+
+    /*
+     * Configured in the background. A changed configuration resets the SPARK to a
+     * known state and is persisted so it survives power cycles mid-operation; an
+     * unchanged one is applied without either. See SparkConfigurator.
+     */
+    SparkConfigurator.configure(m_flywheelMotor, Configs.LauncherSubsystem.flywheelConfig);
+    SparkConfigurator.configure(
+        m_flywheelFollowerMotor, Configs.LauncherSubsystem.flywheelFollowerConfig);
+
+    // Zero flywheel encoder on initialization
+    m_flywheelEncoder.setPosition(0);
+
+    CanBusBudget.addSpark(canId, SparkSignalPolicy.FLYWHEEL);
+    CanBusBudget.addSpark(followerCanId, SparkSignalPolicy.FLYWHEEL_FOLLOWER);
+  }
+
+  @Override
+  public void updateInputs(FlywheelIOInputs inputs) {
+    inputs.velocityRpm = m_flywheelEncoder.getVelocity();
+    inputs.appliedOutput = m_flywheelMotor.getAppliedOutput();
+    inputs.currentAmps = m_flywheelMotor.getOutputCurrent();
+    inputs.followerAppliedOutput = m_flywheelFollowerMotor.getAppliedOutput();
+    inputs.followerCurrentAmps = m_flywheelFollowerMotor.getOutputCurrent();
+  }
+
+  @Override
+  public double getVelocityRpm() {
+    return m_flywheelEncoder.getVelocity();
+  }
+
+  @Override
+  public double getCurrentAmps() {
+    return m_flywheelMotor.getOutputCurrent();
+  }
+
+  @Override
+  public void setVelocity(double rpm) {
+    m_flywheelController.setSetpoint(rpm, ControlType.kMAXMotionVelocityControl);
+  }
+
+  @Override
+  public void stop() {
+    m_flywheelMotor.stopMotor();
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    // Not persisted, so a power cycle goes back to the configured limit
+    m_limitConfig.smartCurrentLimit(amps);
+    m_flywheelMotor.configureAsync(
+        m_limitConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+    m_flywheelFollowerMotor.configureAsync(
+        m_limitConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+}
@@ -0,0 +1,23 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/** Hardware interface for the drivetrain gyro. */
+public interface GyroIO {
+  /** Everything read from the gyro. */
+  class GyroIOInputs {
+    public boolean connected = false;
+    public double yawDegrees = 0.0;
+    public double yawRateDegreesPerSecond = 0.0;
+  }
+
+  /**
+   * Reads the gyro into {@code inputs}. Once the odometry thread is running it is the only caller.
+   */
+  default void updateInputs(GyroIOInputs inputs) {}
+
+  /** Sets the current yaw. */
+  default void setYaw(double degrees) {}
+}
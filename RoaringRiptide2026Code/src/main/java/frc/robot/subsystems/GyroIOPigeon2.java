@@ -0,0 +1,58 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.Pigeon2Configuration;
+import com.ctre.phoenix6.hardware.Pigeon2;
+
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.util.CanBusBudget;
+
+/** Pigeon 2 gyro, with the yaw signals sent at the odometry rate. */
+public class GyroIOPigeon2 implements GyroIO {
+  private final Pigeon2 m_pigeon;
+  private final StatusSignal<Angle> m_yaw;
+  private final StatusSignal<AngularVelocity> m_yawRate;
+
+  public GyroIOPigeon2(int canId, String canBus) {
+    m_pigeon = new Pigeon2(canId, canBus);
+
+    // Apply default configuration
+    m_pigeon.getConfigurator().apply(new Pigeon2Configuration());
+
+    m_yaw = m_pigeon.getYaw();
+    m_yawRate = m_pigeon.getAngularVelocityZWorld();
+
+    // Set signal update rates (important for CAN optimization). Match the odometry thread rate.
+    m_yaw.setUpdateFrequency(DriveConstants.kOdometryFrequencyHz);
+    m_yawRate.setUpdateFrequency(DriveConstants.kOdometryFrequencyHz);
+
+    // Optimize bus utilization
+    m_pigeon.optimizeBusUtilization();
+    CanBusBudget.add("Pigeon 2", 2 * DriveConstants.kOdometryFrequencyHz);
+
+    // Zero heading at startup
+    m_pigeon.setYaw(0);
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    StatusCode status = BaseStatusSignal.refreshAll(m_yaw, m_yawRate);
+    inputs.connected = status.isOK();
+    // Compensate the yaw for CAN latency using the yaw rate.
+    inputs.yawDegrees = BaseStatusSignal.getLatencyCompensatedValueAsDouble(m_yaw, m_yawRate);
+    inputs.yawRateDegreesPerSecond = m_yawRate.getValueAsDouble();
+  }
+
+  @Override
+  public void setYaw(double degrees) {
+    m_pigeon.setYaw(degrees);
+  }
+}
@@ -0,0 +1,35 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.sim.DrivetrainSim;
+
+/** Simulated Pigeon 2. Reads the heading of the simulated drivetrain. */
+public class GyroIOSim implements GyroIO {
+  private final DrivetrainSim m_drivetrain;
+  // Subtracted from the true heading so setYaw() works like on the Pigeon
+  private volatile double m_yawOffsetDegrees = 0.0;
+
+  /**
+   * Creates a simulated gyro.
+   *
+   * @param drivetrain The simulated drivetrain the gyro is mounted on.
+   */
+  public GyroIOSim(DrivetrainSim drivetrain) {
+    m_drivetrain = drivetrain;
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.connected = true;
+    inputs.yawDegrees = Math.toDegrees(m_drivetrain.getGyroYawRadians()) - m_yawOffsetDegrees;
+    inputs.yawRateDegreesPerSecond = Math.toDegrees(m_drivetrain.getGyroYawRateRadPerSec());
+  }
+
+  @Override
+  public void setYaw(double degrees) {
+    m_yawOffsetDegrees = Math.toDegrees(m_drivetrain.getGyroYawRadians()) - degrees;
+  }
+}
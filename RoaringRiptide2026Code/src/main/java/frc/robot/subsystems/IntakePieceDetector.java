@@ -0,0 +1,70 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.Constants.IntakeSubsystemConstants.PieceDetection;
+
+/**
+ * Counts a piece each time the intake current jumps over its running average while pulling in.
+ * The average follows the roller's free running current and is held during a spike, so a piece is
+ * counted once, at the start of its spike.
+ *
+ * <p>Only depends on the readings it is given, so it can be tested without hardware.
+ */
+public class IntakePieceDetector {
+  private long m_count = 0;
+  private double m_baselineAmps = 0.0;
+  private double m_startSeconds = 0.0;
+  private double m_lastPieceSeconds = Double.NEGATIVE_INFINITY;
+  private boolean m_running = false;
+  private boolean m_inSpike = false;
+
+  /**
+   * Takes one reading of the intake roller.
+   *
+   * @param nowSeconds When the reading was taken.
+   * @param appliedOutput The roller's applied output, in the range [-1, 1].
+   * @param amps The roller's current.
+   * @return Whether a piece was counted on this reading.
+   */
+  public boolean update(double nowSeconds, double appliedOutput, double amps) {
+    boolean running = appliedOutput > PieceDetection.kMinIntakeOutput;
+    if (running && !m_running) {
+      m_startSeconds = nowSeconds;
+    }
+    m_running = running;
+    if (!running || nowSeconds - m_startSeconds < PieceDetection.kIntakeSpinUpSeconds) {
+      // Ramping up or stopped, only learn the current
+      m_baselineAmps = amps;
+      m_inSpike = false;
+      return false;
+    }
+
+    double excessAmps = amps - m_baselineAmps;
+    if (!m_inSpike) {
+      if (excessAmps > PieceDetection.kIntakeSpikeAmps
+          && nowSeconds - m_lastPieceSeconds >= PieceDetection.kMinPieceSpacingSeconds) {
+        m_inSpike = true;
+        m_lastPieceSeconds = nowSeconds;
+        m_count++;
+        return true;
+      }
+      m_baselineAmps += PieceDetection.kIntakeBaselineAlpha * (amps - m_baselineAmps);
+    } else if (excessAmps < PieceDetection.kIntakeSpikeAmps / 2) {
+      m_inSpike = false;
+    }
+    return false;
+  }
+
+  /** Returns how many pieces have been counted. */
+  public long getCount() {
+    return m_count;
+  }
+
+  /** Returns the running average of the roller's current that spikes are measured against. */
+  public double getBaselineAmps() {
+    return m_baselineAmps;
+  }
+}
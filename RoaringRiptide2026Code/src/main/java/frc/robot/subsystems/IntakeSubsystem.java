@@ -4,61 +4,90 @@
 
 package frc.robot.subsystems;
 
-import com.revrobotics.PersistMode;
-import com.revrobotics.ResetMode;
-import com.revrobotics.spark.SparkFlex;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
+import java.util.function.BooleanSupplier;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Configs;
-import frc.robot.Constants.IntakeSubsystemConstants;
 import frc.robot.Constants.IntakeSubsystemConstants.ConveyorSetpoints;
 import frc.robot.Constants.IntakeSubsystemConstants.IntakeSetpoints;
+import frc.robot.Constants.IntakeSubsystemConstants.PieceDetection;
+import frc.robot.util.ActuatorGate;
+import frc.robot.util.DataLogger;
+import frc.robot.util.DataLogger.Priority;
+import frc.robot.util.Telemetry;
+import frc.robot.util.Telemetry.Tier;
 
 public class IntakeSubsystem extends SubsystemBase {
-  // Initialize intake SPARK. We will use open loop control for this.
-  private SparkFlex intakeMotor =
-      new SparkFlex(IntakeSubsystemConstants.kIntakeMotorCanId, MotorType.kBrushless);
-
-  // Initialize conveyor SPARK. We will use open loop control for this.
-  private SparkFlex conveyorMotor =
-      new SparkFlex(IntakeSubsystemConstants.kConveyorMotorCanId, MotorType.kBrushless);
-
-  /** Creates a new IntakeSubsystem. */
-  public IntakeSubsystem() {
-    /*
-     * Apply the appropriate configurations to the SPARKs.
-     *
-     * kResetSafeParameters is used to get the SPARK to a known state. This
-     * is useful in case the SPARK is replaced.
-     *
-     * kPersistParameters is used to ensure the configuration is not lost when
-     * the SPARK loses power. This is useful for power cycles that may occur
-     * mid-operation.
-     */
-    intakeMotor.configure(
-        Configs.IntakeSubsystem.intakeConfig,
-        ResetMode.kResetSafeParameters,
-        PersistMode.kPersistParameters);
-
-    conveyorMotor.configure(
-      Configs.IntakeSubsystem.conveyorConfig,
-      ResetMode.kResetSafeParameters,
-      PersistMode.kPersistParameters);
+  // Both rollers run open loop
+  private final RollerIO intakeIO;
+  private final RollerIO.RollerIOInputs intakeInputs = new RollerIO.RollerIOInputs();
+  private final RollerIO conveyorIO;
+  private final RollerIO.RollerIOInputs conveyorInputs = new RollerIO.RollerIOInputs();
+
+  private final int m_logChannel = DataLogger.registerStruct(
+      "Intake/State", "IntakeState", Priority.LOW,
+      "intakeAppliedOutput", "intakeCurrent", "conveyorAppliedOutput", "conveyorCurrent",
+      "intakeBaselineCurrent", "intakeCount");
+
+  // Pieces pulled in, counted from spikes of the intake current over its running average
+  private final IntakePieceDetector m_pieceDetector = new IntakePieceDetector();
+
+  // Whether the gated conveyor command is pushing pieces to the launcher right now
+  private boolean m_conveyorFeeding = false;
+
+  /**
+   * Creates a new IntakeSubsystem.
+   *
+   * @param intakeIO The intake roller hardware.
+   * @param conveyorIO The conveyor hardware.
+   */
+  public IntakeSubsystem(RollerIO intakeIO, RollerIO conveyorIO) {
+    this.intakeIO = intakeIO;
+    this.conveyorIO = conveyorIO;
+
+    // Display subsystem values
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Intake | Intake | Applied Output", () -> intakeInputs.appliedOutput);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Intake | Conveyor | Applied Output", () -> conveyorInputs.appliedOutput);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Intake | Pieces Pulled In", m_pieceDetector::getCount);
 
     System.out.println("---> IntakeSubsystem initialized");
   }
 
   /** Set the intake motor power in the range of [-1, 1]. */
   private void setIntakePower(double power) {
-    intakeMotor.set(power);
+    if (ActuatorGate.isOpen()) {
+      intakeIO.setPower(power);
+    }
   }
 
   /** Set the conveyor motor power in the range of [-1, 1]. */
   private void setConveyorPower(double power) {
-    conveyorMotor.set(power);
+    if (ActuatorGate.isOpen()) {
+      conveyorIO.setPower(power);
+    }
+  }
+
+  /** Returns how many pieces the intake has pulled in since the robot started. */
+  public long getIntakeCount() {
+    return m_pieceDetector.getCount();
+  }
+
+  /** Returns whether the intake is running backwards, ejecting whatever the robot holds. */
+  public boolean isOuttaking() {
+    return intakeInputs.appliedOutput < -PieceDetection.kMinIntakeOutput;
+  }
+
+  /** Returns the battery current the intake and conveyor draw, estimated from the motor outputs. */
+  public double getSupplyCurrentAmps() {
+    return Math.abs(intakeInputs.appliedOutput * intakeInputs.currentAmps)
+        + Math.abs(conveyorInputs.appliedOutput * conveyorInputs.currentAmps);
+  }
+
+  /** Changes the smart current limit of the intake and conveyor motors. */
+  public void setCurrentLimit(int amps) {
+    intakeIO.setCurrentLimit(amps);
+    conveyorIO.setCurrentLimit(amps);
   }
 
   /**
@@ -85,6 +114,27 @@ public class IntakeSubsystem extends SubsystemBase {
         }).withName("Feeding");
   }
 
+  /**
+   * Command to run the conveyor only while the launcher is taking pieces, so pieces are not pushed
+   * into a feeder that is waiting for the flywheel to recover. When the command is interrupted the
+   * conveyor stops.
+   *
+   * @param feeding Whether the launcher is taking pieces right now.
+   */
+  public Command runConveyorCommand(BooleanSupplier feeding) {
+    return this.startRun(
+        () -> m_conveyorFeeding = false,
+        () -> {
+          // Only send the conveyor a new power when the launcher starts or stops taking pieces
+          boolean run = feeding.getAsBoolean();
+          if (run != m_conveyorFeeding) {
+            m_conveyorFeeding = run;
+            this.setConveyorPower(run ? ConveyorSetpoints.kIntake : 0.0);
+          }
+        }).finallyDo(() -> this.setConveyorPower(0.0))
+        .withName("Feeding");
+  }
+
   /**
    * Command to reverse the intake motor and coveyor motors. When the command is interrupted, e.g. the button is
    * released, the motors will stop.
@@ -102,9 +152,20 @@ public class IntakeSubsystem extends SubsystemBase {
 
   @Override
   public void periodic() {
-    // Display subsystem values
-    SmartDashboard.putNumber("Intake | Intake | Applied Output", intakeMotor.getAppliedOutput());
-    SmartDashboard.putNumber("Intake | Conveyor | Applied Output", conveyorMotor.getAppliedOutput());
-  }
+    // Read every sensor once for this loop
+    intakeIO.updateInputs(intakeInputs);
+    conveyorIO.updateInputs(conveyorInputs);
+    m_pieceDetector.update(
+        Timer.getFPGATimestamp(), intakeInputs.appliedOutput, intakeInputs.currentAmps);
 
+    if (DataLogger.begin(m_logChannel)) {
+      DataLogger.put(intakeInputs.appliedOutput);
+      DataLogger.put(intakeInputs.currentAmps);
+      DataLogger.put(conveyorInputs.appliedOutput);
+      DataLogger.put(conveyorInputs.currentAmps);
+      DataLogger.put(m_pieceDetector.getBaselineAmps());
+      DataLogger.put(m_pieceDetector.getCount());
+      DataLogger.commit();
+    }
+  }
 }
@@ -4,85 +4,114 @@
 
 package frc.robot.subsystems;
 
-import com.revrobotics.PersistMode;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.ResetMode;
-import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkClosedLoopController;
-import com.revrobotics.spark.SparkFlex;
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
-import frc.robot.Configs;
-import frc.robot.LimelightHelpers;
+import frc.robot.Constants.FieldConstants;
+import frc.robot.Constants.LauncherSubsystemConstants;
 import frc.robot.Constants.LauncherSubsystemConstants.FeederSetpoints;
 import frc.robot.Constants.LauncherSubsystemConstants.FlywheelSetpoints;
-import frc.robot.Constants.LauncherSubsystemConstants;
+import frc.robot.Constants.LauncherSubsystemConstants.PreSpin;
+import frc.robot.util.ActuatorGate;
+import frc.robot.util.DataLogger;
+import frc.robot.util.DataLogger.Priority;
+import frc.robot.util.ShotMap;
+import frc.robot.util.Telemetry;
+import frc.robot.util.Telemetry.Tier;
 
 public class LauncherSubsystem extends SubsystemBase {
-  
-  // Initialize flywheel SPARKs. We will use MAXMotion velocity control for the flywheel, so we also need to
-  // initialize the closed loop controllers and encoders.
-  
-  private SparkFlex flywheelMotor =
-      new SparkFlex(LauncherSubsystemConstants.kFlywheelMotorCanId, MotorType.kBrushless);
-  private SparkClosedLoopController flywheelController = flywheelMotor.getClosedLoopController();
-  private RelativeEncoder flywheelEncoder = flywheelMotor.getEncoder();
+  // The flywheel uses MAXMotion velocity control, the feeder runs open loop
+  private final FlywheelIO flywheelIO;
+  private final FlywheelIO.FlywheelIOInputs flywheelInputs = new FlywheelIO.FlywheelIOInputs();
+  private final RollerIO feederIO;
+  private final RollerIO.RollerIOInputs feederInputs = new RollerIO.RollerIOInputs();
+
+  private final int m_logChannel = DataLogger.registerStruct(
+      "Launcher/State", "LauncherState", Priority.HIGH,
+      "flywheelTargetRpm", "flywheelRpm", "flywheelAppliedOutput", "flywheelCurrent",
+      "followerAppliedOutput", "followerCurrent", "feederAppliedOutput", "feederRpm",
+      "feederCurrent", "hubDistanceMeters", "shotRpm", "shotFeederPower", "feedGateOpen", "shots");
 
-// Initialize feeder SPARK. We will use open loop control for this so we don't need a closed loop
-  // controller like above.
+  // Member variables for subsystem state management
+  private double flywheelTargetVelocity = 0.0;
 
-  private SparkFlex feederMotor =
-      new SparkFlex(LauncherSubsystemConstants.kFeederMotorCanId, MotorType.kBrushless);
-      
-  private SparkFlex flywheelFollowerMotor =
-      new SparkFlex(LauncherSubsystemConstants.kFlywheelFollowerMotorCanId, MotorType.kBrushless);
-  private RelativeEncoder feederEncoder = feederMotor.getEncoder();
+  // Runs the feeder while launching, one piece per flywheel recovery
+  private final FeedMeter m_feedMeter;
 
-  
+  // Setpoints for a shot from where the robot is now, updated every loop
+  private final ShotMap m_shotMap = new ShotMap(
+      LauncherSubsystemConstants.kShotMapFile, FlywheelSetpoints.kLaunchRpm, FeederSetpoints.kFeed);
+  private final Supplier<Pose2d> m_poseSupplier;
+  private double m_hubDistanceMeters = 0.0;
+  private double m_shotRpm = FlywheelSetpoints.kLaunchRpm;
+  private double m_shotFeederPower = FeederSetpoints.kFeed;
+  private boolean m_inScoringZone = false;
 
-  // Member variables for subsystem state management
-  private double flywheelTargetVelocity = 0.0;
+  // This loop's Limelight readings
+  private final VisionSubsystem m_vision;
+
+  /**
+   * Creates a new LauncherSubsystem.
+   *
+   * @param flywheelIO The flywheel hardware.
+   * @param feederIO The feeder hardware.
+   * @param vision Source of the per-loop Limelight readings.
+   * @param poseSupplier The robot's estimated field pose, used to look up shots by distance.
+   */
+  public LauncherSubsystem(
+      FlywheelIO flywheelIO, RollerIO feederIO, VisionSubsystem vision,
+      Supplier<Pose2d> poseSupplier) {
+    this.flywheelIO = flywheelIO;
+    this.feederIO = feederIO;
+    m_vision = vision;
+    m_poseSupplier = poseSupplier;
+
+    // In simulation the flywheel only moves once per loop, so it is sampled from periodic()
+    m_feedMeter = new FeedMeter(flywheelIO, feederIO);
+    if (RobotBase.isReal()) {
+      m_feedMeter.start();
+    }
 
-  /** Creates a new LauncherSubsystem. */
-  public LauncherSubsystem() {
-    /*
-     * Apply the appropriate configurations to the SPARKs.
-     *
-     * kResetSafeParameters is used to get the SPARK to a known state. This
-     * is useful in case the SPARK is replaced.
-     *
-     * kPersistParameters is used to ensure the configuration is not lost when
-     * the SPARK loses power. This is useful for power cycles that may occur
-     * mid-operation.
-     */
-    flywheelMotor.configure(
-        Configs.LauncherSubsystem.flywheelConfig,
-        ResetMode.kResetSafeParameters,
-        PersistMode.kPersistParameters);
-    flywheelFollowerMotor.configure(
-        Configs.LauncherSubsystem.flywheelFollowerConfig,
-        ResetMode.kResetSafeParameters,
-        PersistMode.kPersistParameters);
-    feederMotor.configure(
-        Configs.LauncherSubsystem.feederConfig,
-        ResetMode.kResetSafeParameters,
-        PersistMode.kPersistParameters);
-
-    // Zero flywheel encoder on initialization
-    flywheelEncoder.setPosition(0);
+    // Display subsystem values
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Feeder | Applied Output", () -> feederInputs.appliedOutput);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Flywheel | Applied Output", () -> flywheelInputs.appliedOutput);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Flywheel | Current", () -> flywheelInputs.currentAmps);
+    Telemetry.addNumber(Tier.DEBUG, "Launcher | Flywheel Follower | Applied Output", () -> flywheelInputs.followerAppliedOutput);
+    Telemetry.addNumber(Tier.DEBUG, "Launcher | Flywheel Follower | Current", () -> flywheelInputs.followerCurrentAmps);
+
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Flywheel | Target Velocity", () -> flywheelTargetVelocity);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Flywheel | Actual Velocity", () -> flywheelInputs.velocityRpm);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Feeder | Flywheel | Actual Velocity", () -> feederInputs.velocityRpm);
+
+    Telemetry.addBoolean(Tier.CRITICAL, "Is Flywheel Spinning", isFlywheelSpinning);
+    Telemetry.addBoolean(Tier.DIAGNOSTIC, "Is Flywheel Stopped", isFlywheelStopped);
+
+    Telemetry.addBoolean(Tier.CRITICAL, "Is Launcher Ready", this::isAlignedWithTarget);
+
+    Telemetry.addNumber(Tier.CRITICAL, "Launcher | Hub Distance", () -> m_hubDistanceMeters);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Shot | Flywheel RPM", () -> m_shotRpm);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Shot | Feeder Power", () -> m_shotFeederPower);
+    Telemetry.addBoolean(Tier.DIAGNOSTIC, "Launcher | Shot Map Loaded", m_shotMap::isLoaded);
+    Telemetry.addBoolean(Tier.CRITICAL, "Launcher | In Scoring Zone", () -> m_inScoringZone);
+    Telemetry.addBoolean(Tier.DIAGNOSTIC, "Launcher | Feed Gate Open", m_feedMeter::isGateOpen);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Shots", m_feedMeter::getShotCount);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Launcher | Shot Recovery Time", m_feedMeter::getLastRecoverySeconds);
 
     System.out.println("---> LauncherSubsystem initialized");
   }
 
   private boolean isFlywheelAt(double velocity) {
-    return MathUtil.isNear(flywheelEncoder.getVelocity(), 
+    return MathUtil.isNear(flywheelInputs.velocityRpm, 
             velocity, FlywheelSetpoints.kVelocityTolerance);
   }
 
@@ -92,17 +121,20 @@ public class LauncherSubsystem extends SubsystemBase {
       () -> isFlywheelAt(-FlywheelSetpoints.kLaunchRpm)
   );
 
+  // Compared with the current target, since the shot map changes it with distance
   public final Trigger isFlywheelSpinning = new Trigger
   (
-    () -> isFlywheelAt(FlywheelSetpoints.kLaunchRpm)
+    () -> Math.abs(flywheelTargetVelocity) > FlywheelSetpoints.kVelocityTolerance
+        && isFlywheelAt(flywheelTargetVelocity)
   );
 
   public boolean isAlignedWithTarget() {
-    if (!LimelightHelpers.getTV("limelight-april")) {
+    VisionFrame frame = m_vision.getFrame();
+    if (!frame.hasTarget()) {
       return false;
     }
-    double tx = LimelightHelpers.getTX("limelight-april"); //Horizontal error
-    double tagID = LimelightHelpers.getFiducialID("limelight-april"); //retrieving tag id 
+    double tx = frame.getTx(); //Horizontal error
+    double tagID = frame.getTargetId(); //retrieving tag id 
     //(since there are multiple april tags, we will lock on to a few selective ones)
 
     boolean correctTagID = tagID == 10 || tagID == 26; //confirm locking on to correct tag
@@ -110,31 +142,38 @@ public class LauncherSubsystem extends SubsystemBase {
     return correctTagID && Math.abs(tx) < 3.0; // 3 degree tolerance
   }
 
+  /** Sets the flywheel to the shot map's speed for the robot's current distance to the hub. */
   public void setDynamicFlywheelRPM() {
-    double rpm = getDistanceFromHubAprilTag();
-    setFlywheelVelocity(rpm);
+    setFlywheelVelocity(m_shotRpm);
   }
 
- public double getDistanceFromHubAprilTag() {
-    if (!LimelightHelpers.getTV("limelight-april")) {
-        return FlywheelSetpoints.kLaunchRpm; // fallback RPM
-    }
+  /** Returns the distance in meters from the robot's center to its alliance's hub. */
+  public double getHubDistanceMeters() {
+    return m_hubDistanceMeters;
+  }
 
-    var tags = LimelightHelpers.getRawFiducials("limelight-april");
+  /** Returns the battery current both flywheel motors draw, estimated from their outputs. */
+  public double getFlywheelSupplyCurrentAmps() {
+    return Math.abs(flywheelInputs.appliedOutput * flywheelInputs.currentAmps)
+        + Math.abs(flywheelInputs.followerAppliedOutput * flywheelInputs.followerCurrentAmps);
+  }
 
-    if (tags.length == 0) {
-        return FlywheelSetpoints.kLaunchRpm;
-    }
+  /** Returns the battery current the feeder motor draws, estimated from its output. */
+  public double getFeederSupplyCurrentAmps() {
+    return Math.abs(feederInputs.appliedOutput * feederInputs.currentAmps);
+  }
 
-    // Only use distance if we see tag 10 or 26
-    if (tags[0].id != 10 && tags[0].id != 26) {
-        return FlywheelSetpoints.kLaunchRpm; // fallback RPM
-    }
+  /** Changes the smart current limit of both flywheel motors. */
+  public void setFlywheelCurrentLimit(int amps) {
+    flywheelIO.setCurrentLimit(amps);
+    m_feedMeter.setCurrentLimit(amps);
+  }
 
-    double distance = (39.37008 * tags[0].distToRobot); // inches
+  /** Changes the feeder motor's smart current limit. */
+  public void setFeederCurrentLimit(int amps) {
+    feederIO.setCurrentLimit(amps);
+  }
 
-    return distance;
-}
   /** 
    * Trigger: Is the flywheel stopped?
    */
@@ -146,82 +185,181 @@ public class LauncherSubsystem extends SubsystemBase {
    * setpoint.
    */
   private void setFlywheelVelocity(double velocity) {
-    flywheelController.setSetpoint(velocity, ControlType.kMAXMotionVelocityControl);
+    if (ActuatorGate.isOpen()) {
+      flywheelIO.setVelocity(velocity);
+    }
     flywheelTargetVelocity = velocity;
   }
 
-  /** Set the feeder motor power in the range of [-1, 1]. */
-  private void setFeederPower(double power) {
-    feederMotor.set(power);
+  /** Follows the shot map with the flywheel. */
+  private void trackShotRpm() {
+    trackFlywheelRpm(m_shotRpm);
+  }
+
+  /** Moves the flywheel to a changing speed, skipping changes too small to be worth a CAN frame. */
+  private void trackFlywheelRpm(double rpm) {
+    if (Math.abs(rpm - flywheelTargetVelocity) > FlywheelSetpoints.kRetargetRpm) {
+      setFlywheelVelocity(rpm);
+    }
+  }
+
+  /** Starts feeding at the shot map's power, letting each piece through once the flywheel is ready. */
+  private void startFeeding() {
+    if (ActuatorGate.isOpen()) {
+      m_feedMeter.arm(flywheelTargetVelocity, m_shotFeederPower);
+    }
+  }
+
+  /** Keeps the feed meter on the latest flywheel target and shot map feeder power. */
+  private void trackShotFeed() {
+    m_feedMeter.update(flywheelTargetVelocity, m_shotFeederPower);
+  }
+
+  /** Stop the flywheel motors. */
+  private void stopFlywheel() {
+    if (ActuatorGate.isOpen()) {
+      flywheelIO.stop();
+    }
+    flywheelTargetVelocity = 0.0;
+  }
+
+  /** Stop the feeder motor. */
+  private void stopFeeder() {
+    if (ActuatorGate.isOpen()) {
+      m_feedMeter.disarm();
+    }
+  }
+
+  /**
+   * Returns whether the feeder is letting pieces into the flywheel right now. Whatever stages pieces
+   * for the feeder should only push them while this is true.
+   */
+  public boolean isFeeding() {
+    return m_feedMeter.isGateOpen();
+  }
+
+  /** Returns whether a launch is feeding pieces, including while it waits for the flywheel. */
+  public boolean isLaunching() {
+    return m_feedMeter.isArmed();
+  }
+
+  /** Returns how many shots the flywheel has seen since the robot started. */
+  public long getShotCount() {
+    return m_feedMeter.getShotCount();
   }
   
   /**
-   * Command to run the flywheel motors. When the command is interrupted, e.g. the button is released,
-   * the motors will stop.
+   * Command to run the flywheel motors at the shot map's speed for the current distance. When the
+   * command is interrupted, e.g. the button is released, the motors will stop.
    */
   public Command runFlywheelCommand() {
-    return this.startEnd(
-        () -> {
-          this.setFlywheelVelocity(FlywheelSetpoints.kLaunchRpm);
-        },
-        () -> {
-          this.setFlywheelVelocity(0.0);
-        }).withName("Spinning Up Flywheel");
+    return this.startRun(this::setDynamicFlywheelRPM, this::trackShotRpm)
+        .finallyDo(() -> this.setFlywheelVelocity(0.0))
+        .withName("Spinning Up Flywheel");
   }
 
   /**
-   * Command to run the feeder and flywheel motors. When the command is interrupted, e.g. the button is released,
-   * the motors will stop.
+   * Command to run the feeder and flywheel motors at the shot map's setpoints for the current
+   * distance. When the command is interrupted, e.g. the button is released, the motors will stop.
    */
   public Command runFeederCommand() {
-    return this.startEnd(
+    return this.startRun(
         () -> {
-          this.setFlywheelVelocity(FlywheelSetpoints.kLaunchRpm);
-          this.setFeederPower(FeederSetpoints.kFeed);
+          this.setDynamicFlywheelRPM();
+          this.startFeeding();
         }, () -> {
+          this.trackShotRpm();
+          this.trackShotFeed();
+        }).finallyDo(() -> {
           this.setFlywheelVelocity(0.0);
-          this.setFeederPower(0.0);
+          this.stopFeeder();
         }).withName("Feeding");
   }
 
+  /**
+   * Default command that has the flywheel at speed before a launch is asked for. Inside the scoring
+   * zone the flywheel follows the shot map, so a launch can feed straight away. Outside it, the
+   * flywheel idles while the robot may hold pieces, and coasts down otherwise.
+   *
+   * @param holdingPieces Whether the robot may be carrying pieces.
+   */
+  public Command preSpinCommand(BooleanSupplier holdingPieces) {
+    return this.run(() -> {
+      if (m_inScoringZone) {
+        this.trackShotRpm();
+      } else if (holdingPieces.getAsBoolean()) {
+        this.trackFlywheelRpm(PreSpin.kIdleRpm);
+      } else if (flywheelTargetVelocity != 0.0) {
+        this.stopFlywheel();
+      }
+    }).withName("Pre-spinning Flywheel");
+  }
+
   /**
    * Meta-command to operate the Launcher. The Flywheel starts spinning up and when it reaches
-   * the desired speed it starts the Feeder.
+   * the desired speed it starts the Feeder. Both follow the shot map as the robot moves, and the
+   * feeder lets each piece through only once the flywheel has recovered from the last.
    */
   public Command runLauncherCommand() {
-    return this.startEnd(
-      () -> this.setFlywheelVelocity(FlywheelSetpoints.kLaunchRpm),
-      () -> flywheelMotor.stopMotor()).until(isFlywheelSpinning).andThen(
-      this.startEnd(
+    return this.startRun(this::setDynamicFlywheelRPM, this::trackShotRpm)
+      .until(isFlywheelSpinning).andThen(
+      this.startRun(
         () -> {
-          this.setFlywheelVelocity(FlywheelSetpoints.kLaunchRpm);
-          this.setFeederPower(FeederSetpoints.kFeed);
+          this.trackShotRpm();
+          this.startFeeding();
         }, () -> {
-          flywheelMotor.stopMotor();
-          feederMotor.stopMotor();
+          this.trackShotRpm();
+          this.trackShotFeed();
         })
-    ).withName("Launching");
+    ).finallyDo(() -> {
+      this.stopFlywheel();
+      this.stopFeeder();
+    }).withName("Launching");
   }
 
   @Override
   public void periodic() {
-    // Display subsystem values
-    SmartDashboard.putNumber("Launcher | Feeder | Applied Output", feederMotor.getAppliedOutput());
-    SmartDashboard.putNumber("Launcher | Flywheel | Applied Output", flywheelMotor.getAppliedOutput());
-    SmartDashboard.putNumber("Launcher | Flywheel | Current", flywheelMotor.getOutputCurrent());
-    SmartDashboard.putNumber("Launcher | Flywheel Follower | Applied Output", flywheelFollowerMotor.getAppliedOutput());
-    SmartDashboard.putNumber("Launcher | Flywheel Follower | Current", flywheelFollowerMotor.getOutputCurrent());
-
-    SmartDashboard.putNumber("Launcher | Flywheel | Target Velocity", flywheelTargetVelocity);
-    SmartDashboard.putNumber("Launcher | Flywheel | Actual Velocity", flywheelEncoder.getVelocity());
-    SmartDashboard.putNumber("Feeder | Flywheel | Actual Velocity", feederEncoder.getVelocity());
-
-    SmartDashboard.putBoolean("Is Flywheel Spinning", isFlywheelSpinning.getAsBoolean());
-    SmartDashboard.putBoolean("Is Flywheel Stopped", isFlywheelStopped.getAsBoolean());
-
-    SmartDashboard.putBoolean("Is Launcher Ready", isAlignedWithTarget());
+    // Read every sensor once for this loop
+    flywheelIO.updateInputs(flywheelInputs);
+    feederIO.updateInputs(feederInputs);
+    if (RobotBase.isSimulation()) {
+      m_feedMeter.sampleNow();
+    }
+    updateShot();
+
+    if (DataLogger.begin(m_logChannel)) {
+      DataLogger.put(flywheelTargetVelocity);
+      DataLogger.put(flywheelInputs.velocityRpm);
+      DataLogger.put(flywheelInputs.appliedOutput);
+      DataLogger.put(flywheelInputs.currentAmps);
+      DataLogger.put(flywheelInputs.followerAppliedOutput);
+      DataLogger.put(flywheelInputs.followerCurrentAmps);
+      DataLogger.put(feederInputs.appliedOutput);
+      DataLogger.put(feederInputs.velocityRpm);
+      DataLogger.put(feederInputs.currentAmps);
+      DataLogger.put(m_hubDistanceMeters);
+      DataLogger.put(m_shotRpm);
+      DataLogger.put(m_shotFeederPower);
+      DataLogger.put(m_feedMeter.isGateOpen());
+      DataLogger.put(m_feedMeter.getShotCount());
+      DataLogger.commit();
+    }
+  }
 
-    double distanceFromHubAprilTag = getDistanceFromHubAprilTag();
-    SmartDashboard.putNumber("Distance in inches from front of hub", distanceFromHubAprilTag);
+  /** Looks up the shot for the robot's distance to its hub from the latest pose estimate. */
+  private void updateShot() {
+    Optional<Alliance> alliance = DriverStation.getAlliance();
+    Translation2d hub = alliance.isPresent() && alliance.get() == Alliance.Red
+        ? FieldConstants.kRedHubCenter
+        : FieldConstants.kBlueHubCenter;
+    m_hubDistanceMeters = m_poseSupplier.get().getTranslation().getDistance(hub);
+    m_shotRpm = m_shotMap.getFlywheelRpm(m_hubDistanceMeters);
+    m_shotFeederPower = m_shotMap.getFeederPower(m_hubDistanceMeters);
+
+    if (m_hubDistanceMeters < PreSpin.kZoneEnterMeters) {
+      m_inScoringZone = true;
+    } else if (m_hubDistanceMeters > PreSpin.kZoneExitMeters) {
+      m_inScoringZone = false;
+    }
   }
 }
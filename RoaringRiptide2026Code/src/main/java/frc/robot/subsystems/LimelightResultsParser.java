@@ -0,0 +1,346 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import edu.wpi.first.networktables.StringEntry;
+import edu.wpi.first.networktables.TimestampedString;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.LimelightHelpers;
+import frc.robot.LimelightHelpers.LimelightResults;
+import frc.robot.LimelightHelpers.LimelightTarget_Fiducial;
+
+/**
+ * Parses a Limelight's JSON results on a background thread, so the main loop never pays for
+ * {@link LimelightHelpers#getLatestResults(String)}.
+ *
+ * <p>The thread polls the {@code json} topic and only parses when it has changed. Parsing uses
+ * Jackson's streaming parser and only picks out the fields the robot can use: the top level target
+ * and botpose values and the basic AprilTag target data. Everything else (retro, detector,
+ * classifier, barcode, IMU and hardware reports, per-tag 3D poses) is skipped without being
+ * decoded. Use {@link LimelightHelpers#getLatestResults(String)} if you need the full results.
+ *
+ * <p>Results are handed over with a triple buffer: the parser fills a spare copy and swaps it in,
+ * and the main loop swaps the newest copy out. Neither side ever waits on the other, and the copy
+ * returned by {@link #getLatestResults()} is not touched by the parser until the next call.
+ */
+public class LimelightResultsParser {
+  // Marks the shared slot as holding results the main loop has not picked up yet
+  private static final int kDirty = 4;
+  private static final int kIndexMask = 3;
+
+  // A representative results dump, used to load and JIT the parsing code before the match. Also
+  // used by the JMH benchmarks.
+  static final String kWarmupJson =
+      "{\"pID\":0,\"tl\":10.5,\"cl\":5.2,\"ts\":123456.7,\"ts_rio\":12.3,\"ts_nt\":1234567,"
+          + "\"ts_sys\":1234567,\"ts_us\":1234567,\"v\":1,\"pTYPE\":\"pipe_fiducial\","
+          + "\"tx\":1.5,\"ty\":-2.5,\"txnc\":1.4,\"tync\":-2.4,\"ta\":0.8,"
+          + "\"botpose\":[1,2,0,0,0,90],\"botpose_wpiblue\":[9.2,4.1,0,0,0,90],"
+          + "\"botpose_wpired\":[7.3,4.0,0,0,0,-90],\"botpose_tagcount\":2,\"botpose_span\":0.5,"
+          + "\"botpose_avgdist\":2.1,\"botpose_avgarea\":0.4,"
+          + "\"botpose_orb\":[1,2,0,0,0,90],\"botpose_orb_wpiblue\":[9.2,4.1,0,0,0,90],"
+          + "\"botpose_orb_wpired\":[7.3,4.0,0,0,0,-90],\"t6c_rs\":[0.3,0,0.5,0,20,0],"
+          + "\"Fiducial\":[{\"fID\":10,\"fam\":\"36H11C\",\"ta\":0.4,\"tx\":1.5,\"ty\":-2.5,"
+          + "\"txp\":400,\"typ\":300,\"tx_nocross\":1.4,\"ty_nocross\":-2.4,\"ts\":0,"
+          + "\"t6c_ts\":[0,0,-2,0,0,0],\"t6r_fs\":[9.2,4.1,0,0,0,90]}],"
+          + "\"Retro\":[],\"Detector\":[],\"Classifier\":[],\"Barcode\":[],"
+          + "\"imu\":{\"data\":[0,0,0,0,0,0,0,0,0,0],\"quat\":[1,0,0,0],\"yaw\":0}}";
+  private static final int kWarmupIterations = 200;
+
+  private static final JsonFactory kJsonFactory = new JsonFactory();
+
+  /** One buffer's worth of results, plus the fiducial objects it reuses. */
+  static class Slot {
+    final LimelightResults results = new LimelightResults();
+    final LimelightTarget_Fiducial[] fiducialPool =
+        new LimelightTarget_Fiducial[VisionConstants.kMaxFiducials];
+    final LimelightTarget_Fiducial[][] fiducialsByCount =
+        new LimelightTarget_Fiducial[VisionConstants.kMaxFiducials + 1][];
+
+    Slot() {
+      for (int i = 0; i < VisionConstants.kMaxFiducials; i++) {
+        fiducialPool[i] = new LimelightTarget_Fiducial();
+      }
+      for (int count = 0; count <= VisionConstants.kMaxFiducials; count++) {
+        fiducialsByCount[count] = Arrays.copyOf(fiducialPool, count);
+      }
+    }
+  }
+
+  private final StringEntry m_jsonEntry;
+  private final Notifier m_notifier;
+  private final double m_periodSeconds;
+
+  private final Slot[] m_slots = {new Slot(), new Slot(), new Slot()};
+  // Owned by the parser thread
+  private int m_back = 0;
+  private long m_lastChange = 0;
+  // Shared; the index of the most recently published slot, plus kDirty if it is new
+  private final AtomicInteger m_middle = new AtomicInteger(1);
+  // Owned by the main loop
+  private int m_front = 2;
+
+  // Owned by the main loop, only while warming up
+  private final Slot m_warmupSlot = new Slot();
+  private int m_warmupCalls = 0;
+
+  private volatile long m_parseCount = 0;
+  private volatile long m_errorCount = 0;
+
+  /**
+   * Creates the parser. Call {@link #start()} to begin parsing.
+   *
+   * @param limelightName Name of the Limelight to read.
+   * @param frequencyHz How often to check for new results.
+   */
+  public LimelightResultsParser(String limelightName, double frequencyHz) {
+    m_jsonEntry = LimelightHelpers.getLimelightStringEntry(limelightName, "json");
+    m_periodSeconds = 1.0 / frequencyHz;
+
+    m_notifier = new Notifier(this::poll);
+    m_notifier.setName("LimelightResultsParser");
+  }
+
+  /**
+   * Runs the streaming parser once on sample results, and the full LimelightHelpers parser every
+   * tenth call, until their classes are loaded and compiled. Call once per disabled loop from the
+   * main loop; calls after the first {@value #kWarmupIterations} do nothing.
+   */
+  public void warmup() {
+    if (m_warmupCalls >= kWarmupIterations) {
+      return;
+    }
+    try {
+      parse(kWarmupJson, m_warmupSlot);
+    } catch (IOException e) {
+      DriverStation.reportWarning("LimelightResultsParser warmup failed: " + e.getMessage(), false);
+      m_warmupCalls = kWarmupIterations;
+      return;
+    }
+    if (m_warmupCalls % 10 == 0) {
+      LimelightHelpers.parseResults(kWarmupJson);
+    }
+    m_warmupCalls++;
+  }
+
+  /** Starts parsing in the background. */
+  public void start() {
+    m_notifier.startPeriodic(m_periodSeconds);
+  }
+
+  /** Stops parsing. */
+  public void stop() {
+    m_notifier.stop();
+  }
+
+  /**
+   * Returns the newest parsed results. Never blocks. Only call this from the main loop; the
+   * returned object stays valid until the next call.
+   */
+  public LimelightResults getLatestResults() {
+    if ((m_middle.get() & kDirty) != 0) {
+      m_front = m_middle.getAndSet(m_front) & kIndexMask;
+    }
+    return m_slots[m_front].results;
+  }
+
+  /** Returns how many results have been parsed. */
+  public long getParseCount() {
+    return m_parseCount;
+  }
+
+  /** Returns how many results could not be parsed. */
+  public long getErrorCount() {
+    return m_errorCount;
+  }
+
+  /** Parses the json topic if it has changed. Runs on the parser thread. */
+  private void poll() {
+    long lastChange = m_jsonEntry.getLastChange();
+    if (lastChange == m_lastChange) {
+      return;
+    }
+    TimestampedString json = m_jsonEntry.getAtomic();
+    m_lastChange = json.timestamp;
+    if (json.value.isEmpty()) {
+      return;
+    }
+
+    Slot slot = m_slots[m_back];
+    long start = System.nanoTime();
+    try {
+      parse(json.value, slot);
+    } catch (IOException e) {
+      // Keep publishing the last good results
+      m_errorCount++;
+      return;
+    }
+    slot.results.latency_jsonParse = (System.nanoTime() - start) * 1e-6;
+
+    // Publish the filled slot and take back whichever one was shared
+    m_back = m_middle.getAndSet(m_back | kDirty) & kIndexMask;
+    m_parseCount++;
+  }
+
+  /** Parses a results dump into {@code slot}, reusing its objects. */
+  static void parse(String json, Slot slot) throws IOException {
+    LimelightResults results = slot.results;
+    clear(slot);
+
+    try (JsonParser parser = kJsonFactory.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("expected a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        switch (field) {
+          case "pID" -> results.pipelineID = parser.getValueAsDouble();
+          case "tl" -> results.latency_pipeline = parser.getValueAsDouble();
+          case "cl" -> results.latency_capture = parser.getValueAsDouble();
+          case "ts" -> results.timestamp_LIMELIGHT_publish = parser.getValueAsDouble();
+          case "ts_rio" -> results.timestamp_RIOFPGA_capture = parser.getValueAsDouble();
+          case "ts_nt" -> results.timestamp_nt = parser.getValueAsLong();
+          case "ts_sys" -> results.timestamp_sys = parser.getValueAsLong();
+          case "ts_us" -> results.timestamp_us = parser.getValueAsLong();
+          case "v" -> results.valid = value == JsonToken.VALUE_TRUE || parser.getValueAsInt() != 0;
+          case "pTYPE" -> results.pipelineType = parser.getValueAsString("");
+          case "tx" -> results.tx = parser.getValueAsDouble();
+          case "ty" -> results.ty = parser.getValueAsDouble();
+          case "txnc" -> results.tx_nocrosshair = parser.getValueAsDouble();
+          case "tync" -> results.ty_nocrosshair = parser.getValueAsDouble();
+          case "ta" -> results.ta = parser.getValueAsDouble();
+          case "botpose" -> results.botpose = readDoubleArray(parser, results.botpose);
+          case "botpose_wpired" ->
+              results.botpose_wpired = readDoubleArray(parser, results.botpose_wpired);
+          case "botpose_wpiblue" ->
+              results.botpose_wpiblue = readDoubleArray(parser, results.botpose_wpiblue);
+          case "botpose_tagcount" -> results.botpose_tagcount = parser.getValueAsDouble();
+          case "botpose_span" -> results.botpose_span = parser.getValueAsDouble();
+          case "botpose_avgdist" -> results.botpose_avgdist = parser.getValueAsDouble();
+          case "botpose_avgarea" -> results.botpose_avgarea = parser.getValueAsDouble();
+          case "botpose_orb" -> results.botpose_orb = readDoubleArray(parser, results.botpose_orb);
+          case "botpose_orb_wpiblue" ->
+              results.botpose_orb_wpiblue = readDoubleArray(parser, results.botpose_orb_wpiblue);
+          case "botpose_orb_wpired" ->
+              results.botpose_orb_wpired = readDoubleArray(parser, results.botpose_orb_wpired);
+          case "t6c_rs" ->
+              results.camerapose_robotspace = readDoubleArray(parser, results.camerapose_robotspace);
+          case "Fiducial" -> results.targets_Fiducials = readFiducials(parser, slot);
+          default -> parser.skipChildren();
+        }
+      }
+    }
+  }
+
+  /** Resets the fields we parse, so nothing is left over from the last results in this slot. */
+  private static void clear(Slot slot) {
+    LimelightResults results = slot.results;
+    results.error = null;
+    results.pipelineID = 0;
+    results.latency_pipeline = 0;
+    results.latency_capture = 0;
+    results.timestamp_LIMELIGHT_publish = 0;
+    results.timestamp_RIOFPGA_capture = 0;
+    results.timestamp_nt = 0;
+    results.timestamp_sys = 0;
+    results.timestamp_us = 0;
+    results.valid = false;
+    results.tx = 0;
+    results.ty = 0;
+    results.tx_nocrosshair = 0;
+    results.ty_nocrosshair = 0;
+    results.ta = 0;
+    results.botpose_tagcount = 0;
+    results.botpose_span = 0;
+    results.botpose_avgdist = 0;
+    results.botpose_avgarea = 0;
+    Arrays.fill(results.botpose, 0);
+    Arrays.fill(results.botpose_wpired, 0);
+    Arrays.fill(results.botpose_wpiblue, 0);
+    Arrays.fill(results.botpose_orb, 0);
+    Arrays.fill(results.botpose_orb_wpiblue, 0);
+    Arrays.fill(results.botpose_orb_wpired, 0);
+    Arrays.fill(results.camerapose_robotspace, 0);
+    results.targets_Fiducials = slot.fiducialsByCount[0];
+  }
+
+  /**
+   * Reads a number array into {@code current} if it is the right size, otherwise into a new
+   * array. Botpose arrays are always the same size, so in practice this does not allocate.
+   */
+  private static double[] readDoubleArray(JsonParser parser, double[] current) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return current;
+    }
+    double[] out = current;
+    int count = 0;
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (count == out.length) {
+        out = Arrays.copyOf(out, Math.max(6, out.length * 2));
+      }
+      out[count++] = parser.getValueAsDouble();
+    }
+    return count == out.length ? out : Arrays.copyOf(out, count);
+  }
+
+  private static LimelightTarget_Fiducial[] readFiducials(JsonParser parser, Slot slot)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return slot.fiducialsByCount[0];
+    }
+    int count = 0;
+    while (parser.nextToken() == JsonToken.START_OBJECT) {
+      if (count == VisionConstants.kMaxFiducials) {
+        parser.skipChildren();
+        continue;
+      }
+      LimelightTarget_Fiducial target = slot.fiducialPool[count++];
+      clear(target);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        switch (field) {
+          case "fID" -> target.fiducialID = parser.getValueAsDouble();
+          case "fam" -> target.fiducialFamily = parser.getValueAsString();
+          case "ta" -> target.ta = parser.getValueAsDouble();
+          case "tx" -> target.tx = parser.getValueAsDouble();
+          case "ty" -> target.ty = parser.getValueAsDouble();
+          case "txp" -> target.tx_pixels = parser.getValueAsDouble();
+          case "typ" -> target.ty_pixels = parser.getValueAsDouble();
+          case "tx_nocross" -> target.tx_nocrosshair = parser.getValueAsDouble();
+          case "ty_nocross" -> target.ty_nocrosshair = parser.getValueAsDouble();
+          case "ts" -> target.ts = parser.getValueAsDouble();
+          default -> parser.skipChildren();
+        }
+      }
+    }
+    return slot.fiducialsByCount[count];
+  }
+
+  private static void clear(LimelightTarget_Fiducial target) {
+    target.fiducialID = 0;
+    target.fiducialFamily = null;
+    target.ta = 0;
+    target.tx = 0;
+    target.ty = 0;
+    target.tx_pixels = 0;
+    target.ty_pixels = 0;
+    target.tx_nocrosshair = 0;
+    target.ty_nocrosshair = 0;
+    target.ts = 0;
+  }
+}
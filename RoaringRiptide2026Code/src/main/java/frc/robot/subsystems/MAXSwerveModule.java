@@ -8,83 +8,109 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 
-import com.revrobotics.spark.SparkClosedLoopController;
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.spark.SparkFlex;
-import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-import com.revrobotics.AbsoluteEncoder;
-import com.revrobotics.PersistMode;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.ResetMode;
-
-import frc.robot.Configs;
-
+import frc.robot.util.ActuatorGate;
+import frc.robot.util.MutableModulePosition;
+import frc.robot.util.MutableModuleState;
+import frc.robot.util.SwerveKinematicsMath;
+
+/**
+ * Swerve module logic: chassis angular offset, state optimization and conversions. The hardware
+ * (or its simulation) is behind a {@link ModuleIO}.
+ */
 public class MAXSwerveModule {
-  private final SparkFlex m_drivingSpark;
-  final SparkMax m_turningSpark;
-
-  private final RelativeEncoder m_drivingEncoder;
-  private final AbsoluteEncoder m_turningEncoder;
-
-  private final SparkClosedLoopController m_drivingClosedLoopController;
-  private final SparkClosedLoopController m_turningClosedLoopController;
+  private final ModuleIO m_io;
+  private final ModuleIO.ModuleIOInputs m_inputs = new ModuleIO.ModuleIOInputs();
 
   private double m_chassisAngularOffset = 0;
-  private SwerveModuleState m_desiredState = new SwerveModuleState(0.0, new Rotation2d());
+  private double m_desiredSpeedMetersPerSecond = 0.0;
+  private double m_desiredAngleRadians = 0.0;
+  // Scratch state for the offset and optimize math, reused every call
+  private final MutableModuleState m_correctedState = new MutableModuleState();
 
   /**
-   * Constructs a MAXSwerveModule and configures the driving and turning motor,
-   * encoder, and PID controller. This configuration is specific to the REV
-   * MAXSwerve Module built with SPARK MAXs and a Through Bore Encoder V2.
+   * Constructs a swerve module.
+   *
+   * @param io The module hardware, e.g. {@link ModuleIOSpark}.
+   * @param chassisAngularOffset Angle of the module relative to the chassis in radians.
    */
-  public MAXSwerveModule(int drivingCANId, int turningCANId, double chassisAngularOffset) {
-    // We need to 
-    m_drivingSpark = new SparkFlex(drivingCANId, MotorType.kBrushless);
-    m_turningSpark = new SparkMax(turningCANId, MotorType.kBrushless);
-
-    m_drivingEncoder = m_drivingSpark.getEncoder();
-    m_turningEncoder = m_turningSpark.getAbsoluteEncoder();
-
-    m_drivingClosedLoopController = m_drivingSpark.getClosedLoopController();
-    m_turningClosedLoopController = m_turningSpark.getClosedLoopController();
+  public MAXSwerveModule(ModuleIO io, double chassisAngularOffset) {
+    m_io = io;
+    m_chassisAngularOffset = chassisAngularOffset;
+    m_io.updateInputs(m_inputs);
+    m_desiredAngleRadians = m_inputs.turnPositionRadians;
+    m_io.resetDriveEncoder();
+  }
 
-    // Apply the respective configurations to the SPARKS. Reset parameters before
-    // applying the configuration to bring the SPARK to a known good state. Persist
-    // the settings to the SPARK to avoid losing them on a power cycle.
-    m_drivingSpark.configure(Configs.MAXSwerveModule.drivingConfig, ResetMode.kResetSafeParameters,
-        PersistMode.kPersistParameters);
-    m_turningSpark.configure(Configs.MAXSwerveModule.turningConfig, ResetMode.kResetSafeParameters,
-        PersistMode.kPersistParameters);
+  /** Reads the module's sensors. Call once per loop, before using the module. */
+  public void periodic() {
+    m_io.updateInputs(m_inputs);
+  }
 
-    m_chassisAngularOffset = chassisAngularOffset;
-    m_desiredState.angle = new Rotation2d(m_turningEncoder.getPosition());
-    m_drivingEncoder.setPosition(0);
+  /** Returns this loop's sensor readings. Treat them as read-only. */
+  public ModuleIO.ModuleIOInputs getInputs() {
+    return m_inputs;
   }
 
   /**
-   * Returns the current state of the module.
+   * Returns the current state of the module. This allocates; use
+   * {@link #getState(MutableModuleState)} from code that runs every loop.
    *
    * @return The current state of the module.
    */
   public SwerveModuleState getState() {
-    // Apply chassis angular offset to the encoder position to get the position
-    // relative to the chassis.
-    return new SwerveModuleState(m_drivingEncoder.getVelocity(),
-        new Rotation2d(m_turningEncoder.getPosition() - m_chassisAngularOffset));
+    return new SwerveModuleState(
+        m_inputs.driveVelocityMetersPerSecond,
+        new Rotation2d(m_inputs.turnPositionRadians - m_chassisAngularOffset));
+  }
+
+  /**
+   * Fills in the current state of the module without allocating.
+   *
+   * @param out The state to fill in.
+   */
+  public void getState(MutableModuleState out) {
+    out.set(
+        m_inputs.driveVelocityMetersPerSecond,
+        m_inputs.turnPositionRadians - m_chassisAngularOffset);
   }
 
   /**
-   * Returns the current position of the module.
+   * Returns the current position of the module. This allocates; use
+   * {@link #getPosition(MutableModulePosition)} from code that runs every loop.
    *
    * @return The current position of the module.
    */
   public SwerveModulePosition getPosition() {
+    return new SwerveModulePosition(getDrivePositionMeters(), new Rotation2d(getAngleRadians()));
+  }
+
+  /**
+   * Fills in the current position of the module without allocating.
+   *
+   * @param out The position to fill in.
+   */
+  public void getPosition(MutableModulePosition out) {
+    out.set(getDrivePositionMeters(), getAngleRadians());
+  }
+
+  /**
+   * Returns the distance the module's wheel has driven. Safe to call from the odometry thread.
+   *
+   * @return The driven distance in meters.
+   */
+  public double getDrivePositionMeters() {
+    return m_io.getDrivePositionMeters();
+  }
+
+  /**
+   * Returns the module angle relative to the chassis. Safe to call from the odometry thread.
+   *
+   * @return The module angle in radians.
+   */
+  public double getAngleRadians() {
     // Apply chassis angular offset to the encoder position to get the position
     // relative to the chassis.
-    return new SwerveModulePosition(
-        m_drivingEncoder.getPosition(),
-        new Rotation2d(m_turningEncoder.getPosition() - m_chassisAngularOffset));
+    return m_io.getTurnPositionRadians() - m_chassisAngularOffset;
   }
 
   /**
@@ -93,23 +119,72 @@ public class MAXSwerveModule {
    * @param desiredState Desired state with speed and angle.
    */
   public void setDesiredState(SwerveModuleState desiredState) {
+    setDesiredState(desiredState.speedMetersPerSecond, desiredState.angle.getRadians());
+  }
+
+  /**
+   * Sets the desired state for the module without allocating.
+   *
+   * @param desiredState Desired state with speed and angle.
+   */
+  public void setDesiredState(MutableModuleState desiredState) {
+    setDesiredState(desiredState.speedMetersPerSecond, desiredState.angleRadians);
+  }
+
+  /**
+   * Sets the desired speed and angle for the module.
+   *
+   * @param speedMetersPerSecond Desired wheel speed.
+   * @param angleRadians Desired module angle relative to the chassis.
+   */
+  public void setDesiredState(double speedMetersPerSecond, double angleRadians) {
     // Apply chassis angular offset to the desired state.
-    SwerveModuleState correctedDesiredState = new SwerveModuleState();
-    correctedDesiredState.speedMetersPerSecond = desiredState.speedMetersPerSecond;
-    correctedDesiredState.angle = desiredState.angle.plus(Rotation2d.fromRadians(m_chassisAngularOffset));
+    m_correctedState.set(speedMetersPerSecond, angleRadians + m_chassisAngularOffset);
 
     // Optimize the reference state to avoid spinning further than 90 degrees.
-    correctedDesiredState.optimize(new Rotation2d(m_turningEncoder.getPosition()));
+    SwerveKinematicsMath.optimize(m_correctedState, m_inputs.turnPositionRadians);
+
+    // Command driving and turning motors towards their respective setpoints.
+    if (ActuatorGate.isOpen()) {
+      m_io.setDriveVelocity(m_correctedState.speedMetersPerSecond);
+      m_io.setTurnPosition(m_correctedState.angleRadians);
+    }
+
+    m_desiredSpeedMetersPerSecond = speedMetersPerSecond;
+    m_desiredAngleRadians = angleRadians;
+  }
+
+  /**
+   * Fills in the last state commanded with {@link #setDesiredState}, relative to the chassis.
+   *
+   * @param out The state to fill in.
+   */
+  public void getDesiredState(MutableModuleState out) {
+    out.set(m_desiredSpeedMetersPerSecond, m_desiredAngleRadians);
+  }
+
+  /** Returns the battery current the driving motor draws, estimated from its output. */
+  public double getDriveSupplyCurrentAmps() {
+    return Math.abs(m_inputs.driveAppliedOutput * m_inputs.driveCurrentAmps);
+  }
 
-    // Command driving and turning SPARKS towards their respective setpoints.
-    m_drivingClosedLoopController.setSetpoint(correctedDesiredState.speedMetersPerSecond, ControlType.kVelocity);
-    m_turningClosedLoopController.setSetpoint(correctedDesiredState.angle.getRadians(), ControlType.kPosition);
+  /** Returns the battery current the turning motor draws, estimated from its output. */
+  public double getTurningSupplyCurrentAmps() {
+    return Math.abs(m_inputs.turnAppliedOutput * m_inputs.turnCurrentAmps);
+  }
+
+  /** Changes the driving motor's smart current limit. */
+  public void setDriveCurrentLimit(int amps) {
+    m_io.setDriveCurrentLimit(amps);
+  }
 
-    m_desiredState = desiredState;
+  /** Changes the turning motor's smart current limit. */
+  public void setTurningCurrentLimit(int amps) {
+    m_io.setTurningCurrentLimit(amps);
   }
 
   /** Zeroes all the SwerveModule encoders. */
   public void resetEncoders() {
-    m_drivingEncoder.setPosition(0);
+    m_io.resetDriveEncoder();
   }
 }
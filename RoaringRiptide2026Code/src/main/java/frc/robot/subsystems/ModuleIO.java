@@ -0,0 +1,53 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/**
+ * Hardware interface for one swerve module. {@link MAXSwerveModule} holds the module logic and
+ * talks to the hardware (or a simulation of it) only through this interface.
+ */
+public interface ModuleIO {
+  /** Everything the module reads from its hardware, refreshed once per loop. */
+  class ModuleIOInputs {
+    public double drivePositionMeters = 0.0;
+    public double driveVelocityMetersPerSecond = 0.0;
+    public double driveAppliedOutput = 0.0;
+    public double driveCurrentAmps = 0.0;
+
+    /** Raw absolute encoder angle, before the chassis angular offset is applied. */
+    public double turnPositionRadians = 0.0;
+    public double turnVelocityRadiansPerSecond = 0.0;
+    public double turnAppliedOutput = 0.0;
+    public double turnCurrentAmps = 0.0;
+  }
+
+  /** Reads every sensor into {@code inputs}. Called once per loop from the main thread. */
+  default void updateInputs(ModuleIOInputs inputs) {}
+
+  /** Returns the drive wheel distance in meters. Must be safe to call from the odometry thread. */
+  default double getDrivePositionMeters() {
+    return 0.0;
+  }
+
+  /** Returns the raw turning angle in radians. Must be safe to call from the odometry thread. */
+  default double getTurnPositionRadians() {
+    return 0.0;
+  }
+
+  /** Runs the drive motor at a closed loop velocity. */
+  default void setDriveVelocity(double metersPerSecond) {}
+
+  /** Runs the turning motor to a closed loop raw angle in radians. */
+  default void setTurnPosition(double radians) {}
+
+  /** Zeroes the drive encoder. */
+  default void resetDriveEncoder() {}
+
+  /** Changes the drive motor's smart current limit, without waiting for it to be applied. */
+  default void setDriveCurrentLimit(int amps) {}
+
+  /** Changes the turning motor's smart current limit, without waiting for it to be applied. */
+  default void setTurningCurrentLimit(int amps) {}
+}
@@ -0,0 +1,67 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.sim.SwerveModuleSim;
+
+/**
+ * Simulated MAXSwerve module. The physics, and the software stand-ins for the SPARK closed loops,
+ * live in a {@link SwerveModuleSim} that {@link frc.robot.sim.DrivetrainSim} steps.
+ */
+public class ModuleIOSim implements ModuleIO {
+  private final SwerveModuleSim m_sim;
+
+  /**
+   * Creates a simulated module.
+   *
+   * @param sim The module's physics model.
+   */
+  public ModuleIOSim(SwerveModuleSim sim) {
+    m_sim = sim;
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    inputs.drivePositionMeters = m_sim.getDrivePositionMeters();
+    inputs.driveVelocityMetersPerSecond = m_sim.getDriveVelocityMetersPerSecond();
+    inputs.driveAppliedOutput = m_sim.getDriveAppliedOutput();
+    inputs.driveCurrentAmps = m_sim.getDriveCurrentAmps();
+
+    inputs.turnPositionRadians = m_sim.getTurnPositionRadians();
+    inputs.turnVelocityRadiansPerSecond = m_sim.getTurnVelocityRadiansPerSecond();
+    inputs.turnAppliedOutput = m_sim.getTurnAppliedOutput();
+    inputs.turnCurrentAmps = m_sim.getTurnCurrentAmps();
+  }
+
+  @Override
+  public double getDrivePositionMeters() {
+    return m_sim.getDrivePositionMeters();
+  }
+
+  @Override
+  public double getTurnPositionRadians() {
+    return m_sim.getTurnPositionRadians();
+  }
+
+  @Override
+  public void setDriveVelocity(double metersPerSecond) {
+    m_sim.setDriveVelocity(metersPerSecond);
+  }
+
+  @Override
+  public void setTurnPosition(double radians) {
+    m_sim.setTurnPosition(radians);
+  }
+
+  @Override
+  public void resetDriveEncoder() {
+    m_sim.resetDriveEncoder();
+  }
+
+  @Override
+  public void setDriveCurrentLimit(int amps) {
+    m_sim.setDriveCurrentLimit(amps);
+  }
+}
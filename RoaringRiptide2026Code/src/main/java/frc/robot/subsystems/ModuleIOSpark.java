@@ -0,0 +1,114 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.revrobotics.AbsoluteEncoder;
+import com.revrobotics.PersistMode;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.ResetMode;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkFlex;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.SparkFlexConfig;
+import com.revrobotics.spark.config.SparkMaxConfig;
+
+import frc.robot.Configs;
+import frc.robot.util.CanBusBudget;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.SparkSignalPolicy;
+
+/**
+ * MAXSwerve module hardware: a SPARK Flex driving motor and a SPARK MAX turning motor with a
+ * Through Bore Encoder V2.
+ */
+public class ModuleIOSpark implements ModuleIO {
+  private final SparkFlex m_drivingSpark;
+  private final SparkMax m_turningSpark;
+
+  private final RelativeEncoder m_drivingEncoder;
+  private final AbsoluteEncoder m_turningEncoder;
+
+  private final SparkClosedLoopController m_drivingClosedLoopController;
+  private final SparkClosedLoopController m_turningClosedLoopController;
+
+  // Reused for every current limit change, so changing the limits does not allocate
+  private final SparkFlexConfig m_drivingLimitConfig = new SparkFlexConfig();
+  private final SparkMaxConfig m_turningLimitConfig = new SparkMaxConfig();
+
+  /** Creates the SPARKs and configures the driving and turning motor, encoder, and PID. */
+  public ModuleIOSpark(int drivingCANId, int turningCANId) {
+    m_drivingSpark = new SparkFlex(drivingCANId, MotorType.kBrushless);
+    m_turningSpark = new SparkMax(turningCANId, MotorType.kBrushless);
+
+    m_drivingEncoder = m_drivingSpark.getEncoder();
+    m_turningEncoder = m_turningSpark.getAbsoluteEncoder();
+
+    m_drivingClosedLoopController = m_drivingSpark.getClosedLoopController();
+    m_turningClosedLoopController = m_turningSpark.getClosedLoopController();
+
+    // Apply the respective configurations to the SPARKS, in the background. Parameters are reset
+    // and persisted only when the configuration changed since it was last persisted.
+    SparkConfigurator.configure(m_drivingSpark, Configs.MAXSwerveModule.drivingConfig);
+    SparkConfigurator.configure(m_turningSpark, Configs.MAXSwerveModule.turningConfig);
+
+    CanBusBudget.addSpark(drivingCANId, SparkSignalPolicy.DRIVE);
+    CanBusBudget.addSpark(turningCANId, SparkSignalPolicy.TURN);
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    inputs.drivePositionMeters = m_drivingEncoder.getPosition();
+    inputs.driveVelocityMetersPerSecond = m_drivingEncoder.getVelocity();
+    inputs.driveAppliedOutput = m_drivingSpark.getAppliedOutput();
+    inputs.driveCurrentAmps = m_drivingSpark.getOutputCurrent();
+
+    inputs.turnPositionRadians = m_turningEncoder.getPosition();
+    inputs.turnVelocityRadiansPerSecond = m_turningEncoder.getVelocity();
+    inputs.turnAppliedOutput = m_turningSpark.getAppliedOutput();
+    inputs.turnCurrentAmps = m_turningSpark.getOutputCurrent();
+  }
+
+  @Override
+  public double getDrivePositionMeters() {
+    return m_drivingEncoder.getPosition();
+  }
+
+  @Override
+  public double getTurnPositionRadians() {
+    return m_turningEncoder.getPosition();
+  }
+
+  @Override
+  public void setDriveVelocity(double metersPerSecond) {
+    m_drivingClosedLoopController.setSetpoint(metersPerSecond, ControlType.kVelocity);
+  }
+
+  @Override
+  public void setTurnPosition(double radians) {
+    m_turningClosedLoopController.setSetpoint(radians, ControlType.kPosition);
+  }
+
+  @Override
+  public void resetDriveEncoder() {
+    m_drivingEncoder.setPosition(0);
+  }
+
+  @Override
+  public void setDriveCurrentLimit(int amps) {
+    // Not persisted, so a power cycle goes back to the configured limit
+    m_drivingLimitConfig.smartCurrentLimit(amps);
+    m_drivingSpark.configureAsync(
+        m_drivingLimitConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+
+  @Override
+  public void setTurningCurrentLimit(int amps) {
+    m_turningLimitConfig.smartCurrentLimit(amps);
+    m_turningSpark.configureAsync(
+        m_turningLimitConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+}
@@ -0,0 +1,179 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.RealTimeConstants;
+import frc.robot.util.ThreadPriorities;
+
+/**
+ * Samples the gyro and all four swerve modules together on a dedicated thread, much faster than
+ * the 50 Hz main loop.
+ *
+ * <p>Samples go into a single-producer/single-consumer ring buffer. The odometry thread is the
+ * only writer and the main loop is the only reader, so no locks are needed: the writer fills a slot
+ * and then publishes it by bumping the write sequence. If the main loop falls more than a full ring
+ * behind, the oldest samples are dropped.
+ *
+ * <p>Once started, this thread is the only caller of {@link GyroIO#updateInputs}. The rest of the
+ * code should read the heading from the drained samples instead of reading the gyro itself.
+ */
+public class OdometryThread {
+  /** One timestamped reading of the gyro and all module encoders. */
+  public static class Sample {
+    public double timestampSeconds;
+    public double yawDegrees;
+    public double yawRateDegreesPerSecond;
+    public final double[] drivePositionsMeters;
+    public final double[] anglesRadians;
+
+    public Sample(int moduleCount) {
+      drivePositionsMeters = new double[moduleCount];
+      anglesRadians = new double[moduleCount];
+    }
+  }
+
+  // Must be a power of two. 32 samples at 250 Hz is 128 ms, a lot more than one 20 ms loop.
+  private static final int kCapacity = 32;
+  private static final int kMask = kCapacity - 1;
+
+  private final MAXSwerveModule[] m_modules;
+  private final int m_moduleCount;
+  private final GyroIO m_gyro;
+  // Only touched by the odometry thread
+  private final GyroIO.GyroIOInputs m_gyroInputs = new GyroIO.GyroIOInputs();
+  private final Notifier m_notifier;
+  private final double m_periodSeconds;
+
+  // Ring storage, laid out as parallel primitive arrays so writing a sample never allocates.
+  private final double[] m_timestamps = new double[kCapacity];
+  private final double[] m_yawDegrees = new double[kCapacity];
+  private final double[] m_yawRates = new double[kCapacity];
+  private final double[] m_drivePositions;
+  private final double[] m_angles;
+
+  // Only touched by the odometry thread
+  private boolean m_priorityRaised = false;
+
+  private final AtomicLong m_writeSequence = new AtomicLong();
+  private long m_readSequence = 0;
+  private long m_droppedSamples = 0;
+
+  /**
+   * Creates the odometry thread. Call {@link #start()} once the devices are configured.
+   *
+   * @param gyro The gyro to sample.
+   * @param frequencyHz How often to sample.
+   * @param modules The swerve modules to sample, in kinematics order.
+   */
+  public OdometryThread(GyroIO gyro, double frequencyHz, MAXSwerveModule... modules) {
+    m_modules = modules;
+    m_moduleCount = modules.length;
+    m_drivePositions = new double[kCapacity * m_moduleCount];
+    m_angles = new double[kCapacity * m_moduleCount];
+
+    m_gyro = gyro;
+    m_periodSeconds = 1.0 / frequencyHz;
+
+    m_notifier = new Notifier(this::sampleOnThread);
+    m_notifier.setName("OdometryThread");
+  }
+
+  /** Starts sampling. */
+  public void start() {
+    m_notifier.startPeriodic(m_periodSeconds);
+  }
+
+  /** Stops sampling. */
+  public void stop() {
+    m_notifier.stop();
+  }
+
+  /**
+   * Takes one sample on the calling thread. Use this instead of {@link #start()} in simulation: the
+   * simulated sensors only move once per loop, so sampling from the main loop loses nothing and
+   * keeps runs repeatable.
+   */
+  public void sampleNow() {
+    sample();
+  }
+
+  /** Runs on the odometry thread. Raises its priority on the first run, then samples. */
+  private void sampleOnThread() {
+    if (!m_priorityRaised) {
+      m_priorityRaised = true;
+      ThreadPriorities.raiseCurrentThread(RealTimeConstants.kOdometryPriority);
+    }
+    sample();
+  }
+
+  /** Reads the sensors once and publishes the result. Runs on the odometry thread. */
+  private void sample() {
+    m_gyro.updateInputs(m_gyroInputs);
+
+    long sequence = m_writeSequence.get();
+    int slot = (int) (sequence & kMask);
+    int base = slot * m_moduleCount;
+
+    m_timestamps[slot] = RobotController.getFPGATime() / 1e6;
+    m_yawDegrees[slot] = m_gyroInputs.yawDegrees;
+    m_yawRates[slot] = m_gyroInputs.yawRateDegreesPerSecond;
+    for (int i = 0; i < m_moduleCount; i++) {
+      m_drivePositions[base + i] = m_modules[i].getDrivePositionMeters();
+      m_angles[base + i] = m_modules[i].getAngleRadians();
+    }
+
+    // Publish the slot. lazySet is an ordered store, so the reader never sees the new sequence
+    // before the data above.
+    m_writeSequence.lazySet(sequence + 1);
+  }
+
+  /**
+   * Copies the oldest unread sample into {@code out}. Only call this from the main loop.
+   *
+   * @param out Holder to copy the sample into.
+   * @return false if there are no new samples.
+   */
+  public boolean poll(Sample out) {
+    while (true) {
+      long written = m_writeSequence.get();
+      if (m_readSequence >= written) {
+        return false;
+      }
+      if (written - m_readSequence >= kCapacity) {
+        // The writer lapped us; skip to the oldest sample that is still intact.
+        long skipTo = written - kCapacity + 1;
+        m_droppedSamples += skipTo - m_readSequence;
+        m_readSequence = skipTo;
+      }
+
+      int slot = (int) (m_readSequence & kMask);
+      int base = slot * m_moduleCount;
+      out.timestampSeconds = m_timestamps[slot];
+      out.yawDegrees = m_yawDegrees[slot];
+      out.yawRateDegreesPerSecond = m_yawRates[slot];
+      for (int i = 0; i < m_moduleCount; i++) {
+        out.drivePositionsMeters[i] = m_drivePositions[base + i];
+        out.anglesRadians[i] = m_angles[base + i];
+      }
+
+      // If the writer got all the way around to this slot while we were copying, the copy may be
+      // torn. Throw it away and try again.
+      if (m_writeSequence.get() - m_readSequence >= kCapacity) {
+        continue;
+      }
+      m_readSequence++;
+      return true;
+    }
+  }
+
+  /** Returns how many samples were dropped because the main loop fell behind. */
+  public long getDroppedSamples() {
+    return m_droppedSamples;
+  }
+}
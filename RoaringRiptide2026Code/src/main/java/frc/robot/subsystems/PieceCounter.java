@@ -0,0 +1,176 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.IntakeSubsystemConstants.PieceDetection;
+import frc.robot.util.DataLogger;
+import frc.robot.util.DataLogger.Priority;
+import frc.robot.util.Telemetry;
+import frc.robot.util.Telemetry.Tier;
+
+/**
+ * Keeps count of the pieces in the hopper without a beam break: pieces the intake current shows
+ * being pulled in, minus shots the flywheel shows leaving. Running the outtake empties the count.
+ *
+ * <p>Counting from current signatures can miss or double count, so {@link #isEmpty()} does not
+ * trust the count alone. While a launch is feeding, the hopper is empty once the count is 0 and no
+ * further shot followed the launch's last one for a short time with the flywheel recovered and the
+ * feed gate open, or once no shot at all came for longer. A launch that has not fired yet only ends
+ * on the longer time, so pieces the intake missed still get their chance. Launch commands end on it and keep their timeouts only as a cap.
+ *
+ * <p>Construct this after the intake and launcher, so it runs after they have read their motors.
+ */
+public class PieceCounter extends SubsystemBase {
+  private final LongSupplier m_intakeCount;
+  private final LongSupplier m_shotCount;
+  private final BooleanSupplier m_outtaking;
+  private final BooleanSupplier m_launching;
+  private final BooleanSupplier m_gateOpen;
+
+  private int m_count = PieceDetection.kPreloadedPieces;
+  private long m_lastIntakeCount;
+  private long m_lastShotCount;
+
+  // When the current launch started feeding or last fired, whichever is later, and its shots
+  private boolean m_wasLaunching = false;
+  private double m_lastShotSeconds = 0.0;
+  private long m_launchShots = 0;
+  // When the feed gate last opened, after the flywheel recovered from a shot
+  private boolean m_wasGateOpen = false;
+  private double m_gateOpenedSeconds = 0.0;
+  private boolean m_empty = false;
+
+  private final int m_logChannel = DataLogger.registerStruct(
+      "Pieces/State", "PieceState", Priority.LOW,
+      "count", "intakes", "shots", "empty");
+
+  /**
+   * Creates the piece counter. The robot starts with its preloaded pieces.
+   *
+   * @param intake The intake subsystem, which counts pieces pulled in.
+   * @param launcher The launcher subsystem, which counts shots.
+   */
+  public PieceCounter(IntakeSubsystem intake, LauncherSubsystem launcher) {
+    this(
+        intake::getIntakeCount, launcher::getShotCount, intake::isOuttaking,
+        launcher::isLaunching, launcher::isFeeding);
+  }
+
+  /**
+   * Creates the piece counter from the readings it needs.
+   *
+   * @param intakeCount Pieces pulled in since the robot started.
+   * @param shotCount Shots since the robot started.
+   * @param outtaking Whether the intake is ejecting pieces.
+   * @param launching Whether a launch is feeding.
+   * @param gateOpen Whether the launcher is letting pieces in, i.e. is not waiting for the
+   *     flywheel to recover.
+   */
+  PieceCounter(
+      LongSupplier intakeCount, LongSupplier shotCount, BooleanSupplier outtaking,
+      BooleanSupplier launching, BooleanSupplier gateOpen) {
+    m_intakeCount = intakeCount;
+    m_shotCount = shotCount;
+    m_outtaking = outtaking;
+    m_launching = launching;
+    m_gateOpen = gateOpen;
+    m_lastIntakeCount = intakeCount.getAsLong();
+    m_lastShotCount = shotCount.getAsLong();
+
+    Telemetry.addNumber(Tier.CRITICAL, "Pieces Held", () -> m_count);
+    Telemetry.addBoolean(Tier.DIAGNOSTIC, "Pieces | Hopper Empty", () -> m_empty);
+  }
+
+  /** Returns how many pieces the robot is thought to hold. */
+  public int getCount() {
+    return m_count;
+  }
+
+  /** Returns whether the robot is thought to hold any pieces. */
+  public boolean hasPieces() {
+    return m_count > 0;
+  }
+
+  /** Overrides the count, e.g. after loading pieces by hand. */
+  public void setCount(int count) {
+    m_count = Math.max(0, Math.min(count, PieceDetection.kHopperCapacity));
+  }
+
+  /** Returns whether a launch has fed every piece out. Always false while not launching. */
+  public boolean isEmpty() {
+    return m_empty;
+  }
+
+  @Override
+  public void periodic() {
+    update(
+        Timer.getFPGATimestamp(), m_intakeCount.getAsLong(), m_shotCount.getAsLong(),
+        m_outtaking.getAsBoolean(), m_launching.getAsBoolean(), m_gateOpen.getAsBoolean());
+  }
+
+  /**
+   * Takes one loop's readings.
+   *
+   * @param nowSeconds When the readings were taken.
+   * @param intakes Pieces pulled in since the robot started.
+   * @param shots Shots since the robot started.
+   * @param outtaking Whether the intake is ejecting pieces.
+   * @param launching Whether a launch is feeding.
+   * @param gateOpen Whether the launcher is letting pieces in.
+   */
+  void update(
+      double nowSeconds, long intakes, long shots, boolean outtaking, boolean launching,
+      boolean gateOpen) {
+    long fired = shots - m_lastShotCount;
+
+    if (outtaking) {
+      m_count = 0;
+    } else {
+      setCount(m_count + (int) (intakes - m_lastIntakeCount) - (int) fired);
+    }
+    m_lastIntakeCount = intakes;
+    m_lastShotCount = shots;
+
+    if (launching && !m_wasLaunching) {
+      m_lastShotSeconds = nowSeconds;
+      m_launchShots = 0;
+    }
+    if (fired > 0) {
+      m_lastShotSeconds = nowSeconds;
+      m_launchShots += fired;
+    }
+    m_wasLaunching = launching;
+    if (gateOpen && !m_wasGateOpen) {
+      m_gateOpenedSeconds = nowSeconds;
+    }
+    m_wasGateOpen = gateOpen;
+
+    // A count of 0 only ends the launch once it has fired, in case the intake missed pieces, and
+    // only once the gate has been open for the confirm time: while the flywheel recovers, no piece
+    // could have come out
+    double quietSeconds = nowSeconds - m_lastShotSeconds;
+    double openSeconds = nowSeconds - Math.max(m_lastShotSeconds, m_gateOpenedSeconds);
+    boolean firedOut = m_count == 0 && m_launchShots > 0 && gateOpen
+        && openSeconds > PieceDetection.kEmptyConfirmSeconds;
+    m_empty = launching && (firedOut || quietSeconds > PieceDetection.kNoShotEmptySeconds);
+    if (m_empty) {
+      // Whatever the count said, nothing is coming out
+      m_count = 0;
+    }
+
+    if (DataLogger.begin(m_logChannel)) {
+      DataLogger.put(m_count);
+      DataLogger.put(intakes);
+      DataLogger.put(shots);
+      DataLogger.put(m_empty);
+      DataLogger.commit();
+    }
+  }
+}
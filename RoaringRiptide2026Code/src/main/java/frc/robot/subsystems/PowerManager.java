@@ -0,0 +1,250 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.IntConsumer;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.util.DataLogger;
+import frc.robot.util.DataLogger.Priority;
+import frc.robot.util.Telemetry;
+import frc.robot.util.Telemetry.Tier;
+
+/**
+ * Cuts motor current limits when the robot is about to brown out, and only then.
+ *
+ * <p>Every loop the battery is modeled as an open circuit voltage behind a resistance, fitted to
+ * the measured voltage and the battery current the motors draw, estimated from their outputs. As
+ * long as the voltage that draw predicts stays above the brownout voltage plus a margin, every
+ * motor keeps its configured limit. Once it would fall below, the difference is taken from the
+ * lowest priority motors first, the intake, then the feeder, the flywheel, the drive and last the
+ * turning motors, each by only as much as it is drawing and never below its minimum. A cut is sent
+ * right away; limits come back up one step per loop after a short delay, while the measured draw
+ * leaves room for it. While the drive current is cut, joystick driving is slowed down to match.
+ *
+ * <p>Construct this after the subsystems it manages, so it runs after they have read their motors.
+ */
+public class PowerManager extends SubsystemBase {
+  /** One group of motors that share a current limit. */
+  private static final class Consumer {
+    final String name;
+    final int motorCount;
+    final int minAmps;
+    final int maxAmps;
+    final DoubleSupplier supplyAmps;
+    final IntConsumer setLimit;
+    int limitAmps;
+    double lastCutSeconds = Double.NEGATIVE_INFINITY;
+    // Battery current all its motors drew this loop
+    double amps = 0.0;
+
+    Consumer(
+        String name, int motorCount, int minAmps, int maxAmps, DoubleSupplier supplyAmps,
+        IntConsumer setLimit) {
+      this.name = name;
+      this.motorCount = motorCount;
+      this.minAmps = minAmps;
+      this.maxAmps = maxAmps;
+      this.supplyAmps = supplyAmps;
+      this.setLimit = setLimit;
+      limitAmps = maxAmps;
+    }
+  }
+
+  private final DriveSubsystem m_drive;
+  // Highest priority first
+  private final Consumer[] m_consumers;
+  private final Consumer m_driveConsumer;
+  private final double m_minVolts;
+
+  // Exponentially weighted fit of voltage = open circuit voltage - resistance * current
+  private boolean m_modelStarted = false;
+  private double m_meanAmps = 0.0;
+  private double m_meanVolts = 0.0;
+  private double m_currentVariance = 0.0;
+  private double m_covariance = 0.0;
+  private double m_resistanceOhms = PowerConstants.kNominalResistanceOhms;
+  private double m_openCircuitVolts = 12.0;
+
+  private double m_volts = 0.0;
+  private double m_totalAmps = 0.0;
+  private double m_predictedVolts = 0.0;
+  private double m_budgetAmps = 0.0;
+  private double m_speedScale = 1.0;
+
+  private final int m_logChannel = DataLogger.registerStruct(
+      "Power/State", "PowerState", Priority.LOW,
+      "volts", "totalAmps", "resistanceOhms", "openCircuitVolts", "predictedVolts", "budgetAmps",
+      "turningLimit", "driveLimit", "flywheelLimit", "feederLimit", "intakeLimit", "speedScale");
+
+  /**
+   * Creates the power manager. Every motor starts at its configured limit.
+   *
+   * @param drive The drive subsystem.
+   * @param launcher The launcher subsystem.
+   * @param intake The intake subsystem.
+   */
+  public PowerManager(DriveSubsystem drive, LauncherSubsystem launcher, IntakeSubsystem intake) {
+    m_drive = drive;
+
+    m_driveConsumer = new Consumer(
+        "Drive", 4, PowerConstants.kDriveMinCurrentAmps, PowerConstants.kDriveMaxCurrentAmps,
+        drive::getDriveSupplyCurrentAmps, drive::setDriveCurrentLimit);
+    m_consumers = new Consumer[] {
+      new Consumer(
+          "Turning", 4, PowerConstants.kTurningMinCurrentAmps,
+          PowerConstants.kTurningMaxCurrentAmps, drive::getTurningSupplyCurrentAmps,
+          drive::setTurningCurrentLimit),
+      m_driveConsumer,
+      new Consumer(
+          "Flywheel", 2, PowerConstants.kFlywheelMinCurrentAmps,
+          PowerConstants.kFlywheelMaxCurrentAmps, launcher::getFlywheelSupplyCurrentAmps,
+          launcher::setFlywheelCurrentLimit),
+      new Consumer(
+          "Feeder", 1, PowerConstants.kFeederMinCurrentAmps, PowerConstants.kFeederMaxCurrentAmps,
+          launcher::getFeederSupplyCurrentAmps, launcher::setFeederCurrentLimit),
+      new Consumer(
+          "Intake", 2, PowerConstants.kIntakeMinCurrentAmps, PowerConstants.kIntakeMaxCurrentAmps,
+          intake::getSupplyCurrentAmps, intake::setCurrentLimit)
+    };
+    m_minVolts = RobotController.getBrownoutVoltage() + PowerConstants.kBrownoutMarginVolts;
+
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Power/Total Current", () -> m_totalAmps);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Power/Budget", () -> m_budgetAmps);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Power/Predicted Voltage", () -> m_predictedVolts);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Power/Battery Resistance mOhm", () -> m_resistanceOhms * 1000);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "Power/Drive Speed Scale", () -> m_speedScale);
+    for (Consumer consumer : m_consumers) {
+      Telemetry.addNumber(Tier.DEBUG, "Power/" + consumer.name + " Limit", () -> consumer.limitAmps);
+    }
+  }
+
+  /** Returns the most current the robot can draw right now without browning out. */
+  public double getBudgetAmps() {
+    return m_budgetAmps;
+  }
+
+  @Override
+  public void periodic() {
+    m_volts = RobotController.getBatteryVoltage();
+    m_totalAmps = PowerConstants.kBaselineCurrentAmps;
+    for (Consumer consumer : m_consumers) {
+      consumer.amps = consumer.supplyAmps.getAsDouble();
+      m_totalAmps += consumer.amps;
+    }
+    updateModel(m_volts, m_totalAmps);
+
+    // The most the robot can draw before the predicted voltage crosses the minimum, and if the
+    // battery is already too low, enough less than what is being drawn now to bring it back up.
+    // Anything over that is cut; with the draw under it, nothing is.
+    m_predictedVolts = m_openCircuitVolts - m_resistanceOhms * m_totalAmps;
+    m_budgetAmps = (m_openCircuitVolts - m_minVolts) / m_resistanceOhms;
+    if (m_volts < m_minVolts) {
+      m_budgetAmps = Math.min(m_budgetAmps, m_totalAmps - (m_minVolts - m_volts) / m_resistanceOhms);
+    }
+    m_budgetAmps = Math.max(0.0, m_budgetAmps);
+
+    double nowSeconds = Timer.getFPGATimestamp();
+    double excessAmps = m_totalAmps - m_budgetAmps;
+    if (excessAmps > 0.0) {
+      cut(excessAmps, nowSeconds);
+    } else {
+      raise(-excessAmps, nowSeconds);
+    }
+
+    m_speedScale = m_driveConsumer.limitAmps < m_driveConsumer.maxAmps
+        ? MathUtil.clamp(
+            (double) m_driveConsumer.limitAmps / m_driveConsumer.maxAmps,
+            PowerConstants.kMinDriveSpeedScale, 1.0)
+        : 1.0;
+    m_drive.setSpeedScale(m_speedScale);
+
+    if (DataLogger.begin(m_logChannel)) {
+      DataLogger.put(m_volts);
+      DataLogger.put(m_totalAmps);
+      DataLogger.put(m_resistanceOhms);
+      DataLogger.put(m_openCircuitVolts);
+      DataLogger.put(m_predictedVolts);
+      DataLogger.put(m_budgetAmps);
+      for (Consumer consumer : m_consumers) {
+        DataLogger.put(consumer.limitAmps);
+      }
+      DataLogger.put(m_speedScale);
+      DataLogger.commit();
+    }
+  }
+
+  private void updateModel(double volts, double amps) {
+    if (!m_modelStarted) {
+      m_modelStarted = true;
+      m_meanAmps = amps;
+      m_meanVolts = volts;
+    }
+    double alpha = PowerConstants.kModelAlpha;
+    double deltaAmps = amps - m_meanAmps;
+    double deltaVolts = volts - m_meanVolts;
+    m_meanAmps += alpha * deltaAmps;
+    m_meanVolts += alpha * deltaVolts;
+    m_currentVariance = (1 - alpha) * (m_currentVariance + alpha * deltaAmps * deltaAmps);
+    m_covariance = (1 - alpha) * (m_covariance + alpha * deltaAmps * deltaVolts);
+
+    // The slope is only meaningful once the current has actually moved around
+    if (m_currentVariance > PowerConstants.kMinCurrentVariance) {
+      m_resistanceOhms = MathUtil.clamp(
+          -m_covariance / m_currentVariance,
+          PowerConstants.kMinResistanceOhms, PowerConstants.kMaxResistanceOhms);
+    }
+    m_openCircuitVolts = m_meanVolts + m_resistanceOhms * m_meanAmps;
+  }
+
+  /**
+   * Takes {@code excessAmps} from the lowest priority motors first. Each group's limit drops to
+   * below what its motors draw now by their share of the excess, so a group that draws little
+   * gives up little, an idle one nothing, and none goes below its minimum.
+   */
+  private void cut(double excessAmps, double nowSeconds) {
+    for (int i = m_consumers.length - 1; i >= 0 && excessAmps > 0.0; i--) {
+      Consumer consumer = m_consumers[i];
+      double ampsPerMotor = consumer.amps / consumer.motorCount;
+      double targetAmps = ampsPerMotor - excessAmps / consumer.motorCount;
+      int limit = (int) Math.floor(targetAmps / PowerConstants.kLimitStepAmps)
+          * PowerConstants.kLimitStepAmps;
+      limit = Math.max(consumer.minAmps, Math.min(limit, consumer.limitAmps));
+      // A group drawing less than the new limit would give nothing up, so leave it alone
+      if (limit < consumer.limitAmps && ampsPerMotor > limit) {
+        excessAmps -= Math.max(0.0, ampsPerMotor - limit) * consumer.motorCount;
+        consumer.lastCutSeconds = nowSeconds;
+        consumer.limitAmps = limit;
+        consumer.setLimit.accept(limit);
+      }
+    }
+  }
+
+  /**
+   * Gives back one step of limit to the highest priority groups that were cut, as long as each
+   * raise fits in {@code headroomAmps} even if the motors draw all of it.
+   */
+  private void raise(double headroomAmps, double nowSeconds) {
+    for (Consumer consumer : m_consumers) {
+      if (consumer.limitAmps >= consumer.maxAmps
+          || nowSeconds - consumer.lastCutSeconds < PowerConstants.kRaiseDelaySeconds) {
+        continue;
+      }
+      int limit = Math.min(consumer.limitAmps + PowerConstants.kLimitStepAmps, consumer.maxAmps);
+      double raiseAmps = (limit - consumer.limitAmps) * consumer.motorCount;
+      if (raiseAmps > headroomAmps) {
+        return;
+      }
+      headroomAmps -= raiseAmps;
+      consumer.limitAmps = limit;
+      consumer.setLimit.accept(limit);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+/** Hardware interface for a single open loop roller, such as the intake, conveyor or feeder. */
+public interface RollerIO {
+  /** Everything read from the roller motor, refreshed once per loop. */
+  class RollerIOInputs {
+    public double velocityRpm = 0.0;
+    public double appliedOutput = 0.0;
+    public double currentAmps = 0.0;
+  }
+
+  /** Reads every sensor into {@code inputs}. */
+  default void updateInputs(RollerIOInputs inputs) {}
+
+  /** Sets the motor power in the range of [-1, 1]. */
+  default void setPower(double power) {}
+
+  /** Stops the motor. */
+  default void stop() {
+    setPower(0.0);
+  }
+
+  /** Changes the motor's smart current limit, without waiting for it to be applied. */
+  default void setCurrentLimit(int amps) {}
+}
@@ -0,0 +1,64 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.Constants.SimConstants;
+
+/** Simulated open loop roller on one NEO Vortex. */
+public class RollerIOSim implements RollerIO {
+  private static final double kNominalVoltage = 12.0;
+
+  private final DCMotor m_motor = DCMotor.getNeoVortex(1);
+  private final DCMotorSim m_sim;
+  private final double m_dtSeconds;
+  private double m_power = 0.0;
+  private double m_currentLimitAmps = Double.POSITIVE_INFINITY;
+
+  /**
+   * Creates a simulated roller.
+   *
+   * @param dtSeconds How much simulated time passes per {@link #updateInputs} call.
+   */
+  public RollerIOSim(double dtSeconds) {
+    m_dtSeconds = dtSeconds;
+    m_sim = new DCMotorSim(
+        LinearSystemId.createDCMotorSystem(m_motor, SimConstants.kRollerMoiKgMetersSquared, 1.0),
+        m_motor);
+  }
+
+  @Override
+  public void updateInputs(RollerIOInputs inputs) {
+    // Smart current limit: keep the voltage across the winding under limit * resistance
+    double backEmfVolts = m_sim.getAngularVelocityRadPerSec() / m_motor.KvRadPerSecPerVolt;
+    double maxDeltaVolts = m_currentLimitAmps * m_motor.rOhms;
+    double volts = MathUtil.clamp(
+        m_power * kNominalVoltage, backEmfVolts - maxDeltaVolts, backEmfVolts + maxDeltaVolts);
+    m_sim.setInputVoltage(volts);
+    m_sim.update(m_dtSeconds);
+
+    inputs.velocityRpm = m_sim.getAngularVelocityRPM();
+    inputs.appliedOutput = volts / kNominalVoltage;
+    inputs.currentAmps = Math.abs(m_sim.getCurrentDrawAmps());
+  }
+
+  @Override
+  public void setPower(double power) {
+    m_power = MathUtil.clamp(power, -1.0, 1.0);
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    m_currentLimitAmps = amps;
+  }
+
+  /** Returns the motor's current draw, for the battery simulation. */
+  public double getCurrentDrawAmps() {
+    return Math.abs(m_sim.getCurrentDrawAmps());
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.revrobotics.PersistMode;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.ResetMode;
+import com.revrobotics.spark.SparkFlex;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.config.SparkFlexConfig;
+
+import frc.robot.util.CanBusBudget;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.SparkSignalPolicy;
+
+/** A roller driven open loop by one SPARK Flex. */
+public class RollerIOSpark implements RollerIO {
+  private final SparkFlex m_motor;
+  private final RelativeEncoder m_encoder;
+  // Reused for every current limit change, so changing the limit does not allocate
+  private final SparkFlexConfig m_limitConfig = new SparkFlexConfig();
+
+  /**
+   * Creates and configures the SPARK.
+   *
+   * @param canId CAN ID of the SPARK Flex.
+   * @param config Configuration to apply, from {@link frc.robot.Configs}.
+   * @param signalPolicy The signal policy applied to {@code config}, for the CAN bus budget.
+   */
+  public RollerIOSpark(int canId, SparkFlexConfig config, SparkSignalPolicy signalPolicy) {
+    m_motor = new SparkFlex(canId, MotorType.kBrushless);
+    m_encoder = m_motor.getEncoder();
+
+    // Reset and persist only if the configuration changed, see SparkConfigurator
+    SparkConfigurator.configure(m_motor, config);
+
+    CanBusBudget.addSpark(canId, signalPolicy);
+  }
+
+  @Override
+  public void updateInputs(RollerIOInputs inputs) {
+    inputs.velocityRpm = m_encoder.getVelocity();
+    inputs.appliedOutput = m_motor.getAppliedOutput();
+    inputs.currentAmps = m_motor.getOutputCurrent();
+  }
+
+  @Override
+  public void setPower(double power) {
+    m_motor.set(power);
+  }
+
+  @Override
+  public void stop() {
+    m_motor.stopMotor();
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    // Not persisted, so a power cycle goes back to the configured limit
+    m_limitConfig.smartCurrentLimit(amps);
+    m_motor.configureAsync(
+        m_limitConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+}
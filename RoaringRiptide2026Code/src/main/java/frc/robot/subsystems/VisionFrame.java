@@ -0,0 +1,93 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import frc.robot.LimelightHelpers;
+
+/**
+ * Everything the robot reads from the Limelight, sampled once per loop by {@link VisionSubsystem}.
+ *
+ * <p>The same instance is refilled every loop, so there is nothing to allocate, but only the
+ * vision subsystem can change it. Everyone else gets a read-only, consistent view of the current
+ * loop.
+ */
+public class VisionFrame {
+  private double m_timestampSeconds = 0.0;
+  private boolean m_hasTarget = false;
+  private double m_tx = 0.0;
+  private int m_targetId = -1;
+  private int m_fiducialCount = 0;
+  private int m_primaryFiducialId = -1;
+  private double m_primaryFiducialDistanceMeters = 0.0;
+  private LimelightHelpers.PoseEstimate m_poseEstimate = new LimelightHelpers.PoseEstimate();
+
+  VisionFrame() {}
+
+  /** Fills in the frame. Only the vision subsystem calls this. */
+  void update(
+      double timestampSeconds,
+      boolean hasTarget,
+      double tx,
+      int targetId,
+      LimelightHelpers.RawFiducial[] fiducials,
+      LimelightHelpers.PoseEstimate poseEstimate) {
+    m_timestampSeconds = timestampSeconds;
+    m_hasTarget = hasTarget;
+    m_tx = tx;
+    m_targetId = targetId;
+    m_fiducialCount = fiducials.length;
+    if (fiducials.length > 0) {
+      m_primaryFiducialId = fiducials[0].id;
+      m_primaryFiducialDistanceMeters = fiducials[0].distToRobot;
+    } else {
+      m_primaryFiducialId = -1;
+      m_primaryFiducialDistanceMeters = 0.0;
+    }
+    m_poseEstimate = poseEstimate != null ? poseEstimate : m_poseEstimate;
+  }
+
+  /** Returns the FPGA time the frame was sampled at, in seconds. */
+  public double getTimestampSeconds() {
+    return m_timestampSeconds;
+  }
+
+  /** Returns whether the Limelight has a valid target (tv). */
+  public boolean hasTarget() {
+    return m_hasTarget;
+  }
+
+  /** Returns the horizontal offset to the primary target in degrees (tx). */
+  public double getTx() {
+    return m_tx;
+  }
+
+  /** Returns the ID of the primary AprilTag (tid), or -1 if there is none. */
+  public int getTargetId() {
+    return m_targetId;
+  }
+
+  /** Returns how many raw fiducials were reported. */
+  public int getFiducialCount() {
+    return m_fiducialCount;
+  }
+
+  /** Returns the ID of the first raw fiducial, or -1 if there is none. */
+  public int getPrimaryFiducialId() {
+    return m_primaryFiducialId;
+  }
+
+  /** Returns the distance from the robot to the first raw fiducial in meters. */
+  public double getPrimaryFiducialDistanceMeters() {
+    return m_primaryFiducialDistanceMeters;
+  }
+
+  /**
+   * Returns the MegaTag1 blue alliance pose estimate. Treat it as read-only; it belongs to the
+   * frame.
+   */
+  public LimelightHelpers.PoseEstimate getPoseEstimate() {
+    return m_poseEstimate;
+  }
+}
@@ -0,0 +1,114 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.LimelightHelpers;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.Constants.WarmupConstants;
+import frc.robot.util.DataLogger;
+import frc.robot.util.DataLogger.Priority;
+import frc.robot.util.LoopProfiler;
+
+/**
+ * Reads every Limelight value the robot uses exactly once per loop and keeps it in a
+ * {@link VisionFrame}.
+ *
+ * <p>Construct this before any subsystem that reads the frame. The scheduler runs subsystem
+ * periodics in registration order, so that way the frame is always fresh when the others use it.
+ */
+public class VisionSubsystem extends SubsystemBase {
+  private static final int kPeriodicStage = LoopProfiler.registerStage("VisionSubsystem.periodic");
+
+  private final String m_limelightName;
+  private final VisionFrame m_frame = new VisionFrame();
+
+  // Decode targets reused every loop. LimelightHelpers only re-decodes them when the Limelight
+  // publishes new data.
+  private final LimelightHelpers.RawFiducialBuffer m_fiducials =
+      new LimelightHelpers.RawFiducialBuffer(VisionConstants.kMaxFiducials);
+  private final LimelightHelpers.PoseEstimate m_poseEstimate = new LimelightHelpers.PoseEstimate();
+  private final LimelightResultsParser m_resultsParser;
+
+  private final int m_logChannel = DataLogger.registerStruct(
+      "Vision/Frame", "VisionFrame", Priority.HIGH,
+      "hasTarget", "tx", "targetId", "fiducialCount", "primaryFiducialId",
+      "primaryFiducialDistanceMeters", "poseTimestampSeconds", "poseX", "poseY", "poseRotation",
+      "tagCount", "avgTagDist", "avgTagArea");
+
+  /** Creates a new VisionSubsystem for the AprilTag Limelight. */
+  public VisionSubsystem() {
+    this(VisionConstants.kLimelightName);
+  }
+
+  /** Creates a new VisionSubsystem for the named Limelight. */
+  public VisionSubsystem(String limelightName) {
+    m_limelightName = limelightName;
+
+    m_resultsParser =
+        new LimelightResultsParser(limelightName, VisionConstants.kResultsParserFrequencyHz);
+    if (WarmupConstants.kEnabled) {
+      // One parse now, so the parser classes are loaded even if the robot is enabled at boot and
+      // never runs the disabled warmup
+      m_resultsParser.warmup();
+    }
+    m_resultsParser.start();
+  }
+
+  /**
+   * Runs the JSON parsers a little on sample results, so the first results of the match don't pay
+   * for class loading. Call once per disabled loop.
+   */
+  public void warmupParser() {
+    m_resultsParser.warmup();
+  }
+
+  /** Returns this loop's Limelight readings. */
+  public VisionFrame getFrame() {
+    return m_frame;
+  }
+
+  /**
+   * Returns the newest JSON results, parsed in the background. The object stays valid until the
+   * next call; treat it as read-only.
+   */
+  public LimelightHelpers.LimelightResults getLatestResults() {
+    return m_resultsParser.getLatestResults();
+  }
+
+  @Override
+  public void periodic() {
+    LoopProfiler.start(kPeriodicStage);
+
+    LimelightHelpers.getBotPoseEstimate_wpiBlue(m_limelightName, m_poseEstimate);
+    m_frame.update(
+        Timer.getFPGATimestamp(),
+        LimelightHelpers.getTV(m_limelightName),
+        LimelightHelpers.getTX(m_limelightName),
+        (int) LimelightHelpers.getFiducialID(m_limelightName),
+        LimelightHelpers.getRawFiducials(m_limelightName, m_fiducials),
+        m_poseEstimate);
+
+    if (DataLogger.begin(m_logChannel)) {
+      DataLogger.put(m_frame.hasTarget());
+      DataLogger.put(m_frame.getTx());
+      DataLogger.put(m_frame.getTargetId());
+      DataLogger.put(m_frame.getFiducialCount());
+      DataLogger.put(m_frame.getPrimaryFiducialId());
+      DataLogger.put(m_frame.getPrimaryFiducialDistanceMeters());
+      DataLogger.put(m_poseEstimate.timestampSeconds);
+      DataLogger.put(m_poseEstimate.pose.getX());
+      DataLogger.put(m_poseEstimate.pose.getY());
+      DataLogger.put(m_poseEstimate.pose.getRotation().getRadians());
+      DataLogger.put(m_poseEstimate.tagCount);
+      DataLogger.put(m_poseEstimate.avgTagDist);
+      DataLogger.put(m_poseEstimate.avgTagArea);
+      DataLogger.commit();
+    }
+
+    LoopProfiler.stop(kPeriodicStage);
+  }
+}
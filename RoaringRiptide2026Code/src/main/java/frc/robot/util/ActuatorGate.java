@@ -0,0 +1,36 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+/**
+ * Lets code run the robot's control logic without anything reaching the motors.
+ *
+ * <p>Subsystems check {@link #isOpen()} right before they send a setpoint to their hardware. While
+ * {@link #runSuppressed(Runnable)} is running, every setpoint is computed as usual and then
+ * dropped, so the motor controllers keep whatever they were last told. Only use this from the
+ * main robot thread.
+ */
+public final class ActuatorGate {
+  private static boolean suppressed = false;
+
+  private ActuatorGate() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /** Returns whether setpoints should be sent to the hardware. */
+  public static boolean isOpen() {
+    return !suppressed;
+  }
+
+  /** Runs {@code action} with every setpoint it produces dropped before reaching the hardware. */
+  public static void runSuppressed(Runnable action) {
+    suppressed = true;
+    try {
+      action.run();
+    } finally {
+      suppressed = false;
+    }
+  }
+}
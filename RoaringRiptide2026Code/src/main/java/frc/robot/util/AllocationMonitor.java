@@ -0,0 +1,99 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Reads how much memory the main thread has allocated and how much time the JVM has spent in
+ * garbage collection. {@link LoopProfiler} uses it to charge every stage with the garbage it makes
+ * and to tell which loop overruns happened during a collection.
+ *
+ * <p>Allocations are counted per thread by the JVM, so reading them is cheap and does not
+ * allocate. If the JVM does not support it, every count reads as 0.
+ */
+public final class AllocationMonitor {
+  private static final com.sun.management.ThreadMXBean threadBean = loadThreadBean();
+  private static final GarbageCollectorMXBean[] gcBeans = loadGcBeans();
+
+  private static long lastGcCount = 0;
+  private static long lastGcMillis = 0;
+  private static long cycleGcCount = 0;
+  private static long cycleGcMillis = 0;
+
+  private AllocationMonitor() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /** Returns whether allocations can be measured on this JVM. */
+  public static boolean isSupported() {
+    return threadBean != null;
+  }
+
+  /** Returns the total bytes the calling thread has allocated so far. */
+  public static long getAllocatedBytes() {
+    return threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+  }
+
+  /**
+   * Reads the collectors and remembers how many collections, and how much time in them, happened
+   * since the last call. Call once per loop.
+   */
+  public static void pollGc() {
+    long count = 0;
+    long millis = 0;
+    for (GarbageCollectorMXBean bean : gcBeans) {
+      count += Math.max(0, bean.getCollectionCount());
+      millis += Math.max(0, bean.getCollectionTime());
+    }
+    cycleGcCount = count - lastGcCount;
+    cycleGcMillis = millis - lastGcMillis;
+    lastGcCount = count;
+    lastGcMillis = millis;
+  }
+
+  /** Returns the number of collections seen by the last {@link #pollGc()}. */
+  public static long getCycleGcCount() {
+    return cycleGcCount;
+  }
+
+  /** Returns the time spent collecting seen by the last {@link #pollGc()}, in milliseconds. */
+  public static long getCycleGcMillis() {
+    return cycleGcMillis;
+  }
+
+  /** Returns the number of collections since the JVM started. */
+  public static long getTotalGcCount() {
+    return lastGcCount;
+  }
+
+  /** Returns the time spent collecting since the JVM started, in milliseconds. */
+  public static long getTotalGcMillis() {
+    return lastGcMillis;
+  }
+
+  private static com.sun.management.ThreadMXBean loadThreadBean() {
+    try {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+          && bean.isThreadAllocatedMemorySupported()) {
+        bean.setThreadAllocatedMemoryEnabled(true);
+        return bean;
+      }
+    } catch (LinkageError | UnsupportedOperationException e) {
+      // Fall through
+    }
+    DriverStation.reportWarning("AllocationMonitor: this JVM cannot count allocations", false);
+    return null;
+  }
+
+  private static GarbageCollectorMXBean[] loadGcBeans() {
+    List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+    return beans.toArray(new GarbageCollectorMXBean[0]);
+  }
+}
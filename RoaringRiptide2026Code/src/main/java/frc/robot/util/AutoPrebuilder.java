@@ -0,0 +1,153 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.pathplanner.lib.auto.AutoBuilder;
+import com.pathplanner.lib.commands.PathPlannerAuto;
+import com.pathplanner.lib.path.PathPlannerPath;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants.PathPlannerConstants;
+import frc.robot.util.Telemetry.Tier;
+
+/**
+ * Auto chooser that gets the selected PathPlanner auto ready while the robot is disabled, so
+ * autonomousInit only has to schedule it.
+ *
+ * <p>Only the .auto file names are listed at startup. Whenever the selection or the alliance
+ * changes, a background thread loads the auto's paths, flips them for the red alliance and
+ * generates their ideal trajectories. That reads the files and runs the path code once before the
+ * match, so the auto's own path commands do not pay for the first file read and JIT compile when
+ * they start. Once that is done the auto itself is built on the main thread, because composing
+ * commands registers them with the scheduler, which is not thread safe. Built autos are kept, so
+ * switching back to one is free.
+ */
+public class AutoPrebuilder {
+  private static final String kNone = "None";
+
+  private final SendableChooser<String> m_chooser = new SendableChooser<>();
+  private final Map<String, Command> m_built = new HashMap<>();
+  private final ExecutorService m_executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "AutoPrebuilder");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // What was last asked for, and the background work for it
+  private String m_requestedName = null;
+  private Optional<Alliance> m_requestedAlliance = Optional.empty();
+  private CompletableFuture<Void> m_prebuild = null;
+  private boolean m_ready = false;
+
+  /**
+   * Lists the autos in the deploy folder and puts the chooser on the dashboard.
+   *
+   * @param key Dashboard key of the chooser.
+   */
+  public AutoPrebuilder(String key) {
+    m_chooser.setDefaultOption(kNone, kNone);
+    m_built.put(kNone, Commands.none());
+
+    List<String> names = new ArrayList<>(AutoBuilder.getAllAutoNames());
+    names.sort(null);
+    for (String name : names) {
+      m_chooser.addOption(name, name);
+    }
+    SmartDashboard.putData(key, m_chooser);
+    Telemetry.addBoolean(Tier.CRITICAL, "Auto Ready", () -> m_ready);
+  }
+
+  /**
+   * Starts preparing the selected auto when the selection or the alliance changed, and builds it
+   * once its paths are ready. Call this once per loop while disabled.
+   */
+  public void update() {
+    // Build first, so the main thread never loads paths while the background thread does
+    if (m_prebuild != null && m_prebuild.isDone()) {
+      m_prebuild = null;
+      buildIfNeeded(m_requestedName);
+      m_ready = true;
+    }
+
+    String selected = getSelectedName();
+    Optional<Alliance> alliance = DriverStation.getAlliance();
+    if (selected.equals(m_requestedName) && alliance.equals(m_requestedAlliance)) {
+      return;
+    }
+    m_requestedName = selected;
+    m_requestedAlliance = alliance;
+    m_ready = false;
+    if (kNone.equals(selected)) {
+      m_ready = true;
+      return;
+    }
+    boolean flip = alliance.isPresent() && alliance.get() == Alliance.Red;
+    m_prebuild = CompletableFuture.runAsync(() -> preparePaths(selected, flip), m_executor);
+  }
+
+  /**
+   * Returns the selected auto. Never waits for the background thread: if the auto was not built
+   * yet, it is built now and a warning says so.
+   */
+  public Command getSelected() {
+    String name = getSelectedName();
+    Command auto = m_built.get(name);
+    if (auto != null) {
+      return auto;
+    }
+    DriverStation.reportWarning("Auto " + name + " was not prebuilt, building it now", false);
+    return buildIfNeeded(name);
+  }
+
+  private String getSelectedName() {
+    String selected = m_chooser.getSelected();
+    return selected != null ? selected : kNone;
+  }
+
+  private Command buildIfNeeded(String name) {
+    Command auto = m_built.get(name);
+    if (auto == null) {
+      try {
+        auto = new PathPlannerAuto(name);
+      } catch (RuntimeException e) {
+        DriverStation.reportError("Could not build auto " + name + ": " + e, e.getStackTrace());
+        auto = Commands.none();
+      }
+      m_built.put(name, auto);
+    }
+    return auto;
+  }
+
+  /** Runs on the background thread. Loads, flips and generates the trajectories of an auto. */
+  private static void preparePaths(String name, boolean flip) {
+    long startNanos = System.nanoTime();
+    try {
+      for (PathPlannerPath path : PathPlannerAuto.getPathGroupFromAutoFile(name)) {
+        PathPlannerPath followed = flip && !path.preventFlipping ? path.flipPath() : path;
+        followed.getIdealTrajectory(PathPlannerConstants.kRobotConfig);
+      }
+    } catch (Exception e) {
+      DriverStation.reportWarning("Could not prebuild auto " + name + ": " + e, false);
+      return;
+    }
+    System.out.printf(
+        "---> Auto %s prepared%s in %.0f ms%n",
+        name, flip ? " for red" : "", (System.nanoTime() - startNanos) / 1e6);
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import edu.wpi.first.hal.can.CANJNI;
+import edu.wpi.first.hal.can.CANStatus;
+import frc.robot.Constants.CanConstants;
+import frc.robot.util.Telemetry.Tier;
+
+/**
+ * Keeps a running estimate of the CAN bus load the configured devices will cause, and publishes it
+ * next to the load the roboRIO actually measures.
+ *
+ * <p>Each device adds the frames per second it sends and receives as it is created. The estimate
+ * assumes 8 byte extended frames with typical bit stuffing.
+ */
+public final class CanBusBudget {
+  private static double framesPerSecond = 0.0;
+  private static int deviceCount = 0;
+  // Reused for every reading, so publishing the measured load does not allocate
+  private static final CANStatus status = new CANStatus();
+
+  private CanBusBudget() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Adds a SPARK to the estimate: its status frames plus the setpoint the roboRIO sends it each
+   * loop.
+   *
+   * @param canId The SPARK's CAN ID, for the startup report.
+   * @param policy The signal policy applied to its configuration.
+   */
+  public static void addSpark(int canId, SparkSignalPolicy policy) {
+    double frames = policy.getStatusFramesPerSecond() + CanConstants.kCommandFramesPerSecond;
+    add("SPARK " + canId + " (" + policy + ")", frames);
+  }
+
+  /**
+   * Adds any other device to the estimate.
+   *
+   * @param name Name for the startup report.
+   * @param frames Frames per second the device sends and receives.
+   */
+  public static synchronized void add(String name, double frames) {
+    framesPerSecond += frames;
+    deviceCount++;
+    System.out.printf("---> CAN budget: %s, %.0f frames/s%n", name, frames);
+  }
+
+  /** Returns the estimated fraction of the bus the registered devices use, from 0 to 1. */
+  public static synchronized double getEstimatedUtilization() {
+    return framesPerSecond * CanConstants.kBitsPerFrame / CanConstants.kBitsPerSecond;
+  }
+
+  /**
+   * Prints the estimate and publishes it with the measured bus statistics. Call once, after every
+   * device has been created.
+   */
+  public static void publish() {
+    System.out.printf(
+        "---> CAN budget: %d devices, estimated %.0f%% bus utilization%n",
+        deviceCount, getEstimatedUtilization() * 100.0);
+
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "CAN/Estimated Utilization", CanBusBudget::getEstimatedUtilization);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "CAN/Measured Utilization", () -> {
+      CANJNI.getCANStatus(status);
+      return status.percentBusUtilization;
+    });
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "CAN/Bus Off Count", () -> status.busOffCount);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "CAN/TX Full Count", () -> status.txFullCount);
+    Telemetry.addNumber(Tier.DEBUG, "CAN/Receive Errors", () -> status.receiveErrorCount);
+    Telemetry.addNumber(Tier.DEBUG, "CAN/Transmit Errors", () -> status.transmitErrorCount);
+  }
+}
@@ -0,0 +1,303 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.StructArrayLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.util.Telemetry.Tier;
+
+/**
+ * Binary on-robot logging to a WPILib {@link DataLog}, with every entry struct-typed so tools like
+ * AdvantageScope can decode it.
+ *
+ * <p>The main loop only copies raw doubles into a preallocated single-producer/single-consumer
+ * ring. A background writer thread drains the ring, builds the struct values and hands them to the
+ * DataLog. The main loop never blocks: low priority records are dropped once the ring is three
+ * quarters full, and everything is dropped once it is completely full. Drops are counted and shown
+ * on the dashboard.
+ *
+ * <p>Channels are registered once, then written with {@link #begin(int)}, {@link #put(double)} and
+ * {@link #commit()}. Only the main robot thread may write records.
+ */
+public final class DataLogger {
+  /** Which records to give up first when the writer falls behind. */
+  public enum Priority {
+    /** Kept until the queue is completely full. */
+    HIGH,
+    /** Dropped once the queue is three quarters full. */
+    LOW
+  }
+
+  /** Turns a record's doubles into a log entry. Runs on the writer thread. */
+  private interface ChannelWriter {
+    void write(double[] values, int offset, long timestampMicros);
+  }
+
+  // Must be a power of two
+  private static final int kCapacity = 1024;
+  private static final int kMask = kCapacity - 1;
+  private static final int kLowPriorityLimit = kCapacity * 3 / 4;
+  private static final int kMaxWidth = 16;
+  private static final long kIdleSleepNanos = 2_000_000;
+
+  // Ring storage as parallel primitive arrays, so writing a record never allocates
+  private static final int[] channels = new int[kCapacity];
+  private static final long[] timestamps = new long[kCapacity];
+  private static final double[] values = new double[kCapacity * kMaxWidth];
+  private static final AtomicLong writeSequence = new AtomicLong();
+  private static final AtomicLong readSequence = new AtomicLong();
+
+  // Registered at startup, read by both threads
+  private static final List<ChannelWriter> channelWriters = new CopyOnWriteArrayList<>();
+  private static final List<Priority> channelPriorities = new CopyOnWriteArrayList<>();
+
+  // The record being written by the main loop, or -1 if there is none
+  private static long openSequence = -1;
+  private static int openWidth = 0;
+  private static long droppedHigh = 0;
+  private static long droppedLow = 0;
+  private static Thread writerThread;
+
+  private DataLogger() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Starts the DataLog, records Driver Station data into it and starts the writer thread. Call
+   * once, at the top of the Robot constructor.
+   */
+  public static synchronized void start() {
+    if (writerThread != null) {
+      return;
+    }
+    DataLogManager.start();
+    DriverStation.startDataLog(DataLogManager.getLog());
+
+    writerThread = new Thread(DataLogger::runWriter, "DataLogger");
+    writerThread.setDaemon(true);
+    writerThread.setPriority(Thread.MIN_PRIORITY);
+    writerThread.start();
+
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "DataLogger/Dropped High", () -> droppedHigh);
+    Telemetry.addNumber(Tier.DIAGNOSTIC, "DataLogger/Dropped Low", () -> droppedLow);
+  }
+
+  /**
+   * Registers a record made of named doubles. It is logged as a struct with one double field per
+   * name, in order.
+   *
+   * @param name Log entry name, e.g. "Launcher/State".
+   * @param typeName Struct type name. Must be a unique identifier, e.g. "LauncherState".
+   * @param priority What to drop first when the writer falls behind.
+   * @param fields Field names, in the order they are put.
+   * @return The channel to pass to {@link #begin(int)}.
+   */
+  public static int registerStruct(
+      String name, String typeName, Priority priority, String... fields) {
+    StructLogEntry<double[]> entry =
+        StructLogEntry.create(log(), name, new DoubleRecordStruct(typeName, fields));
+    double[] scratch = new double[fields.length];
+    return register(priority, fields.length, (values, offset, timestamp) -> {
+      System.arraycopy(values, offset, scratch, 0, scratch.length);
+      entry.append(scratch, timestamp);
+    });
+  }
+
+  /**
+   * Registers a Pose2d record. Put x (m), y (m), rotation (rad).
+   */
+  public static int registerPose2d(String name, Priority priority) {
+    StructLogEntry<Pose2d> entry = StructLogEntry.create(log(), name, Pose2d.struct);
+    return register(priority, 3, (values, offset, timestamp) -> entry.append(
+        new Pose2d(values[offset], values[offset + 1], new Rotation2d(values[offset + 2])),
+        timestamp));
+  }
+
+  /**
+   * Registers a ChassisSpeeds record. Put vx (m/s), vy (m/s), omega (rad/s).
+   */
+  public static int registerChassisSpeeds(String name, Priority priority) {
+    StructLogEntry<ChassisSpeeds> entry =
+        StructLogEntry.create(log(), name, ChassisSpeeds.struct);
+    return register(priority, 3, (values, offset, timestamp) -> entry.append(
+        new ChassisSpeeds(values[offset], values[offset + 1], values[offset + 2]), timestamp));
+  }
+
+  /**
+   * Registers a SwerveModuleState array record. Put speed (m/s) and angle (rad) for each module.
+   */
+  public static int registerModuleStates(String name, Priority priority, int moduleCount) {
+    StructArrayLogEntry<SwerveModuleState> entry =
+        StructArrayLogEntry.create(log(), name, SwerveModuleState.struct);
+    SwerveModuleState[] states = new SwerveModuleState[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      states[i] = new SwerveModuleState();
+    }
+    return register(priority, 2 * moduleCount, (values, offset, timestamp) -> {
+      for (int i = 0; i < states.length; i++) {
+        states[i].speedMetersPerSecond = values[offset + 2 * i];
+        states[i].angle = new Rotation2d(values[offset + 2 * i + 1]);
+      }
+      entry.append(states, timestamp);
+    });
+  }
+
+  /**
+   * Starts a record on a channel, timestamped now.
+   *
+   * @return false if the record was dropped; skip the puts and the commit.
+   */
+  public static boolean begin(int channel) {
+    long sequence = writeSequence.get();
+    long queued = sequence - readSequence.get();
+    if (queued >= kCapacity) {
+      countDrop(channel);
+      return false;
+    }
+    if (queued >= kLowPriorityLimit && channelPriorities.get(channel) == Priority.LOW) {
+      droppedLow++;
+      return false;
+    }
+
+    int slot = (int) (sequence & kMask);
+    channels[slot] = channel;
+    timestamps[slot] = RobotController.getFPGATime();
+    openSequence = sequence;
+    openWidth = 0;
+    return true;
+  }
+
+  /** Adds the next value to the open record. */
+  public static void put(double value) {
+    if (openSequence < 0 || openWidth >= kMaxWidth) {
+      return;
+    }
+    values[(int) (openSequence & kMask) * kMaxWidth + openWidth++] = value;
+  }
+
+  /** Adds the next value to the open record. */
+  public static void put(boolean value) {
+    put(value ? 1.0 : 0.0);
+  }
+
+  /** Hands the open record to the writer thread. */
+  public static void commit() {
+    if (openSequence < 0) {
+      return;
+    }
+    // Ordered store: the writer never sees the sequence before the record's data
+    writeSequence.lazySet(openSequence + 1);
+    openSequence = -1;
+  }
+
+  private static DataLog log() {
+    return DataLogManager.getLog();
+  }
+
+  private static synchronized int register(Priority priority, int width, ChannelWriter writer) {
+    if (width > kMaxWidth) {
+      throw new IllegalArgumentException("DataLogger records hold at most " + kMaxWidth + " values");
+    }
+    channelWriters.add(writer);
+    channelPriorities.add(priority);
+    return channelWriters.size() - 1;
+  }
+
+  private static void countDrop(int channel) {
+    if (channelPriorities.get(channel) == Priority.HIGH) {
+      droppedHigh++;
+    } else {
+      droppedLow++;
+    }
+  }
+
+  /** Drains the ring into the DataLog. Runs on the writer thread. */
+  private static void runWriter() {
+    while (true) {
+      long read = readSequence.get();
+      if (read >= writeSequence.get()) {
+        LockSupport.parkNanos(kIdleSleepNanos);
+        continue;
+      }
+
+      int slot = (int) (read & kMask);
+      try {
+        channelWriters.get(channels[slot]).write(values, slot * kMaxWidth, timestamps[slot]);
+      } catch (RuntimeException e) {
+        DriverStation.reportError("DataLogger: " + e.getMessage(), e.getStackTrace());
+      }
+      // Free the slot only once we are done reading it
+      readSequence.lazySet(read + 1);
+    }
+  }
+
+  /** Struct schema for a flat record of named doubles. */
+  private static final class DoubleRecordStruct implements Struct<double[]> {
+    private final String m_typeName;
+    private final int m_fieldCount;
+    private final String m_schema;
+
+    DoubleRecordStruct(String typeName, String... fields) {
+      m_typeName = typeName;
+      m_fieldCount = fields.length;
+      StringBuilder schema = new StringBuilder();
+      for (String field : fields) {
+        schema.append("double ").append(field).append(';');
+      }
+      m_schema = schema.toString();
+    }
+
+    @Override
+    public Class<double[]> getTypeClass() {
+      return double[].class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return m_typeName;
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * m_fieldCount;
+    }
+
+    @Override
+    public String getSchema() {
+      return m_schema;
+    }
+
+    @Override
+    public double[] unpack(ByteBuffer bb) {
+      double[] record = new double[m_fieldCount];
+      for (int i = 0; i < m_fieldCount; i++) {
+        record[i] = bb.getDouble();
+      }
+      return record;
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, double[] value) {
+      for (int i = 0; i < m_fieldCount; i++) {
+        bb.putDouble(value[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size latency histogram. All of the storage is allocated up front so recording a sample
+ * never allocates, which keeps it safe to call from the 20 ms loop.
+ *
+ * <p>Buckets are 10 us wide up to 2 ms, 100 us wide up to 10 ms and 1 ms wide up to 100 ms.
+ * Anything slower lands in a single overflow bucket (the exact maximum is still tracked).
+ */
+public final class LatencyHistogram {
+  private static final long kFineLimitNanos = 2_000_000;
+  private static final long kFineWidthNanos = 10_000;
+  private static final long kMediumLimitNanos = 10_000_000;
+  private static final long kMediumWidthNanos = 100_000;
+  private static final long kCoarseLimitNanos = 100_000_000;
+  private static final long kCoarseWidthNanos = 1_000_000;
+
+  private static final int kFineBuckets = (int) (kFineLimitNanos / kFineWidthNanos);
+  private static final int kMediumBuckets =
+      (int) ((kMediumLimitNanos - kFineLimitNanos) / kMediumWidthNanos);
+  private static final int kCoarseBuckets =
+      (int) ((kCoarseLimitNanos - kMediumLimitNanos) / kCoarseWidthNanos);
+  private static final int kBucketCount = kFineBuckets + kMediumBuckets + kCoarseBuckets + 1;
+
+  private final int[] m_buckets = new int[kBucketCount];
+  private long m_count = 0;
+  private long m_maxNanos = 0;
+
+  /** Records a single sample. */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    m_buckets[bucketFor(nanos)]++;
+    m_count++;
+    if (nanos > m_maxNanos) {
+      m_maxNanos = nanos;
+    }
+  }
+
+  /**
+   * Returns the given percentile in milliseconds, reported as the upper edge of the bucket the
+   * percentile falls in.
+   *
+   * @param percentile Percentile in the range [0, 1].
+   */
+  public double getPercentileMs(double percentile) {
+    if (m_count == 0) {
+      return 0.0;
+    }
+    long rank = (long) Math.ceil(percentile * m_count);
+    if (rank < 1) {
+      rank = 1;
+    }
+    long seen = 0;
+    for (int i = 0; i < kBucketCount; i++) {
+      seen += m_buckets[i];
+      if (seen >= rank) {
+        // Never report more than the largest sample we actually saw.
+        return Math.min(bucketUpperNanos(i), m_maxNanos) / 1e6;
+      }
+    }
+    return m_maxNanos / 1e6;
+  }
+
+  /** Returns the largest recorded sample in milliseconds. */
+  public double getMaxMs() {
+    return m_maxNanos / 1e6;
+  }
+
+  /** Returns the number of samples recorded since the last reset. */
+  public long getCount() {
+    return m_count;
+  }
+
+  /** Clears all samples. */
+  public void reset() {
+    Arrays.fill(m_buckets, 0);
+    m_count = 0;
+    m_maxNanos = 0;
+  }
+
+  private static int bucketFor(long nanos) {
+    if (nanos < kFineLimitNanos) {
+      return (int) (nanos / kFineWidthNanos);
+    }
+    if (nanos < kMediumLimitNanos) {
+      return kFineBuckets + (int) ((nanos - kFineLimitNanos) / kMediumWidthNanos);
+    }
+    if (nanos < kCoarseLimitNanos) {
+      return kFineBuckets + kMediumBuckets
+          + (int) ((nanos - kMediumLimitNanos) / kCoarseWidthNanos);
+    }
+    return kBucketCount - 1;
+  }
+
+  private static long bucketUpperNanos(int bucket) {
+    if (bucket < kFineBuckets) {
+      return (bucket + 1) * kFineWidthNanos;
+    }
+    bucket -= kFineBuckets;
+    if (bucket < kMediumBuckets) {
+      return kFineLimitNanos + (bucket + 1) * kMediumWidthNanos;
+    }
+    bucket -= kMediumBuckets;
+    if (bucket < kCoarseBuckets) {
+      return kMediumLimitNanos + (bucket + 1) * kCoarseWidthNanos;
+    }
+    return Long.MAX_VALUE;
+  }
+}
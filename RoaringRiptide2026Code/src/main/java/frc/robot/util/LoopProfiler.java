@@ -0,0 +1,310 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.util.DataLogger.Priority;
+
+/**
+ * Breaks the main robot loop down into named stages and keeps a latency histogram for each one.
+ *
+ * <p>Stages are registered once (usually from a static or final field) and then timed with
+ * {@link #start(int)} and {@link #stop(int)}. Nothing on the hot path allocates: the histograms
+ * and per-stage bookkeeping are fixed-size arrays. Percentiles are published to the dashboard at a
+ * low rate, and every cycle that goes over the loop budget is reported along with the stages that
+ * ate the time.
+ *
+ * <p>Command execute times are measured from the scheduler's execute callback. The scheduler only
+ * tells us when a command's {@code execute()} has returned, so each command is charged with the
+ * time since the previous marker (the end of the last timed stage or the previous command). The
+ * first command of a cycle therefore also pays for button polling.
+ *
+ * <p>Every stage is also charged with the bytes the main thread allocated while it ran, read from
+ * {@link AllocationMonitor}, and the average per loop is published next to the percentiles. The
+ * "Outside robotPeriodic" stage gets what was allocated between two loops: the mode periodic
+ * methods, SmartDashboard and LiveWindow updates. Each loop's allocations and garbage collections
+ * are logged, and overrun reports say how long the JVM spent collecting during that loop.
+ *
+ * <p>"Loop Start Jitter" is how far each loop started from one period after the previous one.
+ * {@link #reportJitter(String)} prints its spread since the last report, to compare the loop's
+ * timing before and after a change such as a thread priority.
+ */
+public final class LoopProfiler {
+  private static final int kMaxStages = 64;
+  private static final long kBudgetNanos = (long) (TimedRobot.kDefaultPeriod * 1e9);
+  // Publish once a second, and start a fresh window every 10 seconds.
+  private static final int kPublishPeriodCycles = 50;
+  private static final int kWindowCycles = 500;
+  // Only stages that took at least this long are listed in an overrun report.
+  private static final long kReportThresholdNanos = 1_000_000;
+
+  private static final String[] names = new String[kMaxStages];
+  private static final String[] p50Keys = new String[kMaxStages];
+  private static final String[] p99Keys = new String[kMaxStages];
+  private static final String[] maxKeys = new String[kMaxStages];
+  private static final String[] allocKeys = new String[kMaxStages];
+  private static final LatencyHistogram[] histograms = new LatencyHistogram[kMaxStages];
+  private static final long[] startNanos = new long[kMaxStages];
+  private static final long[] cycleNanos = new long[kMaxStages];
+  private static final long[] startBytes = new long[kMaxStages];
+  private static final long[] cycleBytes = new long[kMaxStages];
+  private static final long[] windowBytes = new long[kMaxStages];
+  private static int stageCount = 0;
+
+  private static final Map<Command, Integer> commandStages = new IdentityHashMap<>();
+  private static final int kLoopStage = registerStage("Loop");
+  private static final int kPeriodStage = registerStage("Loop Period");
+  private static final int kOtherCommandsStage = registerStage("Commands (other)");
+  // Only ever charged with allocations, never timed
+  private static final int kOutsideStage = registerStage("Outside robotPeriodic");
+  private static final int kJitterStage = registerStage("Loop Start Jitter");
+
+  // Loop start jitter since the last reportJitter(), not reset with the dashboard window
+  private static final LatencyHistogram jitterSinceReport = new LatencyHistogram();
+  private static double jitterSumMs = 0.0;
+  private static double jitterSumSquaresMs = 0.0;
+
+  private static long cycleStartNanos = 0;
+  private static long lastCycleStartNanos = 0;
+  private static long lastMarkNanos = 0;
+  private static long cycleStartBytes = 0;
+  private static long cycleEndBytes = 0;
+  private static long lastMarkBytes = 0;
+  private static int cyclesSincePublish = 0;
+  private static int cyclesInWindow = 0;
+  private static int overrunCount = 0;
+  private static int gcOverrunCount = 0;
+  private static boolean attached = false;
+  // Registered when attached, after DataLogger has started
+  private static int logChannel = -1;
+
+  private LoopProfiler() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Registers a new stage. Call this once per stage, not every loop.
+   *
+   * @param name Name shown on the dashboard.
+   * @return The stage handle to pass to {@link #start(int)} and {@link #stop(int)}.
+   */
+  public static synchronized int registerStage(String name) {
+    if (stageCount >= kMaxStages) {
+      DriverStation.reportWarning("LoopProfiler: out of stages, not timing " + name, false);
+      return kOtherCommandsStage;
+    }
+    int stage = stageCount++;
+    names[stage] = name;
+    p50Keys[stage] = "Profiler/" + name + "/p50 ms";
+    p99Keys[stage] = "Profiler/" + name + "/p99 ms";
+    maxKeys[stage] = "Profiler/" + name + "/max ms";
+    allocKeys[stage] = "Profiler/" + name + "/alloc bytes per loop";
+    histograms[stage] = new LatencyHistogram();
+    return stage;
+  }
+
+  /**
+   * Hooks the profiler into the command scheduler so every running command's execute() gets its
+   * own stage, and starts logging each loop's memory use. Call after {@link DataLogger#start()}.
+   */
+  public static void attachToScheduler(CommandScheduler scheduler) {
+    if (attached) {
+      return;
+    }
+    attached = true;
+    scheduler.onCommandExecute(LoopProfiler::commandExecuted);
+    logChannel = DataLogger.registerStruct(
+        "Profiler/Memory", "LoopMemory", Priority.LOW,
+        "loopMs", "allocatedBytes", "outsideAllocatedBytes", "gcCount", "gcMs");
+  }
+
+  /** Marks the start of a robot loop. Call first thing in robotPeriodic(). */
+  public static void beginCycle() {
+    long now = System.nanoTime();
+    long bytes = AllocationMonitor.getAllocatedBytes();
+    if (lastCycleStartNanos != 0) {
+      long period = now - lastCycleStartNanos;
+      histograms[kPeriodStage].record(period);
+      recordJitter(period - kBudgetNanos);
+    }
+    lastCycleStartNanos = now;
+    cycleStartNanos = now;
+    lastMarkNanos = now;
+    for (int i = 0; i < stageCount; i++) {
+      cycleNanos[i] = 0;
+      cycleBytes[i] = 0;
+    }
+    if (cycleEndBytes != 0) {
+      recordBytes(kOutsideStage, bytes - cycleEndBytes);
+    }
+    cycleStartBytes = bytes;
+    lastMarkBytes = bytes;
+  }
+
+  /** Starts timing a stage. */
+  public static void start(int stage) {
+    long now = System.nanoTime();
+    long bytes = AllocationMonitor.getAllocatedBytes();
+    startNanos[stage] = now;
+    startBytes[stage] = bytes;
+    lastMarkNanos = now;
+    lastMarkBytes = bytes;
+  }
+
+  /** Stops timing a stage and records the elapsed time and the bytes allocated. */
+  public static void stop(int stage) {
+    long now = System.nanoTime();
+    long bytes = AllocationMonitor.getAllocatedBytes();
+    record(stage, now - startNanos[stage]);
+    recordBytes(stage, bytes - startBytes[stage]);
+    lastMarkNanos = now;
+    lastMarkBytes = bytes;
+  }
+
+  /**
+   * Marks the end of a robot loop. Call last thing in robotPeriodic(). Records the total loop
+   * time, reports an overrun if the loop went over budget and publishes the histograms when due.
+   */
+  public static void endCycle() {
+    long elapsed = System.nanoTime() - cycleStartNanos;
+    cycleEndBytes = AllocationMonitor.getAllocatedBytes();
+    histograms[kLoopStage].record(elapsed);
+    cycleNanos[kLoopStage] = elapsed;
+    recordBytes(kLoopStage, cycleEndBytes - cycleStartBytes);
+    AllocationMonitor.pollGc();
+
+    if (elapsed > kBudgetNanos) {
+      reportOverrun(elapsed);
+    }
+
+    if (logChannel >= 0 && DataLogger.begin(logChannel)) {
+      DataLogger.put(elapsed / 1e6);
+      DataLogger.put(cycleBytes[kLoopStage]);
+      DataLogger.put(cycleBytes[kOutsideStage]);
+      DataLogger.put(AllocationMonitor.getCycleGcCount());
+      DataLogger.put(AllocationMonitor.getCycleGcMillis());
+      DataLogger.commit();
+    }
+
+    if (++cyclesSincePublish >= kPublishPeriodCycles) {
+      cyclesSincePublish = 0;
+      publish();
+    }
+    if (++cyclesInWindow >= kWindowCycles) {
+      cyclesInWindow = 0;
+      for (int i = 0; i < stageCount; i++) {
+        histograms[i].reset();
+        windowBytes[i] = 0;
+      }
+    }
+  }
+
+  private static void record(int stage, long nanos) {
+    histograms[stage].record(nanos);
+    cycleNanos[stage] += nanos;
+  }
+
+  private static void recordJitter(long offsetNanos) {
+    long jitter = Math.abs(offsetNanos);
+    histograms[kJitterStage].record(jitter);
+    jitterSinceReport.record(jitter);
+    double offsetMs = offsetNanos / 1e6;
+    jitterSumMs += offsetMs;
+    jitterSumSquaresMs += offsetMs * offsetMs;
+  }
+
+  /**
+   * Prints the spread of loop start times since the last call, then starts over.
+   *
+   * @param label What the loop was doing during that time, e.g. "normal priority".
+   */
+  public static void reportJitter(String label) {
+    long count = jitterSinceReport.getCount();
+    if (count > 0) {
+      double mean = jitterSumMs / count;
+      double stdDev = Math.sqrt(Math.max(0.0, jitterSumSquaresMs / count - mean * mean));
+      System.out.printf(
+          "---> Loop start jitter, %s: %d loops, std dev %.3f ms, p50 %.3f ms, p99 %.3f ms,"
+              + " max %.3f ms%n",
+          label, count, stdDev, jitterSinceReport.getPercentileMs(0.50),
+          jitterSinceReport.getPercentileMs(0.99), jitterSinceReport.getMaxMs());
+    }
+    jitterSinceReport.reset();
+    jitterSumMs = 0.0;
+    jitterSumSquaresMs = 0.0;
+  }
+
+  private static void recordBytes(int stage, long bytes) {
+    cycleBytes[stage] += bytes;
+    windowBytes[stage] += bytes;
+  }
+
+  private static void commandExecuted(Command command) {
+    long now = System.nanoTime();
+    long bytes = AllocationMonitor.getAllocatedBytes();
+    Integer stage = commandStages.get(command);
+    if (stage == null) {
+      // First time we have seen this command; registering allocates, but only once.
+      stage = stageCount < kMaxStages
+          ? registerStage("Command/" + command.getName())
+          : kOtherCommandsStage;
+      commandStages.put(command, stage);
+    }
+    record(stage, now - lastMarkNanos);
+    recordBytes(stage, bytes - lastMarkBytes);
+    lastMarkNanos = now;
+    lastMarkBytes = bytes;
+  }
+
+  private static void reportOverrun(long elapsed) {
+    overrunCount++;
+    SmartDashboard.putNumber("Profiler/Overruns", overrunCount);
+    long gcCount = AllocationMonitor.getCycleGcCount();
+    if (gcCount > 0) {
+      gcOverrunCount++;
+      SmartDashboard.putNumber("Profiler/Overruns during GC", gcOverrunCount);
+    }
+
+    // Only runs on an overrun, so building the message here is fine.
+    StringBuilder message = new StringBuilder(128);
+    message.append("Loop overrun: ").append(String.format("%.2f", elapsed / 1e6)).append(" ms, ")
+        .append(cycleBytes[kLoopStage] / 1024).append(" KB allocated");
+    if (gcCount > 0) {
+      // The collector may have run just before the loop started; either way it paused this loop
+      message.append(", ").append(gcCount).append(" GC ")
+          .append(AllocationMonitor.getCycleGcMillis()).append(" ms");
+    }
+    for (int i = 0; i < stageCount; i++) {
+      if (i != kLoopStage && i != kPeriodStage && cycleNanos[i] >= kReportThresholdNanos) {
+        message.append(", ").append(names[i]).append(' ')
+            .append(String.format("%.2f", cycleNanos[i] / 1e6)).append(" ms ")
+            .append(cycleBytes[i] / 1024).append(" KB");
+      }
+    }
+    DriverStation.reportWarning(message.toString(), false);
+  }
+
+  private static void publish() {
+    int cycles = Math.max(1, cyclesInWindow);
+    for (int i = 0; i < stageCount; i++) {
+      // Always published, so a stage that stops allocating reads 0 rather than its last value
+      SmartDashboard.putNumber(allocKeys[i], (double) windowBytes[i] / cycles);
+      LatencyHistogram histogram = histograms[i];
+      if (histogram.getCount() == 0) {
+        continue;
+      }
+      SmartDashboard.putNumber(p50Keys[i], histogram.getPercentileMs(0.50));
+      SmartDashboard.putNumber(p99Keys[i], histogram.getPercentileMs(0.99));
+      SmartDashboard.putNumber(maxKeys[i], histogram.getMaxMs());
+    }
+  }
+}
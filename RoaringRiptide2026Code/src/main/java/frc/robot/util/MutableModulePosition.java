@@ -0,0 +1,20 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+/**
+ * Mutable, primitive-only counterpart of
+ * {@link edu.wpi.first.math.kinematics.SwerveModulePosition}.
+ */
+public final class MutableModulePosition {
+  public double distanceMeters;
+  public double angleRadians;
+
+  /** Sets both fields at once. */
+  public void set(double distanceMeters, double angleRadians) {
+    this.distanceMeters = distanceMeters;
+    this.angleRadians = angleRadians;
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.nio.ByteBuffer;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.util.struct.Struct;
+
+/**
+ * Mutable, primitive-only counterpart of {@link edu.wpi.first.math.kinematics.SwerveModuleState}.
+ * Callers own one of these and have it filled in every loop, so reading or commanding module
+ * states does not create garbage.
+ */
+public final class MutableModuleState {
+  /**
+   * Packs a state exactly as {@code SwerveModuleState.struct} does, under the same type name, so
+   * dashboards decode it as a SwerveModuleState without a Rotation2d being built to publish it.
+   */
+  public static final Struct<MutableModuleState> struct = new MutableModuleStateStruct();
+
+  public double speedMetersPerSecond;
+  public double angleRadians;
+
+  public MutableModuleState() {}
+
+  public MutableModuleState(double speedMetersPerSecond, double angleRadians) {
+    set(speedMetersPerSecond, angleRadians);
+  }
+
+  /** Sets both fields at once. */
+  public void set(double speedMetersPerSecond, double angleRadians) {
+    this.speedMetersPerSecond = speedMetersPerSecond;
+    this.angleRadians = angleRadians;
+  }
+
+  private static final class MutableModuleStateStruct implements Struct<MutableModuleState> {
+    @Override
+    public Class<MutableModuleState> getTypeClass() {
+      return MutableModuleState.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "SwerveModuleState";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble + Rotation2d.struct.getSize();
+    }
+
+    @Override
+    public String getSchema() {
+      return "double speed;Rotation2d angle";
+    }
+
+    @Override
+    public Struct<?>[] getNested() {
+      return new Struct<?>[] {Rotation2d.struct};
+    }
+
+    @Override
+    public MutableModuleState unpack(ByteBuffer bb) {
+      double speed = bb.getDouble();
+      double angle = bb.getDouble();
+      return new MutableModuleState(speed, angle);
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, MutableModuleState value) {
+      bb.putDouble(value.speedMetersPerSecond);
+      // A Rotation2d is packed as its angle in radians
+      bb.putDouble(value.angleRadians);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.io.File;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.math.interpolation.InterpolatingDoubleTreeMap;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Calibrated flywheel speed and feeder power for every distance to the hub.
+ *
+ * <p>The table is read from a JSON file in the deploy folder, so it can be retuned on the field
+ * without a code change:
+ *
+ * <pre>
+ * { "shots": [ { "distanceMeters": 2.0, "flywheelRpm": 4000, "feederPower": 0.85 }, ... ] }
+ * </pre>
+ *
+ * <p>Distances are from the robot's center to the hub's center. Between two calibrated shots the
+ * setpoints are interpolated linearly; past either end the nearest shot is used. If the file is
+ * missing or unreadable, every distance gets the fallback shot.
+ */
+public class ShotMap {
+  private final InterpolatingDoubleTreeMap m_flywheelRpm = new InterpolatingDoubleTreeMap();
+  private final InterpolatingDoubleTreeMap m_feederPower = new InterpolatingDoubleTreeMap();
+  private int m_shotCount = 0;
+
+  /**
+   * Loads the shot map.
+   *
+   * @param fileName Name of the JSON file in the deploy folder.
+   * @param fallbackRpm Flywheel speed used at every distance if the file cannot be loaded.
+   * @param fallbackFeederPower Feeder power used at every distance if the file cannot be loaded.
+   */
+  public ShotMap(String fileName, double fallbackRpm, double fallbackFeederPower) {
+    File file = new File(Filesystem.getDeployDirectory(), fileName);
+    try {
+      JsonNode root = new ObjectMapper().readTree(file);
+      for (JsonNode shot : root.path("shots")) {
+        double distance = shot.path("distanceMeters").asDouble(Double.NaN);
+        double rpm = shot.path("flywheelRpm").asDouble(Double.NaN);
+        double power = shot.path("feederPower").asDouble(Double.NaN);
+        if (Double.isNaN(distance) || Double.isNaN(rpm) || Double.isNaN(power)) {
+          DriverStation.reportWarning("Skipping incomplete shot in " + fileName + ": " + shot, false);
+          continue;
+        }
+        m_flywheelRpm.put(distance, rpm);
+        m_feederPower.put(distance, power);
+        m_shotCount++;
+      }
+    } catch (Exception e) {
+      DriverStation.reportError("Could not load shot map " + file + ": " + e, false);
+    }
+
+    if (m_shotCount == 0) {
+      m_flywheelRpm.put(0.0, fallbackRpm);
+      m_feederPower.put(0.0, fallbackFeederPower);
+    }
+    System.out.println("---> Shot map loaded with " + m_shotCount + " shots");
+  }
+
+  /** Returns whether any calibrated shots were loaded. */
+  public boolean isLoaded() {
+    return m_shotCount > 0;
+  }
+
+  /** Returns the flywheel speed in RPM for a shot from the given distance in meters. */
+  public double getFlywheelRpm(double distanceMeters) {
+    return m_flywheelRpm.get(distanceMeters);
+  }
+
+  /** Returns the feeder power, in the range [-1, 1], for a shot from the given distance in meters. */
+  public double getFeederPower(double distanceMeters) {
+    return m_feederPower.get(distanceMeters);
+  }
+}
@@ -0,0 +1,182 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+
+import com.revrobotics.PersistMode;
+import com.revrobotics.REVLibError;
+import com.revrobotics.ResetMode;
+import com.revrobotics.spark.SparkBase;
+import com.revrobotics.spark.config.SparkBaseConfig;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.CanConstants;
+
+/**
+ * Configures all the SPARKs at boot in parallel, and only resets and burns flash on the ones whose
+ * configuration changed.
+ *
+ * <p>The hash of each configuration last persisted to a SPARK is kept in a file on the roboRIO.
+ * If the configuration is unchanged it is still sent, so the device is always correct, but without
+ * resetting parameters or persisting them, which is quicker and saves flash write cycles. A
+ * replaced SPARK with the same CAN ID is not detected this way; delete the hash file, or change
+ * anything in its configuration, to force a full reset and persist.
+ *
+ * <p>{@link #configure} starts the configuration in the background and returns straight away, so
+ * every device is configured at the same time as the rest of the robot is being built.
+ * {@link #awaitAll()} waits for all of them once, with a timeout, and reports the result.
+ */
+public final class SparkConfigurator {
+  /** One device's configuration in flight. */
+  private static final class Job {
+    final int canId;
+    final boolean unchanged;
+    final CompletableFuture<REVLibError> result;
+
+    Job(int canId, boolean unchanged, CompletableFuture<REVLibError> result) {
+      this.canId = canId;
+      this.unchanged = unchanged;
+      this.result = result;
+    }
+  }
+
+  private static final File hashFile =
+      new File(Filesystem.getOperatingDirectory(), "spark-config-hashes.properties");
+  private static final Properties persistedHashes = loadHashes();
+  private static final List<Job> jobs = new ArrayList<>();
+  private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "SparkConfigurator");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private SparkConfigurator() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Starts configuring a SPARK in the background.
+   *
+   * @param spark The SPARK to configure.
+   * @param config Its configuration, from {@link frc.robot.Configs}. Must not be changed after
+   *     this call.
+   */
+  public static synchronized void configure(SparkBase spark, SparkBaseConfig config) {
+    int canId = spark.getDeviceId();
+    String key = "spark." + canId;
+    String hash = hash(config);
+    boolean unchanged = hash.equals(persistedHashes.getProperty(key));
+
+    CompletableFuture<REVLibError> result = CompletableFuture.supplyAsync(() -> {
+      REVLibError error = unchanged
+          ? spark.configure(config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters)
+          : spark.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+      if (error == REVLibError.kOk && !unchanged) {
+        persistedHashes.setProperty(key, hash);
+      }
+      return error;
+    }, executor);
+    jobs.add(new Job(canId, unchanged, result));
+  }
+
+  /**
+   * Waits for every SPARK passed to {@link #configure} so far, then reports any that failed or
+   * did not answer in time. Call once, after every subsystem has been created.
+   */
+  public static synchronized void awaitAll() {
+    long start = System.nanoTime();
+    CompletableFuture<?>[] results = new CompletableFuture<?>[jobs.size()];
+    for (int i = 0; i < jobs.size(); i++) {
+      results[i] = jobs.get(i).result;
+    }
+    try {
+      CompletableFuture.allOf(results)
+          .get((long) (CanConstants.kConfigureTimeoutSeconds * 1000), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      // Reported per device below
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    double elapsedMs = (System.nanoTime() - start) / 1e6;
+
+    int unchanged = 0;
+    int persisted = 0;
+    int failed = 0;
+    for (Job job : jobs) {
+      String problem = null;
+      if (!job.result.isDone()) {
+        problem = "did not answer within " + CanConstants.kConfigureTimeoutSeconds + " s";
+      } else {
+        REVLibError error = job.result.getNow(REVLibError.kUnknown);
+        if (error != REVLibError.kOk) {
+          problem = "failed with " + error;
+        }
+      }
+
+      if (problem != null) {
+        failed++;
+        DriverStation.reportError("SPARK " + job.canId + " configuration " + problem, false);
+      } else if (job.unchanged) {
+        unchanged++;
+      } else {
+        persisted++;
+      }
+    }
+
+    if (persisted > 0) {
+      saveHashes();
+    }
+    System.out.printf(
+        "---> SPARK configuration: %d devices in %.0f ms, %d unchanged, %d reset and persisted,"
+            + " %d failed%n",
+        jobs.size(), elapsedMs, unchanged, persisted, failed);
+    jobs.clear();
+  }
+
+  private static String hash(SparkBaseConfig config) {
+    CRC32 crc = new CRC32();
+    crc.update(config.flatten().getBytes(StandardCharsets.UTF_8));
+    return Long.toHexString(crc.getValue());
+  }
+
+  private static Properties loadHashes() {
+    Properties hashes = new Properties();
+    if (hashFile.isFile()) {
+      try (InputStream in = new FileInputStream(hashFile)) {
+        hashes.load(in);
+      } catch (IOException e) {
+        // Treat every device as changed
+        DriverStation.reportWarning("Could not read " + hashFile + ": " + e.getMessage(), false);
+      }
+    }
+    return hashes;
+  }
+
+  private static void saveHashes() {
+    try (OutputStream out = new FileOutputStream(hashFile)) {
+      persistedHashes.store(out, "Hashes of the configurations persisted to each SPARK");
+    } catch (IOException e) {
+      DriverStation.reportWarning("Could not write " + hashFile + ": " + e.getMessage(), false);
+    }
+  }
+}
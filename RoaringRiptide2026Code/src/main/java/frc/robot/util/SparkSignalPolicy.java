@@ -0,0 +1,97 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import com.revrobotics.spark.config.SparkBaseConfig;
+
+import frc.robot.Constants.CanConstants;
+
+/**
+ * How often each kind of SPARK sends each group of status signals over CAN.
+ *
+ * <p>A SPARK packs its signals into a handful of periodic status frames and sends each frame at the
+ * fastest period of any signal in it. Frames whose signals the code never reads stay off. Each
+ * policy only asks for what that motor's IO layer reads, at the rate it is read, so the odometry
+ * frames are not queued behind data nobody uses.
+ */
+public enum SparkSignalPolicy {
+  /** Drive motor: wheel position at the odometry rate, output and current every loop. */
+  DRIVE(CanConstants.kLoopPeriodMs, CanConstants.kOdometryPeriodMs, CanConstants.kUnused, false),
+  /** Turning motor: absolute angle at the odometry rate, output and current every loop. */
+  TURN(CanConstants.kLoopPeriodMs, CanConstants.kUnused, CanConstants.kOdometryPeriodMs, false),
+  /**
+   * Flywheel leader: velocity and current at the feed meter rate, so a shot is seen within a few
+   * milliseconds. Followed, so its status frame is never slower than the follower needs.
+   */
+  FLYWHEEL(
+      CanConstants.kFeedMeterPeriodMs, CanConstants.kFeedMeterPeriodMs, CanConstants.kUnused, true),
+  /** Flywheel follower: only output and current, slowly, for the dashboard. */
+  FLYWHEEL_FOLLOWER(CanConstants.kSlowPeriodMs, CanConstants.kUnused, CanConstants.kUnused, false),
+  /** Intake roller: current every loop, to count the pieces it pulls in; velocity slowly. */
+  INTAKE(CanConstants.kLoopPeriodMs, CanConstants.kSlowPeriodMs, CanConstants.kUnused, false),
+  /** Open loop rollers: slow output, current, temperature and velocity. */
+  ROLLER(CanConstants.kSlowPeriodMs, CanConstants.kSlowPeriodMs, CanConstants.kUnused, false);
+
+  // Applied output, bus voltage, current, temperature and limit switches share one frame
+  private final int m_statusPeriodMs;
+  private final int m_primaryEncoderPeriodMs;
+  private final int m_absoluteEncoderPeriodMs;
+
+  /**
+   * @param followed Whether another SPARK follows this one. A follower copies the leader's applied
+   *     output from its status frame, so that frame is sent at least every
+   *     {@link CanConstants#kFollowedPeriodMs} whatever {@code statusPeriodMs} asks for.
+   */
+  SparkSignalPolicy(
+      int statusPeriodMs,
+      int primaryEncoderPeriodMs,
+      int absoluteEncoderPeriodMs,
+      boolean followed) {
+    boolean tooSlowToFollow = statusPeriodMs == CanConstants.kUnused
+        || statusPeriodMs > CanConstants.kFollowedPeriodMs;
+    m_statusPeriodMs =
+        followed && tooSlowToFollow ? CanConstants.kFollowedPeriodMs : statusPeriodMs;
+    m_primaryEncoderPeriodMs = primaryEncoderPeriodMs;
+    m_absoluteEncoderPeriodMs = absoluteEncoderPeriodMs;
+  }
+
+  /**
+   * Sets the signal periods on a configuration. Call this last, after anything that copies another
+   * configuration in with apply().
+   *
+   * @param config The configuration to change.
+   */
+  public void applyTo(SparkBaseConfig config) {
+    config.signals
+        .appliedOutputPeriodMs(m_statusPeriodMs)
+        .busVoltagePeriodMs(m_statusPeriodMs)
+        .outputCurrentPeriodMs(m_statusPeriodMs)
+        .motorTemperaturePeriodMs(m_statusPeriodMs)
+        .faultsPeriodMs(CanConstants.kFaultsPeriodMs)
+        .warningsPeriodMs(CanConstants.kFaultsPeriodMs);
+    if (m_primaryEncoderPeriodMs != CanConstants.kUnused) {
+      config.signals
+          .primaryEncoderPositionPeriodMs(m_primaryEncoderPeriodMs)
+          .primaryEncoderVelocityPeriodMs(m_primaryEncoderPeriodMs);
+    }
+    if (m_absoluteEncoderPeriodMs != CanConstants.kUnused) {
+      config.signals
+          .absoluteEncoderPositionPeriodMs(m_absoluteEncoderPeriodMs)
+          .absoluteEncoderVelocityPeriodMs(m_absoluteEncoderPeriodMs);
+    }
+  }
+
+  /** Returns how many status frames per second a SPARK with this policy sends. */
+  public double getStatusFramesPerSecond() {
+    return framesPerSecond(m_statusPeriodMs)
+        + framesPerSecond(CanConstants.kFaultsPeriodMs)
+        + framesPerSecond(m_primaryEncoderPeriodMs)
+        + framesPerSecond(m_absoluteEncoderPeriodMs);
+  }
+
+  private static double framesPerSecond(int periodMs) {
+    return periodMs == CanConstants.kUnused ? 0.0 : 1000.0 / periodMs;
+  }
+}
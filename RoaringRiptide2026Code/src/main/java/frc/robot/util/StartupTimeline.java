@@ -0,0 +1,67 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how long each phase of robot startup took, from the start of the {@code Robot}
+ * constructor to the end of the first robot loop.
+ *
+ * <p>Call {@link #mark(String)} at the end of each phase; the phase is charged with the time since
+ * the previous mark. {@link #finish()} prints the whole timeline once, so it shows up in the
+ * Driver Station console and the log next to "Robot program startup complete".
+ */
+public final class StartupTimeline {
+  private static final List<String> phases = new ArrayList<>();
+  private static final List<Long> endNanos = new ArrayList<>();
+  private static long startNanos = System.nanoTime();
+  private static boolean finished = false;
+
+  private StartupTimeline() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /** Starts the timeline. Call this first thing in the {@code Robot} constructor. */
+  public static synchronized void begin() {
+    startNanos = System.nanoTime();
+    phases.clear();
+    endNanos.clear();
+    finished = false;
+  }
+
+  /**
+   * Ends a phase.
+   *
+   * @param phase What the robot was doing since the previous mark.
+   */
+  public static synchronized void mark(String phase) {
+    if (finished) {
+      return;
+    }
+    phases.add(phase);
+    endNanos.add(System.nanoTime());
+  }
+
+  /** Prints the timeline. Only the first call does anything. */
+  public static synchronized void finish() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+
+    StringBuilder report = new StringBuilder("---> Startup timeline\n");
+    long previousNanos = startNanos;
+    for (int i = 0; i < phases.size(); i++) {
+      long end = endNanos.get(i);
+      report.append(String.format(
+          "  %8.1f ms  %7.1f ms  %s%n",
+          (end - startNanos) / 1e6, (end - previousNanos) / 1e6, phases.get(i)));
+      previousNanos = end;
+    }
+    System.out.print(report);
+  }
+}
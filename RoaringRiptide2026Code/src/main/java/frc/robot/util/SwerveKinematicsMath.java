@@ -0,0 +1,183 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Swerve kinematics on primitive doubles. This does the same math as
+ * {@link edu.wpi.first.math.kinematics.SwerveDriveKinematics} and
+ * {@link edu.wpi.first.math.kinematics.SwerveModuleState#optimize}, but reads and writes
+ * caller-owned {@link MutableModuleState}s so nothing is allocated per call.
+ */
+public final class SwerveKinematicsMath {
+  private final int m_moduleCount;
+  private final double[] m_moduleX;
+  private final double[] m_moduleY;
+  // Least squares forward kinematics matrix, 3 rows by 2 * moduleCount columns
+  private final double[] m_forward;
+
+  /**
+   * Constructs the kinematics for modules at the given locations relative to the robot center.
+   *
+   * @param moduleLocations Module locations, in the same order states will be passed.
+   */
+  public SwerveKinematicsMath(Translation2d... moduleLocations) {
+    m_moduleCount = moduleLocations.length;
+    m_moduleX = new double[m_moduleCount];
+    m_moduleY = new double[m_moduleCount];
+    for (int i = 0; i < m_moduleCount; i++) {
+      m_moduleX[i] = moduleLocations[i].getX();
+      m_moduleY[i] = moduleLocations[i].getY();
+    }
+    m_forward = computeForwardMatrix(m_moduleX, m_moduleY);
+  }
+
+  /**
+   * Converts robot relative chassis speeds into module states. If all speeds are zero the module
+   * speeds are zeroed and the angles are left where they were, like
+   * SwerveDriveKinematics.toSwerveModuleStates().
+   *
+   * @param vx Forward velocity in meters per second.
+   * @param vy Sideways velocity in meters per second.
+   * @param omega Angular velocity in radians per second.
+   * @param out States to fill in.
+   */
+  public void toModuleStates(double vx, double vy, double omega, MutableModuleState[] out) {
+    if (vx == 0.0 && vy == 0.0 && omega == 0.0) {
+      for (int i = 0; i < m_moduleCount; i++) {
+        out[i].speedMetersPerSecond = 0.0;
+      }
+      return;
+    }
+
+    for (int i = 0; i < m_moduleCount; i++) {
+      double moduleVx = vx - omega * m_moduleY[i];
+      double moduleVy = vy + omega * m_moduleX[i];
+      out[i].speedMetersPerSecond = Math.sqrt(moduleVx * moduleVx + moduleVy * moduleVy);
+      out[i].angleRadians = Math.atan2(moduleVy, moduleVx);
+    }
+  }
+
+  /**
+   * Converts measured module states into robot relative chassis speeds using a least squares fit.
+   *
+   * @param states Measured module states.
+   * @param out Chassis speeds to fill in.
+   */
+  public void toChassisSpeeds(MutableModuleState[] states, ChassisSpeeds out) {
+    double vx = 0.0;
+    double vy = 0.0;
+    double omega = 0.0;
+    int columns = 2 * m_moduleCount;
+    for (int i = 0; i < m_moduleCount; i++) {
+      double speed = states[i].speedMetersPerSecond;
+      double angle = states[i].angleRadians;
+      double moduleVx = speed * Math.cos(angle);
+      double moduleVy = speed * Math.sin(angle);
+      int column = 2 * i;
+      vx += m_forward[column] * moduleVx + m_forward[column + 1] * moduleVy;
+      vy += m_forward[columns + column] * moduleVx + m_forward[columns + column + 1] * moduleVy;
+      omega += m_forward[2 * columns + column] * moduleVx
+          + m_forward[2 * columns + column + 1] * moduleVy;
+    }
+    out.vxMetersPerSecond = vx;
+    out.vyMetersPerSecond = vy;
+    out.omegaRadiansPerSecond = omega;
+  }
+
+  /**
+   * Scales all module speeds down together so none of them is faster than the limit.
+   *
+   * @param states States to desaturate in place.
+   * @param maxSpeedMetersPerSecond The fastest any module may be commanded.
+   */
+  public static void desaturate(MutableModuleState[] states, double maxSpeedMetersPerSecond) {
+    double fastest = 0.0;
+    for (MutableModuleState state : states) {
+      fastest = Math.max(fastest, Math.abs(state.speedMetersPerSecond));
+    }
+    if (fastest > maxSpeedMetersPerSecond) {
+      double scale = maxSpeedMetersPerSecond / fastest;
+      for (MutableModuleState state : states) {
+        state.speedMetersPerSecond *= scale;
+      }
+    }
+  }
+
+  /**
+   * Flips the state around if that gets the module there by turning less than 90 degrees. Same
+   * behaviour as SwerveModuleState.optimize().
+   *
+   * @param state State to optimize in place.
+   * @param currentAngleRadians The module's current angle.
+   */
+  public static void optimize(MutableModuleState state, double currentAngleRadians) {
+    double delta = MathUtil.angleModulus(state.angleRadians - currentAngleRadians);
+    if (Math.abs(delta) > Math.PI / 2) {
+      state.speedMetersPerSecond = -state.speedMetersPerSecond;
+      state.angleRadians = MathUtil.angleModulus(state.angleRadians + Math.PI);
+    }
+  }
+
+  /**
+   * Rotates field relative speeds into the robot frame.
+   *
+   * @param speeds Field relative speeds, converted in place.
+   * @param robotAngleRadians The robot heading.
+   */
+  public static void fieldToRobotRelative(ChassisSpeeds speeds, double robotAngleRadians) {
+    double cos = Math.cos(robotAngleRadians);
+    double sin = Math.sin(robotAngleRadians);
+    double vx = speeds.vxMetersPerSecond;
+    double vy = speeds.vyMetersPerSecond;
+    speeds.vxMetersPerSecond = vx * cos + vy * sin;
+    speeds.vyMetersPerSecond = -vx * sin + vy * cos;
+  }
+
+  /**
+   * Builds (A^T A)^-1 A^T for the inverse kinematics matrix A, whose rows are [1, 0, -y] and
+   * [0, 1, x] for each module. Only runs once, in the constructor.
+   */
+  private static double[] computeForwardMatrix(double[] moduleX, double[] moduleY) {
+    int n = moduleX.length;
+    double sumX = 0.0;
+    double sumY = 0.0;
+    double sumSquares = 0.0;
+    for (int i = 0; i < n; i++) {
+      sumX += moduleX[i];
+      sumY += moduleY[i];
+      sumSquares += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+    }
+
+    // A^T A is symmetric: [[n, 0, -sumY], [0, n, sumX], [-sumY, sumX, sumSquares]]
+    double a = n;
+    double c = -sumY;
+    double e = n;
+    double f = sumX;
+    double i9 = sumSquares;
+    double det = a * (e * i9 - f * f) + c * (-e * c);
+    double[][] inverse = {
+      {(e * i9 - f * f) / det, (c * f) / det, (-c * e) / det},
+      {(c * f) / det, (a * i9 - c * c) / det, (-a * f) / det},
+      {(-c * e) / det, (-a * f) / det, (a * e) / det}
+    };
+
+    int columns = 2 * n;
+    double[] forward = new double[3 * columns];
+    for (int row = 0; row < 3; row++) {
+      for (int module = 0; module < n; module++) {
+        // Column 2 * module of A^T is [1, 0, -y], column 2 * module + 1 is [0, 1, x]
+        forward[row * columns + 2 * module] =
+            inverse[row][0] - inverse[row][2] * moduleY[module];
+        forward[row * columns + 2 * module + 1] =
+            inverse[row][1] + inverse[row][2] * moduleX[module];
+      }
+    }
+    return forward;
+  }
+}
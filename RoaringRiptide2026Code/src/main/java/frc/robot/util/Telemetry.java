@@ -0,0 +1,238 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import edu.wpi.first.networktables.BooleanEntry;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.util.struct.Struct;
+
+/**
+ * Rate-limited dashboard telemetry.
+ *
+ * <p>Values are registered once, with a supplier and a tier, and {@link #update()} publishes them
+ * from robotPeriodic(). The publishers are created at registration, so publishing never looks up a
+ * key or allocates. Numbers and booleans are only sent when they change, and the suppliers for a
+ * tier are only called when that tier is due, so values that are only there for the dashboard cost
+ * nothing in between.
+ *
+ * <p>Everything is published under the SmartDashboard table, so existing dashboard layouts keep
+ * working.
+ */
+public final class Telemetry {
+  /** How often a value is published. */
+  public enum Tier {
+    /** Needed by the drivers during a match. Published every loop (50 Hz). */
+    CRITICAL(1),
+    /** Useful for tuning and in the pits. Published every 5th loop (10 Hz). */
+    DIAGNOSTIC(5),
+    /**
+     * Only useful while debugging. Published at the diagnostic rate, and only while
+     * "Telemetry/Debug Enabled" is set.
+     */
+    DEBUG(5);
+
+    private final int m_periodCycles;
+
+    Tier(int periodCycles) {
+      m_periodCycles = periodCycles;
+    }
+  }
+
+  /** One registered value. */
+  private abstract static class Item {
+    final Tier tier;
+    // Which loop of the tier's period this item is published on, to spread the work out
+    final int phase;
+
+    Item(Tier tier, int phase) {
+      this.tier = tier;
+      this.phase = phase;
+    }
+
+    abstract void publish();
+  }
+
+  private static final class NumberItem extends Item {
+    private final DoublePublisher m_publisher;
+    private final DoubleSupplier m_supplier;
+    private double m_lastValue = Double.NaN;
+
+    NumberItem(Tier tier, int phase, DoublePublisher publisher, DoubleSupplier supplier) {
+      super(tier, phase);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void publish() {
+      double value = m_supplier.getAsDouble();
+      // Compare bit patterns so NaN counts as unchanged
+      if (Double.doubleToLongBits(value) != Double.doubleToLongBits(m_lastValue)) {
+        m_publisher.set(value);
+        m_lastValue = value;
+      }
+    }
+  }
+
+  private static final class BooleanItem extends Item {
+    private final BooleanPublisher m_publisher;
+    private final BooleanSupplier m_supplier;
+    private boolean m_published = false;
+    private boolean m_lastValue = false;
+
+    BooleanItem(Tier tier, int phase, BooleanPublisher publisher, BooleanSupplier supplier) {
+      super(tier, phase);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void publish() {
+      boolean value = m_supplier.getAsBoolean();
+      if (!m_published || value != m_lastValue) {
+        m_publisher.set(value);
+        m_lastValue = value;
+        m_published = true;
+      }
+    }
+  }
+
+  private static final class StructItem<T> extends Item {
+    private final StructPublisher<T> m_publisher;
+    private final Supplier<T> m_supplier;
+
+    StructItem(Tier tier, int phase, StructPublisher<T> publisher, Supplier<T> supplier) {
+      super(tier, phase);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void publish() {
+      m_publisher.set(m_supplier.get());
+    }
+  }
+
+  private static final class StructArrayItem<T> extends Item {
+    private final StructArrayPublisher<T> m_publisher;
+    private final Supplier<T[]> m_supplier;
+
+    StructArrayItem(
+        Tier tier, int phase, StructArrayPublisher<T> publisher, Supplier<T[]> supplier) {
+      super(tier, phase);
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    void publish() {
+      m_publisher.set(m_supplier.get());
+    }
+  }
+
+  private static final NetworkTable table =
+      NetworkTableInstance.getDefault().getTable("SmartDashboard");
+  private static final BooleanEntry debugEnabled =
+      table.getBooleanTopic("Telemetry/Debug Enabled").getEntry(false);
+
+  private static final List<Item> items = new ArrayList<>();
+  private static final int[] registeredPerTier = new int[Tier.values().length];
+  private static int cycle = 0;
+  private static boolean debug = false;
+
+  static {
+    debugEnabled.set(false);
+  }
+
+  private Telemetry() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Publishes a number.
+   *
+   * @param tier How often to publish it.
+   * @param key SmartDashboard key.
+   * @param supplier Called on the main thread whenever the tier is due.
+   */
+  public static void addNumber(Tier tier, String key, DoubleSupplier supplier) {
+    add(new NumberItem(tier, nextPhase(tier), table.getDoubleTopic(key).publish(), supplier));
+  }
+
+  /**
+   * Publishes a boolean.
+   *
+   * @param tier How often to publish it.
+   * @param key SmartDashboard key.
+   * @param supplier Called on the main thread whenever the tier is due.
+   */
+  public static void addBoolean(Tier tier, String key, BooleanSupplier supplier) {
+    add(new BooleanItem(tier, nextPhase(tier), table.getBooleanTopic(key).publish(), supplier));
+  }
+
+  /**
+   * Publishes a struct-encoded value, e.g. a Pose2d.
+   *
+   * @param tier How often to publish it.
+   * @param key SmartDashboard key.
+   * @param struct The struct serializer, e.g. Pose2d.struct.
+   * @param supplier Called on the main thread whenever the tier is due.
+   */
+  public static <T> void addStruct(Tier tier, String key, Struct<T> struct, Supplier<T> supplier) {
+    add(new StructItem<>(
+        tier, nextPhase(tier), table.getStructTopic(key, struct).publish(), supplier));
+  }
+
+  /**
+   * Publishes a struct-encoded array, e.g. swerve module states.
+   *
+   * @param tier How often to publish it.
+   * @param key SmartDashboard key.
+   * @param struct The struct serializer for the elements.
+   * @param supplier Called on the main thread whenever the tier is due.
+   */
+  public static <T> void addStructArray(
+      Tier tier, String key, Struct<T> struct, Supplier<T[]> supplier) {
+    add(new StructArrayItem<>(
+        tier, nextPhase(tier), table.getStructArrayTopic(key, struct).publish(), supplier));
+  }
+
+  /** Publishes every value that is due this loop. Call once per loop from robotPeriodic(). */
+  public static void update() {
+    if (cycle % Tier.DIAGNOSTIC.m_periodCycles == 0) {
+      debug = debugEnabled.get();
+    }
+
+    for (int i = 0; i < items.size(); i++) {
+      Item item = items.get(i);
+      if (item.tier == Tier.DEBUG && !debug) {
+        continue;
+      }
+      if (cycle % item.tier.m_periodCycles == item.phase) {
+        item.publish();
+      }
+    }
+    cycle++;
+  }
+
+  private static synchronized void add(Item item) {
+    items.add(item);
+  }
+
+  private static synchronized int nextPhase(Tier tier) {
+    return registeredPerTier[tier.ordinal()]++ % tier.m_periodCycles;
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+import frc.robot.Constants.RealTimeConstants;
+
+/**
+ * Puts the threads that control the robot at real-time priority on the roboRIO.
+ *
+ * <p>While the robot is enabled, the main loop (the command scheduler and drive control) runs at
+ * {@link RealTimeConstants#kMainLoopPriority}, and the odometry thread runs a little higher. The
+ * HAL thread that wakes both of them up runs higher still. Everything else stays at normal
+ * priority, below all of them: NetworkTables, camera streaming, the Limelight JSON parser and the
+ * DataLogger writer. While disabled the main loop goes back to normal priority, so the warmup and
+ * auto prebuild cannot starve NetworkTables or the Driver Station connection.
+ *
+ * <p>Does nothing in simulation, or when {@link RealTimeConstants#kEnabled} is off.
+ */
+public final class ThreadPriorities {
+  private static boolean mainLoopRealTime = false;
+
+  private ThreadPriorities() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  private static boolean isActive() {
+    return RealTimeConstants.kEnabled && RobotBase.isReal();
+  }
+
+  /** Raises the HAL notifier thread. Call once at startup. */
+  public static void raiseHalNotifier() {
+    if (isActive() && !Notifier.setHALThreadPriority(true, RealTimeConstants.kHalNotifierPriority)) {
+      DriverStation.reportWarning("Could not raise the HAL notifier thread priority", false);
+    }
+  }
+
+  /**
+   * Switches the main loop between real-time and normal priority, and prints the loop start
+   * jitter measured at the old priority. Call from the main thread.
+   *
+   * @param realTime Whether the main loop should run at real-time priority.
+   */
+  public static void setMainLoopRealTime(boolean realTime) {
+    if (!isActive() || realTime == mainLoopRealTime) {
+      return;
+    }
+    LoopProfiler.reportJitter(mainLoopRealTime ? "real-time priority" : "normal priority");
+    if (Threads.setCurrentThreadPriority(realTime, realTime ? RealTimeConstants.kMainLoopPriority : 0)) {
+      mainLoopRealTime = realTime;
+    } else {
+      DriverStation.reportWarning("Could not change the main loop priority", false);
+    }
+  }
+
+  /**
+   * Raises the calling thread to a real-time priority for good.
+   *
+   * @param priority Real-time priority, 1 to 99.
+   */
+  public static void raiseCurrentThread(int priority) {
+    if (isActive() && !Threads.setCurrentThreadPriority(true, priority)) {
+      DriverStation.reportWarning(
+          "Could not raise " + Thread.currentThread().getName() + " to real-time priority", false);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.sim;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pathplanner.lib.auto.NamedCommands;
+import com.pathplanner.lib.commands.PathPlannerAuto;
+import com.pathplanner.lib.path.PathPlannerPath;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.Constants.SimConstants;
+import frc.robot.RobotContainer;
+import frc.robot.util.DataLogger;
+
+/**
+ * Runs every PathPlanner auto back to back in simulation, faster than real time, and checks that
+ * each one finishes within the autonomous period.
+ *
+ * <p>The HAL clock is paused and stepped by hand one loop at a time, so an auto runs as fast as the
+ * host can compute it and always gives the same result. For each auto it prints the total time,
+ * the time spent in each named command, how far the odometry drifted from the simulated robot's
+ * true pose, and how far the robot ended up from the end of the auto's last path. The whole run
+ * must be at least {@link #kMinSpeedup} times faster than real time.
+ */
+class AutoBenchmarkTest {
+  // Longest an auto is allowed to run, the length of the autonomous period
+  private static final double kAutoTimeLimitSeconds = 20.0;
+  // Disabled time between autos, so mechanisms spin down before the next one starts
+  private static final double kSettleSeconds = 1.0;
+  // How much faster than real time the autos must run, so the simulation stays useful for tuning
+  private static final double kMinSpeedup = 20.0;
+
+  /** How long each named command ran during one auto. */
+  private static final class CommandTimes {
+    final Map<String, Double> secondsByName = new LinkedHashMap<>();
+    final Map<String, Integer> runsByName = new LinkedHashMap<>();
+
+    void add(String name, double seconds) {
+      secondsByName.merge(name, seconds, Double::sum);
+      runsByName.merge(name, 1, Integer::sum);
+    }
+
+    void clear() {
+      secondsByName.clear();
+      runsByName.clear();
+    }
+  }
+
+  @BeforeAll
+  static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.setAutonomous(true);
+    setEnabled(false);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    CommandScheduler.getInstance().cancelAll();
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+    DriverStationSim.setAutonomous(false);
+    SimHooks.resumeTiming();
+  }
+
+  @Test
+  void autosFinishInTimeFasterThanRealTime() throws IOException {
+    DataLogger.start();
+    RobotContainer container = new RobotContainer();
+    DrivetrainSim drivetrainSim = container.getDrivetrainSim();
+
+    File autoFolder = new File(Filesystem.getDeployDirectory(), "pathplanner/autos");
+    List<String> autoNames = listAutos(autoFolder);
+    assertFalse(autoNames.isEmpty(), "No autos in " + autoFolder);
+
+    // Time every named command the autos use. The autos have to be built after this, so they pick
+    // up the timed versions.
+    CommandTimes times = new CommandTimes();
+    for (String name : namedCommandsIn(autoFolder, autoNames)) {
+      if (NamedCommands.hasCommand(name)) {
+        NamedCommands.registerCommand(name, timed(name, NamedCommands.getCommand(name), times));
+      }
+    }
+
+    List<Executable> checks = new ArrayList<>();
+    double totalSimSeconds = 0.0;
+    long benchmarkStartNanos = System.nanoTime();
+    for (String autoName : autoNames) {
+      times.clear();
+      PathPlannerAuto auto = new PathPlannerAuto(autoName);
+      Pose2d startingPose = auto.getStartingPose();
+      Translation2d pathEnd = lastPathEnd(autoName);
+
+      // Put the robot where the auto starts and let it settle
+      drivetrainSim.resetPose(startingPose);
+      container.m_robotDrive.resetOdometry(startingPose);
+      runLoops(container, kSettleSeconds);
+
+      setEnabled(true);
+      CommandScheduler.getInstance().schedule(auto);
+      long startNanos = System.nanoTime();
+      double startSeconds = Timer.getFPGATimestamp();
+      while (auto.isScheduled() && Timer.getFPGATimestamp() - startSeconds < kAutoTimeLimitSeconds) {
+        runLoops(container, SimConstants.kDtSeconds);
+      }
+      boolean finished = !auto.isScheduled();
+      double autoSeconds = Timer.getFPGATimestamp() - startSeconds;
+      double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+      CommandScheduler.getInstance().cancelAll();
+      setEnabled(false);
+      totalSimSeconds += autoSeconds;
+      checks.add(() -> assertTrue(
+          finished,
+          String.format("%s did not finish within %.0f s", autoName, kAutoTimeLimitSeconds)));
+
+      Pose2d truePose = drivetrainSim.getPose();
+      Pose2d estimatedPose = container.m_robotDrive.getPose();
+      System.out.printf(
+          "%s: %.2f s%s, %.0fx real time%n",
+          autoName, autoSeconds, finished ? "" : " (hit the time limit)", autoSeconds / wallSeconds);
+      for (Map.Entry<String, Double> entry : times.secondsByName.entrySet()) {
+        System.out.printf(
+            "  %-16s %2d run(s) %6.2f s%n",
+            entry.getKey(), times.runsByName.get(entry.getKey()), entry.getValue());
+      }
+      System.out.printf(
+          "  odometry error   %.3f m, %.1f deg%n",
+          estimatedPose.getTranslation().getDistance(truePose.getTranslation()),
+          Math.abs(estimatedPose.getRotation().minus(truePose.getRotation()).getDegrees()));
+      if (pathEnd != null) {
+        System.out.printf(
+            "  path end error   %.3f m%n", truePose.getTranslation().getDistance(pathEnd));
+      }
+    }
+
+    double benchmarkSeconds = (System.nanoTime() - benchmarkStartNanos) / 1e9;
+    double speedup = totalSimSeconds / benchmarkSeconds;
+    System.out.printf(
+        "%d autos, %.1f s of auto in %.1f s, %.0fx real time%n",
+        autoNames.size(), totalSimSeconds, benchmarkSeconds, speedup);
+    checks.add(() -> assertTrue(
+        speedup >= kMinSpeedup,
+        String.format("Autos ran %.1fx real time, need at least %.0fx", speedup, kMinSpeedup)));
+    assertAll(checks);
+  }
+
+  /** Runs the robot loop, stepping simulated time, until {@code seconds} have passed. */
+  private static void runLoops(RobotContainer container, double seconds) {
+    int loops = (int) Math.round(seconds / SimConstants.kDtSeconds);
+    for (int i = 0; i < loops; i++) {
+      DriverStation.refreshData();
+      CommandScheduler.getInstance().run();
+      container.simulationPeriodic();
+      SimHooks.stepTiming(SimConstants.kDtSeconds);
+    }
+  }
+
+  private static void setEnabled(boolean enabled) {
+    DriverStationSim.setEnabled(enabled);
+    DriverStationSim.notifyNewData();
+    DriverStation.refreshData();
+  }
+
+  /** Wraps a command so its run time is added to {@code times} when it ends. */
+  private static Command timed(String name, Command command, CommandTimes times) {
+    double[] startSeconds = new double[1];
+    return new FunctionalCommand(
+        () -> {
+          startSeconds[0] = Timer.getFPGATimestamp();
+          command.initialize();
+        },
+        command::execute,
+        interrupted -> {
+          command.end(interrupted);
+          times.add(name, Timer.getFPGATimestamp() - startSeconds[0]);
+        },
+        command::isFinished,
+        command.getRequirements().toArray(Subsystem[]::new));
+  }
+
+  private static List<String> listAutos(File autoFolder) {
+    List<String> names = new ArrayList<>();
+    File[] files = autoFolder.listFiles((dir, file) -> file.endsWith(".auto"));
+    if (files != null) {
+      for (File file : files) {
+        names.add(file.getName().substring(0, file.getName().length() - ".auto".length()));
+      }
+    }
+    names.sort(null);
+    return names;
+  }
+
+  /** Finds every named command used by the given autos. */
+  private static Set<String> namedCommandsIn(File autoFolder, List<String> autoNames)
+      throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    Set<String> names = new LinkedHashSet<>();
+    for (String autoName : autoNames) {
+      JsonNode root = mapper.readTree(new File(autoFolder, autoName + ".auto"));
+      for (JsonNode node : root.findParents("type")) {
+        if ("named".equals(node.path("type").asText())) {
+          names.add(node.path("data").path("name").asText());
+        }
+      }
+    }
+    return names;
+  }
+
+  /** Returns where the auto's last path ends, or null if the auto has no paths. */
+  private static Translation2d lastPathEnd(String autoName) {
+    try {
+      List<PathPlannerPath> paths = PathPlannerAuto.getPathGroupFromAutoFile(autoName);
+      if (paths.isEmpty()) {
+        return null;
+      }
+      List<Pose2d> poses = paths.get(paths.size() - 1).getPathPoses();
+      return poses.get(poses.size() - 1).getTranslation();
+    } catch (Exception e) {
+      DriverStation.reportWarning("Could not load the paths of " + autoName + ": " + e, false);
+      return null;
+    }
+  }
+}
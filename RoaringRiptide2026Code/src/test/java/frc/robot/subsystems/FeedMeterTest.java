@@ -0,0 +1,115 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.LauncherSubsystemConstants.FeedMetering;
+import frc.robot.Constants.PowerConstants;
+
+/** Drives the feed meter with a fake flywheel and checks which readings it counts as shots. */
+class FeedMeterTest {
+  private static final double kTargetRpm = 4000;
+  private static final double kFeederPower = 0.9;
+  private static final double kSteadyAmps = 10;
+
+  /** A flywheel whose readings the test sets. */
+  static final class FakeFlywheel implements FlywheelIO {
+    volatile double rpm = kTargetRpm;
+    volatile double amps = kSteadyAmps;
+
+    @Override
+    public double getVelocityRpm() {
+      return rpm;
+    }
+
+    @Override
+    public double getCurrentAmps() {
+      return amps;
+    }
+  }
+
+  private FakeFlywheel m_flywheel;
+  private FeedMeter m_meter;
+
+  @BeforeAll
+  static void setupAll() {
+    assertTrue(HAL.initialize(500, 0));
+  }
+
+  @BeforeEach
+  void setup() {
+    m_flywheel = new FakeFlywheel();
+    m_meter = new FeedMeter(m_flywheel, new RollerIO() {});
+    m_meter.arm(kTargetRpm, kFeederPower);
+  }
+
+  @Test
+  void opensTheGateOnceTheFlywheelIsAtSpeed() {
+    assertTrue(m_meter.isGateOpen());
+    assertEquals(0, m_meter.getShotCount());
+  }
+
+  @Test
+  void countsASpeedDip() {
+    m_flywheel.rpm = kTargetRpm - 2 * FeedMetering.kShotDropRpm;
+    m_meter.sampleNow();
+
+    assertEquals(1, m_meter.getShotCount());
+    assertFalse(m_meter.isGateOpen());
+
+    m_flywheel.rpm = kTargetRpm;
+    m_meter.sampleNow();
+    assertTrue(m_meter.isGateOpen());
+  }
+
+  @Test
+  void raisingTheTargetIsNotAShot() {
+    m_meter.update(kTargetRpm + 4 * FeedMetering.kShotDropRpm, kFeederPower);
+    m_meter.sampleNow();
+    // Spinning up toward the new target
+    m_flywheel.rpm = kTargetRpm + FeedMetering.kShotDropRpm;
+    m_meter.sampleNow();
+
+    assertEquals(0, m_meter.getShotCount());
+  }
+
+  @Test
+  void loweringTheTargetIsNotAShot() {
+    m_meter.update(kTargetRpm - 4 * FeedMetering.kShotDropRpm, kFeederPower);
+    m_meter.sampleNow();
+    // Slowing down toward the new target
+    m_flywheel.rpm = kTargetRpm - 3 * FeedMetering.kShotDropRpm;
+    m_meter.sampleNow();
+
+    assertEquals(0, m_meter.getShotCount());
+  }
+
+  @Test
+  void currentThresholdFollowsACutLimit() {
+    int limit = PowerConstants.kFlywheelMinCurrentAmps;
+    m_meter.setCurrentLimit(limit);
+    // Held at the cut limit, the current can never reach the threshold for the full limit
+    m_flywheel.amps = limit;
+    m_meter.sampleNow();
+
+    assertEquals(1, m_meter.getShotCount());
+  }
+
+  @Test
+  void steadyCurrentIsNotAShotAtTheCutLimit() {
+    m_meter.setCurrentLimit(PowerConstants.kFlywheelMinCurrentAmps);
+    m_meter.sampleNow();
+
+    assertEquals(0, m_meter.getShotCount());
+  }
+}
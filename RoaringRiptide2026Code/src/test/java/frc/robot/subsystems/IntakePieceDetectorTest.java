@@ -0,0 +1,103 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants.IntakeSubsystemConstants.PieceDetection;
+
+/** Feeds the intake piece detector current traces and checks which spikes it counts. */
+class IntakePieceDetectorTest {
+  private static final double kDtSeconds = 0.02;
+  private static final double kIntakeOutput = 0.8;
+  private static final double kFreeAmps = 10.0;
+  private static final double kPieceAmps = kFreeAmps + 2 * PieceDetection.kIntakeSpikeAmps;
+
+  private IntakePieceDetector m_detector;
+  private double m_nowSeconds;
+
+  @BeforeEach
+  void setup() {
+    m_detector = new IntakePieceDetector();
+    m_nowSeconds = 0.0;
+  }
+
+  @Test
+  void countsOnePiecePerSpike() {
+    run(1.0, kIntakeOutput, kFreeAmps);
+    run(0.1, kIntakeOutput, kPieceAmps);
+    run(0.3, kIntakeOutput, kFreeAmps);
+    run(0.1, kIntakeOutput, kPieceAmps);
+    run(0.3, kIntakeOutput, kFreeAmps);
+
+    assertEquals(2, m_detector.getCount());
+  }
+
+  @Test
+  void countsALongSpikeOnce() {
+    run(1.0, kIntakeOutput, kFreeAmps);
+    run(1.0, kIntakeOutput, kPieceAmps);
+
+    assertEquals(1, m_detector.getCount());
+  }
+
+  @Test
+  void ignoresTheSpinUpCurrent() {
+    run(PieceDetection.kIntakeSpinUpSeconds / 2, kIntakeOutput, kPieceAmps);
+    run(1.0, kIntakeOutput, kFreeAmps);
+
+    assertEquals(0, m_detector.getCount());
+  }
+
+  @Test
+  void ignoresSpikesWhileStoppedOrOuttaking() {
+    for (double output : new double[] {0.0, -kIntakeOutput}) {
+      run(1.0, output, kFreeAmps);
+      run(0.1, output, kPieceAmps);
+      run(0.3, output, kFreeAmps);
+    }
+
+    assertEquals(0, m_detector.getCount());
+  }
+
+  @Test
+  void ignoresASecondSpikeTooSoonAfterAPiece() {
+    run(1.0, kIntakeOutput, kFreeAmps);
+    assertTrue(step(kIntakeOutput, kPieceAmps));
+    step(kIntakeOutput, kFreeAmps);
+    step(kIntakeOutput, kPieceAmps);
+
+    assertTrue(m_nowSeconds - 1.0 < PieceDetection.kMinPieceSpacingSeconds);
+    assertEquals(1, m_detector.getCount());
+  }
+
+  @Test
+  void restartingTheIntakeWaitsForSpinUpAgain() {
+    run(1.0, kIntakeOutput, kFreeAmps);
+    run(0.2, 0.0, 0.0);
+    run(PieceDetection.kIntakeSpinUpSeconds / 2, kIntakeOutput, kPieceAmps);
+
+    assertEquals(0, m_detector.getCount());
+  }
+
+  /** Takes readings every loop for {@code seconds}. */
+  private void run(double seconds, double appliedOutput, double amps) {
+    int loops = (int) Math.round(seconds / kDtSeconds);
+    for (int i = 0; i < loops; i++) {
+      step(appliedOutput, amps);
+    }
+  }
+
+  /** Takes one reading, then advances the clock a loop. */
+  private boolean step(double appliedOutput, double amps) {
+    boolean counted = m_detector.update(m_nowSeconds, appliedOutput, amps);
+    m_nowSeconds += kDtSeconds;
+    return counted;
+  }
+}
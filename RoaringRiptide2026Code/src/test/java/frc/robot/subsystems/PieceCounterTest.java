@@ -0,0 +1,228 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.IntakeSubsystemConstants.PieceDetection;
+import frc.robot.Constants.LauncherSubsystemConstants.FeedMetering;
+
+/** Steps the piece counter through intakes, shots and launches, and checks when it runs empty. */
+class PieceCounterTest {
+  private static final double kShotSpacingSeconds = 0.2;
+
+  private PieceCounter m_counter;
+  private double m_nowSeconds;
+  private long m_intakes;
+  private long m_shots;
+  private boolean m_gateOpen;
+
+  @BeforeAll
+  static void setupAll() {
+    assertTrue(HAL.initialize(500, 0));
+  }
+
+  @AfterAll
+  static void tearDown() {
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+  }
+
+  @BeforeEach
+  void setup() {
+    m_counter = new PieceCounter(() -> 0, () -> 0, () -> false, () -> false, () -> false);
+    m_nowSeconds = 0.0;
+    m_intakes = 0;
+    m_shots = 0;
+    m_gateOpen = true;
+  }
+
+  @Test
+  void startsWithThePreloadedPieces() {
+    assertEquals(PieceDetection.kPreloadedPieces, m_counter.getCount());
+    assertTrue(m_counter.hasPieces());
+  }
+
+  @Test
+  void countsIntakesMinusShots() {
+    m_intakes = 3;
+    idle(0.02);
+    assertEquals(PieceDetection.kPreloadedPieces + 3, m_counter.getCount());
+
+    m_shots = 5;
+    idle(0.02);
+    assertEquals(PieceDetection.kPreloadedPieces - 2, m_counter.getCount());
+  }
+
+  @Test
+  void staysWithinTheHopper() {
+    m_intakes = 2L * PieceDetection.kHopperCapacity;
+    idle(0.02);
+    assertEquals(PieceDetection.kHopperCapacity, m_counter.getCount());
+
+    m_counter.setCount(-1);
+    assertEquals(0, m_counter.getCount());
+    assertFalse(m_counter.hasPieces());
+  }
+
+  @Test
+  void outtakingEmptiesTheCount() {
+    m_intakes = 3;
+    m_counter.update(m_nowSeconds, m_intakes, m_shots, true, false, true);
+
+    assertEquals(0, m_counter.getCount());
+  }
+
+  @Test
+  void neverEmptyWhileNotLaunching() {
+    m_counter.setCount(0);
+    idle(2 * PieceDetection.kNoShotEmptySeconds);
+
+    assertFalse(m_counter.isEmpty());
+  }
+
+  @Test
+  void emptyShortlyAfterTheLastCountedPieceIsShot() {
+    for (int i = 0; i < PieceDetection.kPreloadedPieces; i++) {
+      launch(kShotSpacingSeconds);
+      m_shots++;
+    }
+    launch(0.02);
+    assertEquals(0, m_counter.getCount());
+
+    launch(PieceDetection.kEmptyConfirmSeconds - 0.1);
+    assertFalse(m_counter.isEmpty());
+    launch(0.2);
+    assertTrue(m_counter.isEmpty());
+  }
+
+  @Test
+  void countOfZeroWaitsForTheFirstShot() {
+    // The intake missed every piece, so the launch starts at 0
+    m_counter.setCount(0);
+
+    launch(PieceDetection.kNoShotEmptySeconds - 0.1);
+    assertFalse(m_counter.isEmpty());
+
+    // A piece nobody counted comes out, and another soon after
+    m_shots++;
+    launch(PieceDetection.kEmptyConfirmSeconds - 0.1);
+    assertFalse(m_counter.isEmpty());
+    m_shots++;
+    launch(PieceDetection.kEmptyConfirmSeconds - 0.1);
+    assertFalse(m_counter.isEmpty());
+
+    // Then nothing more
+    launch(0.2);
+    assertTrue(m_counter.isEmpty());
+  }
+
+  @Test
+  void emptyWhenNothingComesOutDespiteTheCount() {
+    launch(PieceDetection.kNoShotEmptySeconds - 0.1);
+    assertFalse(m_counter.isEmpty());
+    assertTrue(m_counter.hasPieces());
+
+    launch(0.2);
+    assertTrue(m_counter.isEmpty());
+    assertEquals(0, m_counter.getCount());
+  }
+
+  @Test
+  void eachLaunchStartsItsOwnShotCount() {
+    // The first launch fires once, the second starts at 0 and must not reuse that shot
+    m_counter.setCount(1);
+    launch(0.1);
+    m_shots++;
+    launch(0.1);
+    idle(1.0);
+
+    launch(PieceDetection.kEmptyConfirmSeconds + 0.1);
+    assertFalse(m_counter.isEmpty());
+  }
+
+  @Test
+  void zeroCountWaitsForTheFlywheelToRecover() {
+    m_counter.setCount(1);
+    launch(0.1);
+    // The shot closes the gate, and the flywheel is slow to recover
+    m_shots++;
+    m_gateOpen = false;
+    launch(PieceDetection.kEmptyConfirmSeconds + 0.3);
+    assertEquals(0, m_counter.getCount());
+    assertFalse(m_counter.isEmpty());
+
+    // The confirm time only starts once the gate is open again
+    m_gateOpen = true;
+    launch(PieceDetection.kEmptyConfirmSeconds - 0.1);
+    assertFalse(m_counter.isEmpty());
+    launch(0.2);
+    assertTrue(m_counter.isEmpty());
+  }
+
+  @Test
+  void onlyRealShotsCountWhileTheTargetMoves() {
+    FeedMeterTest.FakeFlywheel flywheel = new FeedMeterTest.FakeFlywheel();
+    FeedMeter meter = new FeedMeter(flywheel, new RollerIO() {});
+    m_counter.setCount(1);
+    double targetRpm = flywheel.rpm;
+    meter.arm(targetRpm, 0.9);
+
+    // The robot drives away from the hub, so the shot map keeps raising the target faster than
+    // the flywheel can follow. The target ends up far above the speed, but none of that is a shot.
+    for (int i = 0; i < 50; i++) {
+      targetRpm += 20;
+      flywheel.rpm += 10;
+      meter.update(targetRpm, 0.9);
+      stepWith(meter);
+    }
+    assertTrue(targetRpm - flywheel.rpm > FeedMetering.kShotDropRpm);
+    assertEquals(0, meter.getShotCount());
+    assertEquals(1, m_counter.getCount());
+    assertFalse(m_counter.isEmpty());
+
+    // The piece really goes out while the target is still moving
+    targetRpm += 20;
+    flywheel.rpm -= 2 * FeedMetering.kShotDropRpm;
+    meter.update(targetRpm, 0.9);
+    stepWith(meter);
+    assertEquals(1, meter.getShotCount());
+    assertEquals(0, m_counter.getCount());
+  }
+
+  /** Runs one loop with the shots and gate read from a feed meter. */
+  private void stepWith(FeedMeter meter) {
+    meter.sampleNow();
+    m_nowSeconds += 0.02;
+    m_counter.update(
+        m_nowSeconds, m_intakes, meter.getShotCount(), false, meter.isArmed(), meter.isGateOpen());
+  }
+
+  /** Runs loops for {@code seconds} without launching. */
+  private void idle(double seconds) {
+    step(seconds, false);
+  }
+
+  /** Runs loops for {@code seconds} while launching. */
+  private void launch(double seconds) {
+    step(seconds, true);
+  }
+
+  private void step(double seconds, boolean launching) {
+    int loops = Math.max(1, (int) Math.round(seconds / 0.02));
+    for (int i = 0; i < loops; i++) {
+      m_nowSeconds += 0.02;
+      m_counter.update(m_nowSeconds, m_intakes, m_shots, false, launching, m_gateOpen);
+    }
+  }
+}
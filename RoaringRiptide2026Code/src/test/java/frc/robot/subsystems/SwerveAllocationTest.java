@@ -0,0 +1,164 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * The swerve code that runs every loop must not allocate. Each test runs a path long enough for
+ * the JIT to compile it, then checks that many more calls allocate 0 bytes on this thread.
+ *
+ * <p>The one exception is the WPILib pose estimator. It takes immutable Rotation2ds and allocates
+ * inside every update, so a full drive cycle is measured against an estimator updated the same way
+ * on its own, and only the difference has to be 0.
+ */
+class SwerveAllocationTest {
+  private static final int kWarmupCalls = 20_000;
+  private static final int kMeasuredCalls = 5_000;
+
+  private static com.sun.management.ThreadMXBean threads;
+
+  @BeforeAll
+  static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    assumeTrue(
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported(),
+        "This JVM cannot count allocations per thread");
+    threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    threads.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+  }
+
+  @Test
+  void setDesiredStateDoesNotAllocate() {
+    MAXSwerveModule module =
+        new MAXSwerveModule(new ModuleIO() {}, DriveConstants.kFrontLeftChassisAngularOffset);
+
+    for (int i = 0; i < kWarmupCalls; i++) {
+      module.setDesiredState(speed(i), angle(i));
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < kMeasuredCalls; i++) {
+      module.setDesiredState(speed(i), angle(i));
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+    assertEquals(0, allocated, "setDesiredState(double, double) allocated bytes");
+  }
+
+  @Test
+  void driveDoesNotAllocate() {
+    DriveSubsystem drive = newDrive();
+
+    for (int i = 0; i < kWarmupCalls; i++) {
+      drive.drive(Math.sin(i * 0.01), Math.cos(i * 0.01), 0.5 * Math.sin(i * 0.02), (i & 1) == 0);
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < kMeasuredCalls; i++) {
+      drive.drive(Math.sin(i * 0.01), Math.cos(i * 0.01), 0.5 * Math.sin(i * 0.02), (i & 1) == 0);
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+    assertEquals(0, allocated, "drive() allocated bytes");
+  }
+
+  @Test
+  void periodicCycleOnlyAllocatesInThePoseEstimator() {
+    DriveSubsystem drive = newDrive();
+    // The same estimator update periodic() makes for each odometry sample: a gyro Rotation2d and
+    // one per module, built from primitives at the call
+    SwerveModulePosition[] positions = {
+      new SwerveModulePosition(), new SwerveModulePosition(),
+      new SwerveModulePosition(), new SwerveModulePosition()
+    };
+    SwerveDrivePoseEstimator estimator = new SwerveDrivePoseEstimator(
+        DriveConstants.kDriveKinematics, new Rotation2d(), positions, new Pose2d());
+
+    for (int i = 0; i < kWarmupCalls; i++) {
+      runCycle(drive);
+      updateEstimator(estimator, positions, i);
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < kMeasuredCalls; i++) {
+      runCycle(drive);
+    }
+    long cycleBytes = threads.getCurrentThreadAllocatedBytes() - before;
+    before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = kWarmupCalls; i < kWarmupCalls + kMeasuredCalls; i++) {
+      updateEstimator(estimator, positions, i);
+    }
+    long estimatorBytes = threads.getCurrentThreadAllocatedBytes() - before;
+
+    long otherBytes = Math.max(0, cycleBytes - estimatorBytes);
+    assertEquals(
+        0, otherBytes,
+        "A drive cycle allocated " + cycleBytes + " bytes, the pose estimator " + estimatorBytes);
+  }
+
+  @Test
+  void robotRelativeSpeedsAreReused() {
+    DriveSubsystem drive = newDrive();
+
+    assertSame(drive.getRobotRelativeSpeeds(), drive.getRobotRelativeSpeeds());
+  }
+
+  /**
+   * One loop of the drive as the robot runs it: periodic() with its odometry update and logging,
+   * the speeds PathPlanner reads and the module states telemetry publishes.
+   */
+  private static void runCycle(DriveSubsystem drive) {
+    drive.periodic();
+    drive.getRobotRelativeSpeeds();
+    drive.measuredModuleStates();
+  }
+
+  private static void updateEstimator(
+      SwerveDrivePoseEstimator estimator, SwerveModulePosition[] positions, int i) {
+    for (SwerveModulePosition position : positions) {
+      position.angle = new Rotation2d(0.0);
+    }
+    estimator.updateWithTime(i * 0.004, Rotation2d.fromDegrees(0.0), positions);
+  }
+
+  private static DriveSubsystem newDrive() {
+    return new DriveSubsystem(
+        new GyroIO() {},
+        new ModuleIO() {},
+        new ModuleIO() {},
+        new ModuleIO() {},
+        new ModuleIO() {},
+        new VisionSubsystem());
+  }
+
+  private static double speed(int i) {
+    return Math.sin(i * 0.013) * DriveConstants.kMaxSpeedMetersPerSecond;
+  }
+
+  private static double angle(int i) {
+    return Math.cos(i * 0.007) * Math.PI;
+  }
+}